@@ -0,0 +1,65 @@
+package bench;
+
+import logic.BitBoard;
+import logic.Direction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro-benchmarks of the static, allocation-free 4x4 {@link BitBoard} operations
+ * that search code calls on raw packed states.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BitBoardBenchmark {
+    @Param({"SPARSE", "DENSE", "NEAR_TERMINAL"})
+    private Scenario scenario;
+
+    @Param({"UP", "DOWN", "LEFT", "RIGHT"})
+    private Direction direction;
+
+    /** The packed scenario position. */
+    private long state;
+
+    @Setup
+    public void setUp() {
+        state = BitBoard.fromGrid(scenario.grid(BitBoard.SIZE));
+    }
+
+    @Benchmark
+    public long move() {
+        return BitBoard.move(state, direction);
+    }
+
+    @Benchmark
+    public int scoreGain() {
+        return BitBoard.scoreGain(state, direction);
+    }
+
+    @Benchmark
+    public boolean canMove() {
+        return BitBoard.canMove(state);
+    }
+
+    @Benchmark
+    public long spawn() {
+        int empty = BitBoard.countEmpty(state);
+        return empty == 0 ? state : BitBoard.spawn(state, empty / 2, 1);
+    }
+}
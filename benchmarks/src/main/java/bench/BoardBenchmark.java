@@ -0,0 +1,151 @@
+package bench;
+
+import logic.Board;
+import logic.Successors;
+import storage.Leaderboard;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro-benchmarks of the array-based {@link Board}.
+ *
+ * <p>Mutating benchmarks first restore the scenario with {@link Board#setGrid(int[][])}, so every invocation
+ * starts from the same position; {@link #restoreOnly()} measures that overhead on its own.
+ * {@link LargeBoardBenchmark} covers large boards and parallel moves.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BoardBenchmark {
+    @Param({"4", "5"})
+    private int size;
+
+    @Param({"SPARSE", "DENSE", "NEAR_TERMINAL"})
+    private Scenario scenario;
+
+    /** The board under test. */
+    private Board board;
+
+    /** The scenario grid restored before every mutating call. */
+    private int[][] template;
+
+    /** Reused storage for {@link #successors()}. */
+    private Successors successors;
+
+    /** A board that publishes a snapshot after every change. */
+    private Board publishingBoard;
+
+    /** The throwaway leaderboard the boards submit their games to. */
+    private Leaderboard leaderboard;
+
+    @Setup
+    public void setUp() throws IOException {
+        leaderboard = ScratchLeaderboard.open();
+        board = new Board(size, leaderboard);
+        template = scenario.grid(size);
+        successors = new Successors(size);
+        publishingBoard = new Board(size, leaderboard);
+        publishingBoard.setSnapshotPublishing(true);
+        restore();
+    }
+
+    @TearDown
+    public void tearDown() {
+        leaderboard.close();
+    }
+
+    /**
+     * Copies the scenario back into the board.
+     */
+    private void restore() {
+        board.setGrid(template);
+    }
+
+    @Benchmark
+    public long restoreOnly() {
+        restore();
+        return board.getScore();
+    }
+
+    @Benchmark
+    public long moveLeft() {
+        restore();
+        board.moveLeft();
+        return board.getScore();
+    }
+
+    /**
+     * {@link #moveLeft()} with snapshot publication on; the restore publishes a snapshot as well.
+     */
+    @Benchmark
+    public long moveLeftPublishing() {
+        publishingBoard.setGrid(template);
+        publishingBoard.moveLeft();
+        return publishingBoard.getSnapshot().getScore();
+    }
+
+    @Benchmark
+    public long moveRight() {
+        restore();
+        board.moveRight();
+        return board.getScore();
+    }
+
+    @Benchmark
+    public long moveUp() {
+        restore();
+        board.moveUp();
+        return board.getScore();
+    }
+
+    @Benchmark
+    public long moveDown() {
+        restore();
+        board.moveDown();
+        return board.getScore();
+    }
+
+    @Benchmark
+    public long generateNewTile() {
+        restore();
+        board.generateNewTile();
+        return board.getScore();
+    }
+
+    @Benchmark
+    public int successors() {
+        return board.successors(successors).getLegalMoves();
+    }
+
+    @Benchmark
+    public boolean canMove() {
+        return board.canMove();
+    }
+
+    @Benchmark
+    public boolean isBoardFull() {
+        return board.isBoardFull();
+    }
+
+    @Benchmark
+    public boolean isWinConditionMet() {
+        return board.isWinConditionMet();
+    }
+}
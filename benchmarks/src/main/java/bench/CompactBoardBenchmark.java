@@ -0,0 +1,108 @@
+package bench;
+
+import logic.CompactBoard;
+import logic.Direction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro-benchmarks of the packed boards returned by {@link CompactBoard#create}, on the same
+ * scenarios as {@link BoardBenchmark} so the two engines can be compared directly.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CompactBoardBenchmark {
+    @Param({"4", "5"})
+    private int size;
+
+    @Param({"SPARSE", "DENSE", "NEAR_TERMINAL"})
+    private Scenario scenario;
+
+    /** The board under test. */
+    private CompactBoard board;
+
+    /** The scenario position restored before every mutating call. */
+    private CompactBoard template;
+
+    @Setup
+    public void setUp() {
+        template = CompactBoard.create(size, new Random(1));
+        int[][] grid = scenario.grid(size);
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                int value = grid[row][col];
+                template.setExponent(row, col, value == 0 ? 0 : Integer.numberOfTrailingZeros(value));
+            }
+        }
+        board = template.copy();
+    }
+
+    @Benchmark
+    public CompactBoard restoreOnly() {
+        board.copyFrom(template);
+        return board;
+    }
+
+    @Benchmark
+    public boolean moveLeft() {
+        board.copyFrom(template);
+        return board.move(Direction.LEFT);
+    }
+
+    @Benchmark
+    public boolean moveRight() {
+        board.copyFrom(template);
+        return board.move(Direction.RIGHT);
+    }
+
+    @Benchmark
+    public boolean moveUp() {
+        board.copyFrom(template);
+        return board.move(Direction.UP);
+    }
+
+    @Benchmark
+    public boolean moveDown() {
+        board.copyFrom(template);
+        return board.move(Direction.DOWN);
+    }
+
+    @Benchmark
+    public CompactBoard generateNewTile() {
+        board.copyFrom(template);
+        board.generateNewTile();
+        return board;
+    }
+
+    @Benchmark
+    public boolean canMove() {
+        return template.canMove();
+    }
+
+    @Benchmark
+    public boolean isBoardFull() {
+        return template.isBoardFull();
+    }
+
+    @Benchmark
+    public boolean isWinConditionMet() {
+        return template.isWinConditionMet();
+    }
+}
@@ -0,0 +1,98 @@
+package bench;
+
+import logic.Board;
+import logic.CompactBoard;
+import sim.BatchSimulator;
+import sim.RandomPolicy;
+import storage.Leaderboard;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full-game throughput: random games played from a fresh board to game over,
+ * on the array-based {@link Board} and on the packed {@link CompactBoard}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class GameBenchmark {
+    @Param({"4", "5"})
+    private int size;
+
+    /** Random number generator for choosing moves. */
+    private Random random;
+
+    /** The array-based board. */
+    private Board board;
+
+    /** The packed board. */
+    private CompactBoard compactBoard;
+
+    /** The policy playing the packed games. */
+    private RandomPolicy policy;
+
+    /** The throwaway leaderboard the boards submit their games to. */
+    private Leaderboard leaderboard;
+
+    @Setup
+    public void setUp() throws IOException {
+        leaderboard = ScratchLeaderboard.open();
+        random = new Random(7);
+        board = new Board(size, leaderboard);
+        compactBoard = CompactBoard.create(size, new Random(7));
+        policy = new RandomPolicy(random);
+    }
+
+    @TearDown
+    public void tearDown() {
+        leaderboard.close();
+    }
+
+    @Benchmark
+    public int boardRandomGame() {
+        board.reset();
+        int moves = 0;
+        while (board.canMove()) {
+            switch (random.nextInt(4)) {
+                case 0:
+                    board.moveUp();
+                    break;
+                case 1:
+                    board.moveDown();
+                    break;
+                case 2:
+                    board.moveLeft();
+                    break;
+                default:
+                    board.moveRight();
+                    break;
+            }
+            moves++;
+        }
+        return moves;
+    }
+
+    @Benchmark
+    public int compactRandomGame() {
+        compactBoard.reset();
+        return BatchSimulator.playGame(compactBoard, policy);
+    }
+}
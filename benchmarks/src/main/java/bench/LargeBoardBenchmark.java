@@ -0,0 +1,78 @@
+package bench;
+
+import logic.Board;
+import storage.Leaderboard;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves on large {@link Board}s, with the rows processed on the calling thread or in parallel.
+ * Like {@link BoardBenchmark}, every move first restores the scenario, which is part of the measured time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class LargeBoardBenchmark {
+    @Param({"16", "64", "128", "256"})
+    private int size;
+
+    @Param({"false", "true"})
+    private boolean parallel;
+
+    @Param({"SPARSE", "DENSE"})
+    private Scenario scenario;
+
+    /** The board under test. */
+    private Board board;
+
+    /** The scenario grid restored before every move. */
+    private int[][] template;
+
+    /** The throwaway leaderboard the boards submit their games to. */
+    private Leaderboard leaderboard;
+
+    @Setup
+    public void setUp() throws IOException {
+        leaderboard = ScratchLeaderboard.open();
+        board = new Board(size, leaderboard);
+        board.setParallelThreshold(parallel ? 0 : Integer.MAX_VALUE);
+        template = scenario.grid(size);
+        board.setGrid(template);
+    }
+
+    @TearDown
+    public void tearDown() {
+        leaderboard.close();
+    }
+
+    @Benchmark
+    public long moveLeft() {
+        board.setGrid(template);
+        board.moveLeft();
+        return board.getScore();
+    }
+
+    @Benchmark
+    public long moveUp() {
+        board.setGrid(template);
+        board.moveUp();
+        return board.getScore();
+    }
+}
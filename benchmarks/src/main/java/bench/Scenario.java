@@ -0,0 +1,57 @@
+package bench;
+
+import java.util.Random;
+
+/**
+ * The board positions the benchmarks run on. Every scenario is generated from a fixed seed,
+ * so all runs measure exactly the same positions.
+ */
+public enum Scenario {
+    /** An almost empty board, as at the start of a game. */
+    SPARSE,
+
+    /** A board with about three quarters of its cells filled, as in the middle of a game. */
+    DENSE,
+
+    /** A full board on which exactly one merge is still possible. */
+    NEAR_TERMINAL;
+
+    /**
+     * Builds the grid of tile values for this scenario.
+     *
+     * @param size The size of the board.
+     * @return A new grid in the layout of {@link logic.Board#getGrid()}.
+     */
+    public int[][] grid(int size) {
+        Random random = new Random(2048L * size + ordinal());
+        int[][] grid = new int[size][size];
+        switch (this) {
+            case SPARSE:
+                for (int i = 0; i < 3; i++) {
+                    grid[random.nextInt(size)][random.nextInt(size)] = i == 2 ? 4 : 2;
+                }
+                break;
+            case DENSE:
+                for (int row = 0; row < size; row++) {
+                    for (int col = 0; col < size; col++) {
+                        if (random.nextInt(4) != 0) {
+                            grid[row][col] = 1 << (1 + random.nextInt(7));
+                        }
+                    }
+                }
+                break;
+            default:
+                // Odd exponents on one colour of the checkerboard and even exponents on the other,
+                // so that no two neighbours are equal, then copy one tile to allow a single merge
+                for (int row = 0; row < size; row++) {
+                    for (int col = 0; col < size; col++) {
+                        int exponent = (row + col) % 2 == 0 ? 1 + 2 * (row % 2) : 2 + 2 * (col % 2);
+                        grid[row][col] = 1 << exponent;
+                    }
+                }
+                grid[0][1] = grid[0][0];
+                break;
+        }
+        return grid;
+    }
+}
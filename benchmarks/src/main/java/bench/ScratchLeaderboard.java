@@ -0,0 +1,31 @@
+package bench;
+
+import storage.Leaderboard;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Throwaway leaderboards for benchmarks, so that measured games never reach the player's
+ * {@code leaderboard.bin} and the default leaderboard's flusher thread stays out of the fork.
+ */
+final class ScratchLeaderboard {
+    private ScratchLeaderboard() {
+    }
+
+    /**
+     * Opens an empty leaderboard in a new temporary directory, deleted when the JVM exits.
+     * The caller closes it in its {@code @TearDown}.
+     *
+     * @return The open leaderboard.
+     * @throws IOException If the directory cannot be created.
+     */
+    static Leaderboard open() throws IOException {
+        Path directory = Files.createTempDirectory("bench-leaderboard");
+        Path file = directory.resolve(Leaderboard.DEFAULT_FILE);
+        directory.toFile().deleteOnExit(); // Registered first, so deleted after the file
+        file.toFile().deleteOnExit();
+        return Leaderboard.open(file);
+    }
+}
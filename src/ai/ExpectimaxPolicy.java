@@ -0,0 +1,36 @@
+package ai;
+
+import logic.CompactBoard;
+import logic.Direction;
+import sim.MovePolicy;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * A move policy that plays the move chosen by an {@link ExpectimaxSolver}.
+ * The solver's cache is cleared before every game, so with a solver of its own that searches on
+ * the calling thread, a seeded game replays identically whichever worker plays it.
+ */
+public class ExpectimaxPolicy implements MovePolicy {
+    /** The solver that picks the moves. */
+    private final ExpectimaxSolver solver;
+
+    /**
+     * Constructs a new expectimax policy.
+     *
+     * @param solver The solver that picks the moves.
+     */
+    public ExpectimaxPolicy(ExpectimaxSolver solver) {
+        this.solver = solver;
+    }
+
+    @Override
+    public void startGame(RandomGenerator random) {
+        solver.clear();
+    }
+
+    @Override
+    public Direction chooseMove(CompactBoard board) {
+        return solver.search(board).getDirection();
+    }
+}
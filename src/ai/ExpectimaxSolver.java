@@ -0,0 +1,376 @@
+package ai;
+
+import logic.BitBoard;
+import logic.CompactBoard;
+import logic.Direction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Expectimax search over {@link CompactBoard} positions.
+ *
+ * <p>Max nodes try every legal direction; chance nodes average over a 2 and a 4 spawning in
+ * every empty cell. Leaves are scored with {@link Heuristic}. Chance nodes are cached in a shared
+ * {@link TranspositionTable}, and branches whose cumulative probability becomes negligible are
+ * cut off. The search deepens iteratively up to the configured depth and, if a time budget is
+ * set, returns the result of the deepest iteration that finished in time.</p>
+ *
+ * <p>Every (direction, spawn) pair below the root is searched as its own task in a
+ * {@link ForkJoinPool}, so a single decision uses all available cores. Those tasks race on the
+ * table, and a cached value depends on the probability of the path that stored it, so parallel
+ * searches can differ slightly from run to run. A solver without a pool searches on the calling
+ * thread instead; its results depend only on the position and on what the table already holds,
+ * and after {@link #clear()} only on the position.</p>
+ */
+public class ExpectimaxSolver {
+    /**
+     * The default maximum search depth, in player moves.
+     */
+    public static final int DEFAULT_DEPTH = 3;
+
+    /**
+     * The default transposition table size: 2^22 slots (64 MB).
+     */
+    public static final int DEFAULT_TABLE_BITS = 22;
+
+    /**
+     * Branches whose cumulative probability drops below this value are evaluated immediately.
+     */
+    private static final double MIN_PROBABILITY = 0.0001;
+
+    /**
+     * The value of a position in which no move is possible.
+     */
+    private static final double LOST_VALUE = 0.0;
+
+    /**
+     * The maximum search depth, in player moves.
+     */
+    private final int maxDepth;
+
+    /**
+     * The time budget per decision in nanoseconds, or 0 for no limit.
+     */
+    private final long timeBudgetNanos;
+
+    /**
+     * The cache of chance-node values, shared by all searches of this solver.
+     */
+    private final TranspositionTable table;
+
+    /**
+     * The pool the search tasks run in, or null to search on the calling thread.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructs a solver without a time budget that runs in the common pool.
+     *
+     * @param maxDepth The maximum search depth, in player moves.
+     */
+    public ExpectimaxSolver(int maxDepth) {
+        this(maxDepth, 0, DEFAULT_TABLE_BITS, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a new solver.
+     *
+     * @param maxDepth         The maximum search depth, in player moves.
+     * @param timeBudgetMillis The time budget per decision in milliseconds, or 0 for no limit.
+     * @param tableBits        The base-2 logarithm of the number of transposition table slots.
+     * @param pool             The pool the search tasks run in, or null to search on the calling thread.
+     */
+    public ExpectimaxSolver(int maxDepth, long timeBudgetMillis, int tableBits, ForkJoinPool pool) {
+        if (maxDepth < 1) {
+            throw new IllegalArgumentException("Search depth must be at least 1: " + maxDepth);
+        }
+        this.maxDepth = maxDepth;
+        this.timeBudgetNanos = TimeUnit.MILLISECONDS.toNanos(timeBudgetMillis);
+        this.table = new TranspositionTable(tableBits);
+        this.pool = pool;
+    }
+
+    /**
+     * Removes every cached value, so that later searches no longer depend on earlier ones.
+     * Must not run concurrently with a search.
+     */
+    public void clear() {
+        table.clear();
+    }
+
+    /**
+     * Searches for the best move on the given board. The board itself is not modified.
+     * Depth 1 is always completed; deeper iterations are only used if they finish within the time budget.
+     *
+     * @param board The position to search.
+     * @return The best direction and its expected value; the direction is null if no move is possible.
+     */
+    public SearchResult search(CompactBoard board) {
+        long deadline = timeBudgetNanos > 0 ? System.nanoTime() + timeBudgetNanos : Long.MAX_VALUE;
+        SearchResult best = searchDepth(board, 1, Long.MAX_VALUE);
+        for (int depth = 2; depth <= maxDepth && best.getDirection() != null; depth++) {
+            SearchResult result = searchDepth(board, depth, deadline);
+            if (result == null) {
+                break; // Out of time; keep the last complete iteration
+            }
+            best = result;
+        }
+        return best;
+    }
+
+    /**
+     * Runs one complete search to a fixed depth.
+     *
+     * @param board    The position to search.
+     * @param depth    The search depth, in player moves.
+     * @param deadline The {@link System#nanoTime()} after which the search is abandoned.
+     * @return The search result, or null if the deadline passed first.
+     */
+    private SearchResult searchDepth(CompactBoard board, int depth, long deadline) {
+        Search search = new Search(deadline);
+        List<RootTask> tasks = new ArrayList<>(4);
+        for (Direction direction : Direction.values()) {
+            CompactBoard after = board.copy();
+            if (after.slide(direction)) {
+                tasks.add(new RootTask(search, direction, after, depth));
+            }
+        }
+        if (tasks.isEmpty()) {
+            return new SearchResult(null, LOST_VALUE, depth);
+        }
+        if (pool == null) {
+            for (RootTask task : tasks) {
+                task.invoke(); // Outside a pool, invoke() computes on this thread
+            }
+        } else {
+            pool.invoke(new RecursiveTask<Void>() {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected Void compute() {
+                    ForkJoinTask.invokeAll(tasks);
+                    return null;
+                }
+            });
+        }
+        if (search.expired) {
+            return null;
+        }
+        RootTask best = tasks.get(0);
+        for (RootTask task : tasks) {
+            if (task.getRawResult() > best.getRawResult()) {
+                best = task;
+            }
+        }
+        return new SearchResult(best.direction, best.getRawResult(), depth);
+    }
+
+    /**
+     * State shared by all tasks of one fixed-depth search.
+     */
+    private static final class Search {
+        /** The {@link System#nanoTime()} after which the search is abandoned. */
+        final long deadline;
+
+        /** Set once the deadline has passed, so that every task unwinds quickly. */
+        volatile boolean expired;
+
+        Search(long deadline) {
+            this.deadline = deadline;
+        }
+
+        /**
+         * Checks whether the search should be abandoned.
+         *
+         * @return True if the deadline has passed.
+         */
+        boolean checkExpired() {
+            if (!expired && deadline != Long.MAX_VALUE && System.nanoTime() > deadline) {
+                expired = true;
+            }
+            return expired;
+        }
+    }
+
+    /**
+     * Evaluates one direction at the root by fanning out over every possible spawn.
+     */
+    private final class RootTask extends RecursiveTask<Double> {
+        private static final long serialVersionUID = 1L;
+
+        /** The search this task belongs to. */
+        private final Search search;
+
+        /** The direction played at the root. */
+        final Direction direction;
+
+        /** The board after sliding in {@link #direction}, before the spawn. */
+        private final CompactBoard after;
+
+        /** The search depth of the root, in player moves. */
+        private final int depth;
+
+        RootTask(Search search, Direction direction, CompactBoard after, int depth) {
+            this.search = search;
+            this.direction = direction;
+            this.after = after;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Double compute() {
+            if (depth == 1) {
+                return Heuristic.evaluate(after);
+            }
+            int empty = after.countEmpty();
+            List<SpawnTask> spawns = new ArrayList<>(2 * empty);
+            for (int k = 0; k < empty; k++) {
+                spawns.add(new SpawnTask(search, after, k, 1, depth - 1, (1.0 - BitBoard.FOUR_PROBABILITY) / empty));
+                spawns.add(new SpawnTask(search, after, k, 2, depth - 1, BitBoard.FOUR_PROBABILITY / empty));
+            }
+            if (pool == null) {
+                for (SpawnTask spawn : spawns) {
+                    spawn.invoke();
+                }
+            } else {
+                ForkJoinTask.invokeAll(spawns);
+            }
+            double value = 0.0;
+            for (SpawnTask spawn : spawns) {
+                value += spawn.probability * spawn.getRawResult();
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Evaluates the max node reached after one particular spawn below the root.
+     */
+    private final class SpawnTask extends RecursiveTask<Double> {
+        private static final long serialVersionUID = 1L;
+
+        /** The search this task belongs to. */
+        private final Search search;
+
+        /** The board before the spawn. */
+        private final CompactBoard after;
+
+        /** The index of the empty cell the tile spawns in. */
+        private final int cell;
+
+        /** The exponent of the spawned tile. */
+        private final int exponent;
+
+        /** The remaining search depth, in player moves. */
+        private final int depth;
+
+        /** The probability of this spawn. */
+        final double probability;
+
+        SpawnTask(Search search, CompactBoard after, int cell, int exponent, int depth, double probability) {
+            this.search = search;
+            this.after = after;
+            this.cell = cell;
+            this.exponent = exponent;
+            this.depth = depth;
+            this.probability = probability;
+        }
+
+        @Override
+        protected Double compute() {
+            Searcher searcher = new Searcher(search, after, depth);
+            CompactBoard board = after.copy();
+            board.placeTile(cell, exponent);
+            return searcher.maxNode(board, depth, probability);
+        }
+    }
+
+    /**
+     * Sequential expectimax below the parallel root, with one pair of scratch boards per ply
+     * so that the recursion itself does not allocate.
+     */
+    private final class Searcher {
+        /** The search this searcher belongs to. */
+        private final Search search;
+
+        /** Scratch boards holding the position after a slide, indexed by remaining depth. */
+        private final CompactBoard[] slid;
+
+        /** Scratch boards holding the position after a spawn, indexed by remaining depth. */
+        private final CompactBoard[] spawned;
+
+        Searcher(Search search, CompactBoard template, int depth) {
+            this.search = search;
+            slid = new CompactBoard[depth + 1];
+            spawned = new CompactBoard[depth + 1];
+            for (int i = 0; i <= depth; i++) {
+                slid[i] = template.copy();
+                spawned[i] = template.copy();
+            }
+        }
+
+        /**
+         * Evaluates a position where the player is to move.
+         *
+         * @param board       The position.
+         * @param depth       The remaining search depth, in player moves.
+         * @param probability The cumulative probability of reaching this position.
+         * @return The value of the best move, or {@link #LOST_VALUE} if no move is possible.
+         */
+        double maxNode(CompactBoard board, int depth, double probability) {
+            if (search.checkExpired()) {
+                return LOST_VALUE;
+            }
+            double best = LOST_VALUE;
+            CompactBoard after = slid[depth];
+            for (int d = 0; d < 4; d++) {
+                after.copyFrom(board);
+                if (after.slide(Direction.fromOrdinal(d))) {
+                    best = Math.max(best, chanceNode(after, depth - 1, probability));
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Evaluates a position where a tile is about to spawn.
+         *
+         * @param after       The position after the player's slide.
+         * @param depth       The remaining search depth, in player moves.
+         * @param probability The cumulative probability of reaching this position.
+         * @return The expected value over all spawns.
+         */
+        double chanceNode(CompactBoard after, int depth, double probability) {
+            if (depth == 0 || probability < MIN_PROBABILITY) {
+                return Heuristic.evaluate(after);
+            }
+            long key = after.hashKey();
+            double cached = table.get(key, depth);
+            if (!Double.isNaN(cached)) {
+                return cached;
+            }
+            int empty = after.countEmpty();
+            double twoProbability = (1.0 - BitBoard.FOUR_PROBABILITY) / empty;
+            double fourProbability = BitBoard.FOUR_PROBABILITY / empty;
+            CompactBoard board = spawned[depth];
+            double value = 0.0;
+            for (int k = 0; k < empty; k++) {
+                board.copyFrom(after);
+                board.placeTile(k, 1);
+                value += twoProbability * maxNode(board, depth, probability * twoProbability);
+                board.copyFrom(after);
+                board.placeTile(k, 2);
+                value += fourProbability * maxNode(board, depth, probability * fourProbability);
+            }
+            if (!search.expired) {
+                table.put(key, depth, value);
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package ai;
+
+import logic.CompactBoard;
+
+/**
+ * Static evaluation of a board position, used at the leaves of the search.
+ * Every row and column is scored for empty cells, possible merges, monotonicity
+ * and the total weight of its tiles; higher values mean better positions.
+ */
+public final class Heuristic {
+    /** Base score granted to every line, so that live positions always beat lost ones. */
+    private static final double LINE_BASE = 200000.0;
+
+    /** Reward per empty cell. */
+    private static final double EMPTY_WEIGHT = 270.0;
+
+    /** Reward per possible merge. */
+    private static final double MERGES_WEIGHT = 700.0;
+
+    /** Penalty for tiles that break the monotonicity of a line. */
+    private static final double MONOTONICITY_WEIGHT = 47.0;
+
+    /** Penalty for the total weight of the tiles of a line. */
+    private static final double SUM_WEIGHT = 11.0;
+
+    /** Each exponent raised to the power 4, for the monotonicity term. */
+    private static final double[] MONOTONICITY_POW = new double[16];
+
+    /** Each exponent raised to the power 3.5, for the sum term. */
+    private static final double[] SUM_POW = new double[16];
+
+    static {
+        for (int exponent = 0; exponent < 16; exponent++) {
+            MONOTONICITY_POW[exponent] = Math.pow(exponent, 4.0);
+            SUM_POW[exponent] = Math.pow(exponent, 3.5);
+        }
+    }
+
+    private Heuristic() {
+    }
+
+    /**
+     * Evaluates a board position.
+     *
+     * @param board The board to evaluate.
+     * @return The heuristic value of the position.
+     */
+    public static double evaluate(CompactBoard board) {
+        int size = board.getSize();
+        double value = 0.0;
+        for (int i = 0; i < size; i++) {
+            value += evaluateLine(board, i, false) + evaluateLine(board, i, true);
+        }
+        return value;
+    }
+
+    /**
+     * Evaluates a single row or column.
+     *
+     * @param board  The board to evaluate.
+     * @param index  The index of the row or column.
+     * @param column True to evaluate a column, false to evaluate a row.
+     * @return The heuristic value of the line.
+     */
+    private static double evaluateLine(CompactBoard board, int index, boolean column) {
+        int size = board.getSize();
+        double sum = 0.0;
+        double monotonicityLeft = 0.0;
+        double monotonicityRight = 0.0;
+        int empty = 0;
+        int merges = 0;
+        int previous = 0;
+        int counter = 0;
+        int last = 0;
+        for (int i = 0; i < size; i++) {
+            int exponent = column ? board.getExponent(i, index) : board.getExponent(index, i);
+            sum += SUM_POW[exponent];
+            if (exponent == 0) {
+                empty++;
+            } else {
+                if (previous == exponent) {
+                    counter++;
+                } else if (counter > 0) {
+                    merges += 1 + counter;
+                    counter = 0;
+                }
+                previous = exponent;
+            }
+            if (i > 0) {
+                if (last > exponent) {
+                    monotonicityLeft += MONOTONICITY_POW[last] - MONOTONICITY_POW[exponent];
+                } else {
+                    monotonicityRight += MONOTONICITY_POW[exponent] - MONOTONICITY_POW[last];
+                }
+            }
+            last = exponent;
+        }
+        if (counter > 0) {
+            merges += 1 + counter;
+        }
+        return LINE_BASE
+                + EMPTY_WEIGHT * empty
+                + MERGES_WEIGHT * merges
+                - MONOTONICITY_WEIGHT * Math.min(monotonicityLeft, monotonicityRight)
+                - SUM_WEIGHT * sum;
+    }
+}
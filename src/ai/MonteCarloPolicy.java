@@ -0,0 +1,35 @@
+package ai;
+
+import logic.CompactBoard;
+import logic.Direction;
+import sim.MovePolicy;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * A move policy that plays the move chosen by a {@link MonteCarloSolver}.
+ * The rollouts of every game are seeded from the game's generator, so seeded games replay identically.
+ */
+public class MonteCarloPolicy implements MovePolicy {
+    /** The solver that picks the moves. */
+    private final MonteCarloSolver solver;
+
+    /**
+     * Constructs a new Monte Carlo policy.
+     *
+     * @param solver The solver that picks the moves.
+     */
+    public MonteCarloPolicy(MonteCarloSolver solver) {
+        this.solver = solver;
+    }
+
+    @Override
+    public Direction chooseMove(CompactBoard board) {
+        return solver.search(board).getDirection();
+    }
+
+    @Override
+    public void startGame(RandomGenerator random) {
+        solver.setSeed(random.nextLong());
+    }
+}
@@ -0,0 +1,424 @@
+package ai;
+
+import logic.CompactBoard;
+import logic.Direction;
+import logic.Xoshiro256;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Monte Carlo search over {@link CompactBoard} positions: every legal direction is scored by the
+ * average score gained in games played out from the position it leads to.
+ *
+ * <p>The play-outs ("rollouts") either move at random or greedily take the largest immediate gain.
+ * They run in rounds of small batches in a {@link ForkJoinPool}, so idle workers steal batches from
+ * busy ones. Every batch is a task that owns its random number generator and scratch boards and
+ * keeps them from one decision to the next, so rollouts allocate nothing. The search stops when
+ * each direction has had its share of rollouts, when the time budget runs out, or as soon as one
+ * direction is ahead of all others by a clear statistical margin.</p>
+ *
+ * <p>Batch generators are seeded from {@link #setSeed(long)} and the batch index, so without a time
+ * budget a search gives the same answer whatever the number of threads.</p>
+ */
+public class MonteCarloSolver {
+    /**
+     * How rollouts choose their moves.
+     */
+    public enum Rollout {
+        /** Plays a random legal move. */
+        RANDOM,
+
+        /** Plays the legal move with the largest immediate score gain, breaking ties at random. */
+        GREEDY
+    }
+
+    /**
+     * The default number of rollouts per direction.
+     */
+    public static final int DEFAULT_ROLLOUTS = 512;
+
+    /**
+     * The number of rollouts a batch plays per round.
+     */
+    private static final int BATCH_ROLLOUTS = 16;
+
+    /**
+     * The largest number of batches per direction and round. Fixed rather than taken from the pool,
+     * so that the rollouts, and with them the decisions, do not depend on the number of threads.
+     */
+    private static final int MAX_BATCHES = 8;
+
+    /**
+     * The number of rollouts every direction needs before the search may stop early.
+     */
+    private static final int MIN_ROLLOUTS = 64;
+
+    /**
+     * How many standard errors the best direction must be ahead of every other one to stop early.
+     */
+    private static final double DOMINANCE_MARGIN = 3.0;
+
+    /**
+     * The maximum number of rollouts per direction.
+     */
+    private final int maxRollouts;
+
+    /**
+     * The time budget per decision in nanoseconds, or 0 for no limit.
+     */
+    private final long timeBudgetNanos;
+
+    /**
+     * The maximum number of moves per rollout, or 0 to play every rollout to the end.
+     */
+    private final int maxRolloutMoves;
+
+    /**
+     * How rollouts choose their moves.
+     */
+    private final Rollout rollout;
+
+    /**
+     * The pool the rollout batches run in.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The number of batches per direction and round.
+     */
+    private final int batchesPerDirection;
+
+    /**
+     * The rollout batches by direction ordinal, created for the board size of the first search
+     * and reused afterwards.
+     */
+    private RolloutTask[][] batches;
+
+    /**
+     * The seed the batch generators are derived from.
+     */
+    private long seed = new Xoshiro256().nextLong();
+
+    /**
+     * The number of searches run since the seed was set, so that consecutive decisions use different rollouts.
+     */
+    private long searches;
+
+    /**
+     * Constructs a solver that plays random rollouts in the common pool, without a time budget.
+     *
+     * @param maxRollouts The maximum number of rollouts per direction.
+     */
+    public MonteCarloSolver(int maxRollouts) {
+        this(maxRollouts, 0, 0, Rollout.RANDOM, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a new solver.
+     *
+     * @param maxRollouts      The maximum number of rollouts per direction.
+     * @param timeBudgetMillis The time budget per decision in milliseconds, or 0 for no limit.
+     * @param maxRolloutMoves  The maximum number of moves per rollout, or 0 to play every rollout to the end.
+     * @param rollout          How rollouts choose their moves.
+     * @param pool             The pool the rollout batches run in.
+     */
+    public MonteCarloSolver(int maxRollouts, long timeBudgetMillis, int maxRolloutMoves, Rollout rollout, ForkJoinPool pool) {
+        if (maxRollouts < 1) {
+            throw new IllegalArgumentException("At least one rollout per direction is needed: " + maxRollouts);
+        }
+        this.maxRollouts = maxRollouts;
+        this.timeBudgetNanos = TimeUnit.MILLISECONDS.toNanos(timeBudgetMillis);
+        this.maxRolloutMoves = maxRolloutMoves;
+        this.rollout = rollout;
+        this.pool = pool;
+        this.batchesPerDirection = Math.max(1, Math.min(MAX_BATCHES, (maxRollouts + BATCH_ROLLOUTS - 1) / BATCH_ROLLOUTS));
+    }
+
+    /**
+     * Sets the seed the rollouts are derived from, restarting the sequence of searches.
+     *
+     * @param seed The new seed.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+        this.searches = 0;
+    }
+
+    /**
+     * Searches for the best move on the given board. The board itself is not modified.
+     *
+     * @param board The position to search.
+     * @return The best direction and its mean rollout gain (including the gain of the move itself);
+     *         the direction is null if no move is possible. The depth is the number of rollouts per direction.
+     */
+    public SearchResult search(CompactBoard board) {
+        long deadline = timeBudgetNanos > 0 ? System.nanoTime() + timeBudgetNanos : Long.MAX_VALUE;
+        if (batches == null || batches[0][0].start.getSize() != board.getSize()) {
+            batches = new RolloutTask[4][batchesPerDirection];
+            for (int d = 0; d < 4; d++) {
+                for (int b = 0; b < batchesPerDirection; b++) {
+                    batches[d][b] = new RolloutTask(board);
+                }
+            }
+        }
+
+        long searchSeed = Xoshiro256.gameSeed(seed, searches++);
+        List<RolloutTask> round = new ArrayList<>(4 * batchesPerDirection);
+        Direction only = null;
+        int legal = 0;
+        for (Direction direction : Direction.values()) {
+            RolloutTask[] tasks = batches[direction.ordinal()];
+            tasks[0].start.copyFrom(board);
+            if (!tasks[0].start.slide(direction)) {
+                continue;
+            }
+            only = direction;
+            legal++;
+            for (int b = 0; b < batchesPerDirection; b++) {
+                RolloutTask task = tasks[b];
+                task.prepare(tasks[0].start, board.getScore(),
+                        Xoshiro256.gameSeed(searchSeed, direction.ordinal() * (long) batchesPerDirection + b));
+                round.add(task);
+            }
+        }
+        if (legal <= 1) {
+            return new SearchResult(only, 0.0, 0); // Nothing to choose from
+        }
+
+        int played = 0;
+        while (true) {
+            int perBatch = Math.min(BATCH_ROLLOUTS, (maxRollouts - played + batchesPerDirection - 1) / batchesPerDirection);
+            for (RolloutTask task : round) {
+                task.reinitialize();
+                task.rollouts = perBatch;
+            }
+            pool.invoke(new RecursiveAction() {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected void compute() {
+                    ForkJoinTask.invokeAll(round);
+                }
+            });
+            played += perBatch * batchesPerDirection;
+            if (played >= maxRollouts || System.nanoTime() > deadline || isDecided(played)) {
+                break;
+            }
+        }
+        return best(played);
+    }
+
+    /**
+     * Checks whether the best direction is ahead of every other one by {@link #DOMINANCE_MARGIN} standard errors.
+     *
+     * @param played The number of rollouts per direction so far.
+     * @return True if further rollouts are very unlikely to change the decision.
+     */
+    private boolean isDecided(int played) {
+        if (played < MIN_ROLLOUTS) {
+            return false;
+        }
+        int best = -1;
+        double bestMean = Double.NEGATIVE_INFINITY;
+        for (int d = 0; d < 4; d++) {
+            if (batches[d][0].rollouts > 0 && mean(d) > bestMean) {
+                best = d;
+                bestMean = mean(d);
+            }
+        }
+        double bestLow = bestMean - DOMINANCE_MARGIN * standardError(best);
+        for (int d = 0; d < 4; d++) {
+            if (d != best && batches[d][0].rollouts > 0 && mean(d) + DOMINANCE_MARGIN * standardError(d) >= bestLow) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Picks the direction with the highest mean rollout gain.
+     *
+     * @param played The number of rollouts per direction.
+     * @return The search result.
+     */
+    private SearchResult best(int played) {
+        Direction best = null;
+        double bestMean = Double.NEGATIVE_INFINITY;
+        for (int d = 0; d < 4; d++) {
+            if (batches[d][0].rollouts > 0 && mean(d) > bestMean) {
+                best = Direction.fromOrdinal(d);
+                bestMean = mean(d);
+            }
+        }
+        for (RolloutTask[] tasks : batches) {
+            for (RolloutTask task : tasks) {
+                task.rollouts = 0; // Illegal directions of the next search must not look played
+            }
+        }
+        return new SearchResult(best, bestMean, played);
+    }
+
+    /**
+     * Computes the mean rollout gain of a direction.
+     *
+     * @param direction The direction ordinal.
+     * @return The mean gain over all rollouts of the current search.
+     */
+    private double mean(int direction) {
+        double sum = 0.0;
+        long count = 0;
+        for (RolloutTask task : batches[direction]) {
+            sum += task.sum;
+            count += task.count;
+        }
+        return sum / count;
+    }
+
+    /**
+     * Computes the standard error of the mean rollout gain of a direction.
+     *
+     * @param direction The direction ordinal.
+     * @return The standard error of {@link #mean(int)}.
+     */
+    private double standardError(int direction) {
+        double sum = 0.0;
+        double sumSquares = 0.0;
+        long count = 0;
+        for (RolloutTask task : batches[direction]) {
+            sum += task.sum;
+            sumSquares += task.sumSquares;
+            count += task.count;
+        }
+        double mean = sum / count;
+        double variance = Math.max(0.0, sumSquares / count - mean * mean);
+        return Math.sqrt(variance / count);
+    }
+
+    /**
+     * A batch of rollouts from the position after one root move. Owns its generator and scratch boards,
+     * which are reused by every round and every later search.
+     */
+    private final class RolloutTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        /** The generator of this batch; the scratch boards spawn their tiles with it. */
+        private final Xoshiro256 random = new Xoshiro256();
+
+        /** The position after the root move, before the spawn. */
+        final CompactBoard start;
+
+        /** The board a rollout is played on. */
+        private final CompactBoard board;
+
+        /** The board greedy rollouts try their moves on. */
+        private final CompactBoard probe;
+
+        /** The score of the searched position, before the root move. */
+        private int rootScore;
+
+        /** The number of rollouts to play in the current round; 0 if the direction is not searched. */
+        int rollouts;
+
+        /** The sum of the gains of all rollouts of the current search. */
+        double sum;
+
+        /** The sum of the squared gains of all rollouts of the current search. */
+        double sumSquares;
+
+        /** The number of rollouts of the current search. */
+        long count;
+
+        RolloutTask(CompactBoard template) {
+            start = CompactBoard.create(template.getSize(), random);
+            board = CompactBoard.create(template.getSize(), random);
+            probe = CompactBoard.create(template.getSize(), random);
+        }
+
+        /**
+         * Prepares the batch for a new search.
+         *
+         * @param after     The position after the root move, before the spawn.
+         * @param rootScore The score of the searched position.
+         * @param seed      The seed of this batch's generator.
+         */
+        void prepare(CompactBoard after, int rootScore, long seed) {
+            if (after != start) {
+                start.copyFrom(after);
+            }
+            this.rootScore = rootScore;
+            random.reseed(seed);
+            sum = 0.0;
+            sumSquares = 0.0;
+            count = 0;
+        }
+
+        @Override
+        protected void compute() {
+            for (int i = 0; i < rollouts; i++) {
+                board.copyFrom(start);
+                board.generateNewTile();
+                play();
+                double gain = board.getScore() - rootScore;
+                sum += gain;
+                sumSquares += gain * gain;
+                count++;
+            }
+        }
+
+        /**
+         * Plays {@link #board} until no move is possible or the move limit is reached.
+         */
+        private void play() {
+            for (int moves = 0; maxRolloutMoves == 0 || moves < maxRolloutMoves; moves++) {
+                boolean moved = rollout == Rollout.GREEDY ? moveGreedily() : moveRandomly();
+                if (!moved) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Plays a random legal move, trying the directions in turn from a random one.
+         * A move that does not change the board leaves it untouched, so no probing is needed.
+         *
+         * @return True if a move was played, false if no move is possible.
+         */
+        private boolean moveRandomly() {
+            int first = random.nextInt(4);
+            for (int i = 0; i < 4; i++) {
+                if (board.move(Direction.fromOrdinal((first + i) & 3))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Plays the legal move with the largest immediate gain, breaking ties by starting from a random direction.
+         *
+         * @return True if a move was played, false if no move is possible.
+         */
+        private boolean moveGreedily() {
+            int first = random.nextInt(4);
+            Direction best = null;
+            int bestGain = -1;
+            for (int i = 0; i < 4; i++) {
+                Direction direction = Direction.fromOrdinal((first + i) & 3);
+                probe.copyFrom(board);
+                if (probe.slide(direction)) {
+                    int gain = probe.getScore() - board.getScore();
+                    if (gain > bestGain) {
+                        best = direction;
+                        bestGain = gain;
+                    }
+                }
+            }
+            return best != null && board.move(best);
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package ai;
+
+import logic.BitBoard;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * An n-tuple network: a value function for 4x4 positions that is the sum of a handful of table lookups.
+ *
+ * <p>Each tuple is a fixed group of cells; the exponents in those cells, four bits each, form an
+ * index into the tuple's table of {@code float} weights. Every tuple is also applied to the seven
+ * rotations and reflections of the board and shares its table with them, so a 4x4 board with four
+ * 6-tuples is evaluated with 32 lookups in 4 tables of 16^6 weights (64 MB each).</p>
+ *
+ * <p>The weights live in a memory-mapped file: opening a trained network maps the file and is
+ * instant, and training writes straight into the mapping, so the operating system persists the
+ * weights without a separate save step; {@link #force()} flushes them. Updates are plain
+ * unsynchronized reads and writes shared by all training threads. Two threads updating the same
+ * weight at the same time can lose one of the updates, which at the scale of millions of games
+ * does not hurt learning and keeps every update lock-free.</p>
+ *
+ * <p>File layout, little-endian: a {@value #HEADER_SIZE}-byte header holding the magic number, the
+ * format version, the number of tuples and, for every tuple, its length followed by its cells
+ * ({@code row * 4 + col}); then the tables one after the other, 16^length floats each.</p>
+ */
+public class NTupleNetwork {
+    /** Identifies a weights file ("NTUP"). */
+    private static final int MAGIC = 0x4E545550;
+
+    /** The version of the file format. */
+    private static final int VERSION = 1;
+
+    /** The size of the header; the tables start at this offset, aligned to a page. */
+    public static final int HEADER_SIZE = 4096;
+
+    /** The longest supported tuple; a table of 16^7 floats is 1 GB. */
+    public static final int MAX_TUPLE_LENGTH = 7;
+
+    /** The number of board symmetries each tuple is applied to. */
+    private static final int SYMMETRIES = 8;
+
+    /**
+     * Four 6-tuples (two rows each with two cells of the next row, and two 2x3 rectangles) with 256 MB
+     * of weights: the usual strong configuration, reaching 2048 in most games after a few hundred
+     * thousand training games.
+     */
+    public static final int[][] LARGE_TUPLES = {
+            {0, 1, 2, 3, 4, 5},
+            {4, 5, 6, 7, 8, 9},
+            {0, 1, 2, 4, 5, 6},
+            {4, 5, 6, 8, 9, 10}
+    };
+
+    /**
+     * Two rows and three squares of four cells, with 1.3 MB of weights: learns in seconds, plays much weaker.
+     */
+    public static final int[][] SMALL_TUPLES = {
+            {0, 1, 2, 3},
+            {4, 5, 6, 7},
+            {0, 1, 4, 5},
+            {1, 2, 5, 6},
+            {5, 6, 9, 10}
+    };
+
+    /** The cells of each tuple, as given. */
+    private final int[][] tuples;
+
+    /** The weight table of each tuple, a view of the mapped file. */
+    private final FloatBuffer[] tables;
+
+    /** The mapping of the whole file, kept to flush it. */
+    private final MappedByteBuffer mapping;
+
+    /**
+     * The bit shifts of the cells of every tuple under every symmetry: {@code shifts[t][s][k]} is the
+     * position in the packed board of cell {@code k} of tuple {@code t} under symmetry {@code s}.
+     */
+    private final int[][][] shifts;
+
+    /** The number of lookups per evaluation, which scales the learning rate of a single weight. */
+    private final int featureCount;
+
+    /**
+     * Constructs a network over a mapped weights file.
+     *
+     * @param tuples  The cells of each tuple.
+     * @param mapping The mapping of the whole file.
+     */
+    private NTupleNetwork(int[][] tuples, MappedByteBuffer mapping) {
+        this.tuples = tuples;
+        this.mapping = mapping;
+        this.tables = new FloatBuffer[tuples.length];
+        this.shifts = new int[tuples.length][SYMMETRIES][];
+        long offset = HEADER_SIZE;
+        for (int t = 0; t < tuples.length; t++) {
+            int bytes = tableSize(tuples[t].length) * Float.BYTES;
+            tables[t] = mapping.slice((int) offset, bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+            offset += bytes;
+            for (int s = 0; s < SYMMETRIES; s++) {
+                shifts[t][s] = new int[tuples[t].length];
+                for (int k = 0; k < tuples[t].length; k++) {
+                    shifts[t][s][k] = 4 * symmetric(tuples[t][k], s);
+                }
+            }
+        }
+        this.featureCount = tuples.length * SYMMETRIES;
+    }
+
+    /**
+     * Opens a weights file, creating it with all weights zero if it does not exist.
+     *
+     * @param file   The weights file.
+     * @param tuples The tuples of a new network; an existing file must have been created with the same tuples.
+     * @return The network, writable.
+     * @throws IOException If the file cannot be created or mapped, or holds a different network.
+     */
+    public static NTupleNetwork create(Path file, int[][] tuples) throws IOException {
+        validate(tuples);
+        if (Files.exists(file)) {
+            NTupleNetwork network = open(file, true);
+            if (!Arrays.deepEquals(network.tuples, tuples)) {
+                throw new IOException("Weights file " + file + " holds different tuples: " + Arrays.deepToString(network.tuples));
+            }
+            return network;
+        }
+        long length = fileLength(tuples);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(tuples.length);
+            for (int[] tuple : tuples) {
+                header.putInt(tuple.length);
+                for (int cell : tuple) {
+                    header.putInt(cell);
+                }
+            }
+            header.clear();
+            channel.write(header, 0);
+            // Growing the file leaves the tables as zeros, without writing them
+            channel.write(ByteBuffer.allocate(1), length - 1);
+            return new NTupleNetwork(copy(tuples), channel.map(FileChannel.MapMode.READ_WRITE, 0, length));
+        }
+    }
+
+    /**
+     * Opens an existing weights file by mapping it; no weight is read until it is used.
+     *
+     * @param file     The weights file.
+     * @param writable Whether the network will be trained; a read-only network can only evaluate.
+     * @return The network.
+     * @throws IOException If the file cannot be mapped or is not a weights file.
+     */
+    public static NTupleNetwork open(Path file, boolean writable) throws IOException {
+        try (FileChannel channel = writable
+                ? FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(header, 0);
+            header.flip();
+            if (header.remaining() < 12 || header.getInt() != MAGIC) {
+                throw new IOException("Not a weights file: " + file);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported weights file version " + version + ": " + file);
+            }
+            int count = header.getInt();
+            if (count < 1 || count > (HEADER_SIZE - 12) / 4) {
+                throw new IOException("Corrupt weights file header: " + file);
+            }
+            int[][] tuples = new int[count][];
+            for (int t = 0; t < count; t++) {
+                int length = header.remaining() >= 4 ? header.getInt() : -1;
+                if (length < 1 || length > MAX_TUPLE_LENGTH || header.remaining() < 4 * length) {
+                    throw new IOException("Corrupt weights file header: " + file);
+                }
+                tuples[t] = new int[length];
+                for (int k = 0; k < length; k++) {
+                    tuples[t][k] = header.getInt();
+                }
+            }
+            try {
+                validate(tuples);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Corrupt weights file header: " + file, e);
+            }
+            long length = fileLength(tuples);
+            if (channel.size() != length) {
+                throw new IOException("Weights file " + file + " has " + channel.size() + " bytes, expected " + length);
+            }
+            FileChannel.MapMode mode = writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+            return new NTupleNetwork(tuples, channel.map(mode, 0, length));
+        }
+    }
+
+    /**
+     * Checks that tuples fit a 4x4 board and a single mapping.
+     *
+     * @param tuples The tuples.
+     * @throws IllegalArgumentException If a tuple is empty, too long or names a cell outside the board.
+     */
+    private static void validate(int[][] tuples) {
+        if (tuples.length == 0) {
+            throw new IllegalArgumentException("A network needs at least one tuple");
+        }
+        int headerInts = 3;
+        for (int[] tuple : tuples) {
+            if (tuple.length < 1 || tuple.length > MAX_TUPLE_LENGTH) {
+                throw new IllegalArgumentException("Tuple length must be between 1 and " + MAX_TUPLE_LENGTH + ": " + Arrays.toString(tuple));
+            }
+            for (int cell : tuple) {
+                if (cell < 0 || cell >= BitBoard.SIZE * BitBoard.SIZE) {
+                    throw new IllegalArgumentException("Tuple cell outside the board: " + Arrays.toString(tuple));
+                }
+            }
+            headerInts += 1 + tuple.length;
+        }
+        if (headerInts * 4 > HEADER_SIZE || fileLength(tuples) > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many weights for one file: " + Arrays.deepToString(tuples));
+        }
+    }
+
+    /**
+     * Computes the length of a weights file.
+     *
+     * @param tuples The tuples.
+     * @return The header plus all tables, in bytes.
+     */
+    private static long fileLength(int[][] tuples) {
+        long length = HEADER_SIZE;
+        for (int[] tuple : tuples) {
+            length += (long) tableSize(tuple.length) * Float.BYTES;
+        }
+        return length;
+    }
+
+    /**
+     * Computes the number of weights of a tuple.
+     *
+     * @param length The number of cells of the tuple.
+     * @return 16 to the power of the length.
+     */
+    private static int tableSize(int length) {
+        return 1 << (4 * length);
+    }
+
+    /**
+     * Maps a cell through one of the eight symmetries of the square.
+     *
+     * @param cell     The cell ({@code row * 4 + col}).
+     * @param symmetry The symmetry: bits 0-1 count quarter turns, bit 2 mirrors first.
+     * @return The image of the cell.
+     */
+    private static int symmetric(int cell, int symmetry) {
+        int last = BitBoard.SIZE - 1;
+        int row = cell / BitBoard.SIZE;
+        int col = cell % BitBoard.SIZE;
+        if ((symmetry & 4) != 0) {
+            col = last - col;
+        }
+        for (int turn = 0; turn < (symmetry & 3); turn++) {
+            int turned = col;
+            col = last - row;
+            row = turned;
+        }
+        return row * BitBoard.SIZE + col;
+    }
+
+    /**
+     * Copies the tuples, so that the network does not share the caller's arrays.
+     *
+     * @param tuples The tuples.
+     * @return A deep copy.
+     */
+    private static int[][] copy(int[][] tuples) {
+        int[][] copy = new int[tuples.length][];
+        for (int t = 0; t < tuples.length; t++) {
+            copy[t] = tuples[t].clone();
+        }
+        return copy;
+    }
+
+    /**
+     * Computes the table index of a tuple under one symmetry.
+     *
+     * @param board  The packed board.
+     * @param shifts The bit positions of the tuple's cells under that symmetry.
+     * @return The index into the tuple's table.
+     */
+    private static int index(long board, int[] shifts) {
+        int index = 0;
+        for (int shift : shifts) {
+            index = (index << 4) | (int) ((board >>> shift) & 0xF);
+        }
+        return index;
+    }
+
+    /**
+     * Evaluates a position.
+     *
+     * @param board The packed 4x4 board, as {@link BitBoard#getState()}.
+     * @return The sum of the weights of all tuples under all symmetries.
+     */
+    public float evaluate(long board) {
+        float value = 0.0f;
+        for (int t = 0; t < tables.length; t++) {
+            FloatBuffer table = tables[t];
+            for (int[] symmetry : shifts[t]) {
+                value += table.get(index(board, symmetry));
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Moves the value of a position towards a target by spreading a correction over all its weights.
+     * Lock-free: concurrent updates of the same weight may overwrite each other.
+     *
+     * @param board     The packed 4x4 board.
+     * @param error     The target value minus the current value.
+     * @param learnRate The fraction of the error to correct.
+     */
+    public void update(long board, float error, float learnRate) {
+        float delta = learnRate * error / featureCount;
+        for (int t = 0; t < tables.length; t++) {
+            FloatBuffer table = tables[t];
+            for (int[] symmetry : shifts[t]) {
+                int index = index(board, symmetry);
+                table.put(index, table.get(index) + delta);
+            }
+        }
+    }
+
+    /**
+     * Gets the tuples of the network.
+     *
+     * @return A copy of the cells of each tuple.
+     */
+    public int[][] getTuples() {
+        return copy(tuples);
+    }
+
+    /**
+     * Writes all changed weights to the file.
+     */
+    public void force() {
+        if (!mapping.isReadOnly()) {
+            mapping.force();
+        }
+    }
+}
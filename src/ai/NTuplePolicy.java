@@ -0,0 +1,43 @@
+package ai;
+
+import logic.BitBoard;
+import logic.CompactBoard;
+import logic.Direction;
+import sim.MovePolicy;
+
+/**
+ * A move policy that plays the move a trained {@link NTupleNetwork} values most: the largest
+ * score gain plus the value of the position after the slide. Each decision is 4 slides and
+ * a few dozen table lookups. Only plays 4x4 boards.
+ */
+public class NTuplePolicy implements MovePolicy {
+    /** The network that values the positions. */
+    private final NTupleNetwork network;
+
+    /**
+     * Constructs a new n-tuple policy.
+     *
+     * @param network The network that values the positions.
+     */
+    public NTuplePolicy(NTupleNetwork network) {
+        this.network = network;
+    }
+
+    /**
+     * Chooses the move the network values most.
+     *
+     * @param board The position to move from.
+     * @return The best move, or null if no move is legal.
+     * @throws IllegalArgumentException If the board is not 4x4.
+     */
+    @Override
+    public Direction chooseMove(CompactBoard board) {
+        if (board.getSize() != 4) {
+            throw new IllegalArgumentException("The n-tuple policy only plays 4x4 boards: " + board.getSize());
+        }
+        long state = board instanceof BitBoard
+                ? ((BitBoard) board).getState()
+                : BitBoard.fromGrid(board.getGrid());
+        return TDTrainer.bestMove(network, state);
+    }
+}
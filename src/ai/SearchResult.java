@@ -0,0 +1,62 @@
+package ai;
+
+import logic.Direction;
+
+/**
+ * The outcome of a search: the move to play and the value the search expects from it.
+ */
+public final class SearchResult {
+    /** The best direction, or null if no move is possible. */
+    private final Direction direction;
+
+    /** The expected heuristic value of playing the best direction. */
+    private final double expectedValue;
+
+    /** The deepest search depth that was completed. */
+    private final int depth;
+
+    /**
+     * Constructs a new search result.
+     *
+     * @param direction     The best direction, or null if no move is possible.
+     * @param expectedValue The expected value of playing the best direction.
+     * @param depth         The deepest search depth that was completed.
+     */
+    public SearchResult(Direction direction, double expectedValue, int depth) {
+        this.direction = direction;
+        this.expectedValue = expectedValue;
+        this.depth = depth;
+    }
+
+    /**
+     * Gets the best direction.
+     *
+     * @return The best direction, or null if no move is possible.
+     */
+    public Direction getDirection() {
+        return direction;
+    }
+
+    /**
+     * Gets the expected value of playing the best direction.
+     *
+     * @return The expected heuristic value.
+     */
+    public double getExpectedValue() {
+        return expectedValue;
+    }
+
+    /**
+     * Gets the deepest search depth that was completed.
+     *
+     * @return The completed depth.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    @Override
+    public String toString() {
+        return direction + " (" + expectedValue + " at depth " + depth + ")";
+    }
+}
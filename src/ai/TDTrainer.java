@@ -0,0 +1,206 @@
+package ai;
+
+import logic.BitBoard;
+import logic.Direction;
+import logic.Xoshiro256;
+import sim.SimulationStats;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Trains an {@link NTupleNetwork} by self-play with temporal-difference learning, TD(0) on afterstates.
+ *
+ * <p>Every move picks the direction that maximizes the score gain plus the network's value of the
+ * position after the slide (the afterstate). The value of the previous afterstate is then pulled
+ * towards the gain and value of the next one, and the last afterstate of a game towards 0. Worker
+ * threads each play their own games and update the one shared network without locks. Games are
+ * played on {@link BitBoard}s and seeded like the {@link sim.BatchSimulator}'s, by seed and game number.</p>
+ */
+public class TDTrainer {
+    /**
+     * The default learning rate: the fraction of the TD error corrected per update.
+     */
+    public static final float DEFAULT_LEARNING_RATE = 0.1f;
+
+    /**
+     * The network being trained.
+     */
+    private final NTupleNetwork network;
+
+    /**
+     * The fraction of the TD error corrected per update.
+     */
+    private final float learningRate;
+
+    /**
+     * The number of worker threads.
+     */
+    private final int threads;
+
+    /**
+     * The seed the games are derived from.
+     */
+    private final long seed;
+
+    /**
+     * The number of games played so far, over all calls to {@link #train(long)}.
+     */
+    private long gamesPlayed;
+
+    /**
+     * Constructs a new trainer.
+     *
+     * @param network      The network to train; must be writable.
+     * @param learningRate The fraction of the TD error corrected per update.
+     * @param threads      The number of worker threads.
+     * @param seed         The seed the games are derived from.
+     */
+    public TDTrainer(NTupleNetwork network, float learningRate, int threads, long seed) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one worker thread is required: " + threads);
+        }
+        this.network = network;
+        this.learningRate = learningRate;
+        this.threads = threads;
+        this.seed = seed;
+    }
+
+    /**
+     * Gets the seed the games are derived from.
+     *
+     * @return The seed.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Plays and learns from a batch of games on all worker threads. Consecutive batches continue the
+     * numbering of the games, so training in several batches plays the same games as one long batch.
+     *
+     * @param games The number of games to play.
+     * @return The statistics of the games played in this batch.
+     * @throws InterruptedException If the calling thread is interrupted while waiting for the workers.
+     */
+    public SimulationStats train(long games) throws InterruptedException {
+        AtomicLong nextGame = new AtomicLong(gamesPlayed);
+        long end = gamesPlayed + games;
+        gamesPlayed = end;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        try {
+            List<Future<SimulationStats>> workers = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++) {
+                workers.add(executor.submit(() -> runWorker(nextGame, end)));
+            }
+            SimulationStats total = new SimulationStats();
+            for (Future<SimulationStats> worker : workers) {
+                total.merge(worker.get());
+            }
+            total.setElapsedNanos(System.nanoTime() - start);
+            return total;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Training worker failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Plays games until the batch is exhausted.
+     *
+     * @param nextGame The shared counter of games handed out so far.
+     * @param end      The number of the first game after the batch.
+     * @return The statistics of the games played by this worker.
+     */
+    private SimulationStats runWorker(AtomicLong nextGame, long end) {
+        SimulationStats stats = new SimulationStats();
+        Xoshiro256 random = new Xoshiro256(seed);
+        BitBoard board = new BitBoard(random);
+        long game;
+        while ((game = nextGame.getAndIncrement()) < end) {
+            random.reseed(Xoshiro256.gameSeed(seed, game));
+            board.reset();
+            int moves = playGame(board);
+            stats.record(board.getScore(), moves, board.maxExponent());
+        }
+        return stats;
+    }
+
+    /**
+     * Plays one game to the end, learning after every move.
+     *
+     * @param board The board, already reset.
+     * @return The number of moves played.
+     */
+    private int playGame(BitBoard board) {
+        int moves = 0;
+        long previous = 0L; // The previous afterstate; 0 before the first move
+        boolean learning = false;
+        while (true) {
+            long state = board.getState();
+            Direction best = null;
+            long bestAfter = 0L;
+            float bestValue = Float.NEGATIVE_INFINITY;
+            int bestGain = 0;
+            for (int d = 0; d < 4; d++) {
+                Direction direction = Direction.fromOrdinal(d);
+                long after = BitBoard.move(state, direction);
+                if (after != state) {
+                    int gain = BitBoard.scoreGain(state, direction);
+                    float value = gain + network.evaluate(after);
+                    if (value > bestValue) {
+                        best = direction;
+                        bestAfter = after;
+                        bestValue = value;
+                        bestGain = gain;
+                    }
+                }
+            }
+            if (learning) {
+                // TD(0): the previous afterstate is worth the gain and value of the best move from its successor
+                float target = best == null ? 0.0f : bestValue;
+                network.update(previous, target - network.evaluate(previous), learningRate);
+            }
+            if (best == null) {
+                return moves;
+            }
+            board.setState(bestAfter);
+            board.setScore(board.getScore() + bestGain);
+            board.generateNewTile();
+            previous = bestAfter;
+            learning = true;
+            moves++;
+        }
+    }
+
+    /**
+     * Picks the move a trained network would play: the largest score gain plus afterstate value.
+     *
+     * @param network The network.
+     * @param state   The packed 4x4 board.
+     * @return The best direction, or null if no move is possible.
+     */
+    public static Direction bestMove(NTupleNetwork network, long state) {
+        Direction best = null;
+        float bestValue = Float.NEGATIVE_INFINITY;
+        for (int d = 0; d < 4; d++) {
+            Direction direction = Direction.fromOrdinal(d);
+            long after = BitBoard.move(state, direction);
+            if (after != state) {
+                float value = BitBoard.scoreGain(state, direction) + network.evaluate(after);
+                if (value > bestValue) {
+                    best = direction;
+                    bestValue = value;
+                }
+            }
+        }
+        return best;
+    }
+}
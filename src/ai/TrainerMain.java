@@ -0,0 +1,47 @@
+package ai;
+
+import logic.Xoshiro256;
+import sim.SimulationStats;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Command-line entry point of the n-tuple network trainer.
+ *
+ * <pre>
+ * java ai.TrainerMain weights-file [games] [threads] [large|small] [learning-rate] [seed]
+ * </pre>
+ *
+ * Training continues from the weights already in the file, if it exists. Progress is printed
+ * after every tenth of the games, and the weights are flushed to the file at the same time.
+ * Play with the trained network through the simulator's {@code ntuple:weights-file} policy.
+ */
+public class TrainerMain {
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.err.println("Usage: java ai.TrainerMain weights-file [games] [threads] [large|small] [learning-rate] [seed]");
+            System.exit(2);
+        }
+        Path file = Paths.get(args[0]);
+        long games = args.length > 1 ? Long.parseLong(args[1]) : 100000;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int[][] tuples = args.length > 3 && args[3].equals("small") ? NTupleNetwork.SMALL_TUPLES : NTupleNetwork.LARGE_TUPLES;
+        float learningRate = args.length > 4 ? Float.parseFloat(args[4]) : TDTrainer.DEFAULT_LEARNING_RATE;
+        long seed = args.length > 5 ? Long.parseLong(args[5]) : new Xoshiro256().nextLong();
+
+        NTupleNetwork network = NTupleNetwork.create(file, tuples);
+        TDTrainer trainer = new TDTrainer(network, learningRate, threads, seed);
+        System.out.printf("Training %s for %d games on %d threads, learning rate %s, seed %d%n",
+                file, games, threads, learningRate, seed);
+        long chunk = Math.max(1, games / 10);
+        for (long done = 0; done < games; done += chunk) {
+            SimulationStats stats = trainer.train(Math.min(chunk, games - done));
+            network.force();
+            System.out.printf("%d games: mean score %.1f, max %d, reached 2048 in %.2f%%, %.1f games/s%n",
+                    done + stats.getGames(), stats.getMeanScore(), stats.getMaxScore(),
+                    100.0 * stats.getWins() / stats.getGames(), stats.getGamesPerSecond());
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package ai;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size, lock-free cache of chance-node values keyed by {@link logic.CompactBoard#hashKey()}.
+ *
+ * <p>Each slot is a pair of {@code long}s: the data word (value and search depth) and the key
+ * XOR-ed with the data word. A reader only accepts a slot whose words XOR back to its key, so
+ * concurrent writers can race on a slot without a lock and a torn slot simply reads as a miss.
+ * New entries always replace old ones.</p>
+ */
+public final class TranspositionTable {
+    /** Key words of the slots, each XOR-ed with its data word. */
+    private final long[] keys;
+
+    /**
+     * Data words of the slots: the search depth plus one in the upper half (so that a zeroed
+     * slot never matches) and the float value bits in the lower half.
+     */
+    private final long[] data;
+
+    /** Mask turning a hash into a slot index. */
+    private final int mask;
+
+    /**
+     * Constructs a new table with {@code 2^bits} slots.
+     *
+     * @param bits The base-2 logarithm of the number of slots (1 to 30).
+     */
+    public TranspositionTable(int bits) {
+        if (bits < 1 || bits > 30) {
+            throw new IllegalArgumentException("Table size must be between 2^1 and 2^30 slots: " + bits);
+        }
+        keys = new long[1 << bits];
+        data = new long[1 << bits];
+        mask = (1 << bits) - 1;
+    }
+
+    /**
+     * Looks up the value of a position searched to at least the given depth.
+     *
+     * @param key   The key of the position.
+     * @param depth The remaining search depth the caller needs.
+     * @return The cached value, or NaN if there is no usable entry.
+     */
+    public double get(long key, int depth) {
+        int slot = index(key);
+        long word = data[slot];
+        if ((keys[slot] ^ word) != key || (int) (word >>> 32) <= depth) {
+            return Double.NaN;
+        }
+        return Float.intBitsToFloat((int) word);
+    }
+
+    /**
+     * Stores the value of a position.
+     *
+     * @param key   The key of the position.
+     * @param depth The remaining search depth the value was computed with.
+     * @param value The value of the position.
+     */
+    public void put(long key, int depth, double value) {
+        int slot = index(key);
+        long word = ((long) (depth + 1) << 32) | (Float.floatToRawIntBits((float) value) & 0xFFFFFFFFL);
+        data[slot] = word;
+        keys[slot] = key ^ word;
+    }
+
+    /**
+     * Removes every entry from the table.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(data, 0L);
+    }
+
+    /**
+     * Maps a key to a slot index.
+     *
+     * @param key The key of the position.
+     * @return The slot index.
+     */
+    private int index(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & mask;
+    }
+}
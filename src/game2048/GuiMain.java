@@ -0,0 +1,85 @@
+package game2048;
+
+import logic.Board;
+import logic.GameManager;
+import storage.Leaderboard;
+import storage.SaveGame;
+
+import javax.swing.JOptionPane;
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Entry point of the Swing game: resumes the saved game, or asks for a board size and starts a new one.
+ * Started through the {@link Main} launcher's {@code gui} mode, the only one that loads Swing.
+ */
+public class GuiMain {
+    public static void main(String[] args) {
+        // Resume the saved game straight away if there is one
+        Board saved = loadSavedGame();
+        if (saved != null) {
+            new GameManager(saved).startGame();
+            return;
+        }
+
+        int size = chooseGridSize();
+        
+        if (size != -1) {
+            GameManager gameManager = new GameManager(size);
+            gameManager.startGame();
+        } else {
+            System.out.println("User canceled grid size selection.");
+        }
+    }
+
+    private static int chooseGridSize() {
+        String[] options = {"4x4", "5x5", "8x8", "Custom..."};
+        int[] sizes = {4, 5, 8};
+        int choice = JOptionPane.showOptionDialog(
+                null,
+                "Choose Grid Size",
+                "Grid Size",
+                JOptionPane.DEFAULT_OPTION,
+                JOptionPane.QUESTION_MESSAGE,
+                null,
+                options,
+                options[0]
+        );
+
+        // Return the selected grid size, ask for a custom one, or -1 if canceled
+        if (choice >= 0 && choice < sizes.length) {
+            return sizes[choice];
+        }
+        return choice == sizes.length ? chooseCustomGridSize() : -1;
+    }
+
+    private static int chooseCustomGridSize() {
+        String message = "Grid size (" + Board.MIN_SIZE + " to " + Board.MAX_SIZE + "):";
+        while (true) {
+            String input = JOptionPane.showInputDialog(null, message, "Grid Size", JOptionPane.QUESTION_MESSAGE);
+            if (input == null) {
+                return -1;
+            }
+            try {
+                int size = Integer.parseInt(input.trim());
+                if (size >= Board.MIN_SIZE && size <= Board.MAX_SIZE) {
+                    return size;
+                }
+            } catch (NumberFormatException e) {
+                // Ask again
+            }
+            JOptionPane.showMessageDialog(null, "Please enter a whole number from " + Board.MIN_SIZE
+                    + " to " + Board.MAX_SIZE + ".", "Grid Size", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    private static Board loadSavedGame() {
+        try {
+            Board saved = SaveGame.load(Paths.get(SaveGame.DEFAULT_FILE), Leaderboard.getDefault());
+            return saved != null && saved.canMove() ? saved : null; // A finished game starts over
+        } catch (IOException e) {
+            System.err.println("Cannot resume the saved game: " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -1,35 +1,61 @@
 package game2048;
 
-import logic.GameManager;
+import ai.TrainerMain;
+import server.ServerMain;
+import sim.ExportMain;
+import sim.ReplayMain;
+import sim.SimulatorMain;
+import sim.SolveMain;
 
-import javax.swing.JOptionPane;
+import java.util.Arrays;
 
+/**
+ * Command-line launcher of every mode of the game.
+ *
+ * <pre>
+ * java game2048.Main [gui]                                          # the Swing game (the default)
+ * java game2048.Main simulate [games] [size] [policy] [threads] [seed]
+ * java game2048.Main solve [size] [policy] [seed] [journal-file]
+ * java game2048.Main replay journal-file [moves]
+ * java game2048.Main export directory [games] [size] [policy] [threads] [seed]
+ * java game2048.Main serve [port] [idle-timeout-seconds] [max-session-memory-mb] [bind-address]
+ * java game2048.Main train weights-file [games] [threads] [large|small] [learning-rate] [seed]
+ * </pre>
+ *
+ * The launcher itself refers to no Swing or AWT class, and classes are loaded when first used, so
+ * only the {@code gui} mode pays for initializing the window toolkit; the headless modes start
+ * as fast as their own entry points.
+ */
 public class Main {
-    public static void main(String[] args) {
-        int size = chooseGridSize();
-        
-        if (size != -1) {
-            GameManager gameManager = new GameManager(size);
-            gameManager.startGame();
-        } else {
-            System.out.println("User canceled grid size selection.");
+    public static void main(String[] args) throws Exception {
+        String mode = args.length > 0 ? args[0] : "gui";
+        String[] rest = args.length > 0 ? Arrays.copyOfRange(args, 1, args.length) : args;
+        switch (mode) {
+            case "gui":
+                GuiMain.main(rest);
+                break;
+            case "simulate":
+                SimulatorMain.main(rest);
+                break;
+            case "solve":
+                SolveMain.main(rest);
+                break;
+            case "replay":
+                ReplayMain.main(rest);
+                break;
+            case "export":
+                ExportMain.main(rest);
+                break;
+            case "serve":
+                ServerMain.main(rest);
+                break;
+            case "train":
+                TrainerMain.main(rest);
+                break;
+            default:
+                System.err.println("Unknown mode: " + mode);
+                System.err.println("Usage: java game2048.Main [gui|simulate|solve|replay|export|serve|train] [arguments]");
+                System.exit(2);
         }
     }
-
-    private static int chooseGridSize() {
-        String[] options = {"4x4", "5x5"};
-        int choice = JOptionPane.showOptionDialog(
-                null,
-                "Choose Grid Size",
-                "Grid Size",
-                JOptionPane.DEFAULT_OPTION,
-                JOptionPane.QUESTION_MESSAGE,
-                null,
-                options,
-                options[0]
-        );
-
-        // Return the selected grid size (4 or 5)
-        return choice == 0 ? 4 : (choice == 1 ? 5 : -1);
-    }
 }
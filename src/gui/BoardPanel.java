@@ -0,0 +1,298 @@
+package gui;
+
+import metrics.Instrumentation;
+import metrics.Operation;
+import metrics.RenderEvent;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * A single component that paints the whole 2048 grid.
+ *
+ * <p>Every tile value is rendered once into a cached image (background, rounded corners and
+ * number) for the current tile size, so painting a frame only blits images and allocates
+ * nothing. {@link #setExponents(byte[])} compares the new grid with the one on screen and
+ * repaints only the cells whose value changed. Large grids get smaller tiles and gaps, and
+ * tiles too small to hold a number are drawn as plain colored squares.</p>
+ */
+public class BoardPanel extends JComponent {
+    private static final long serialVersionUID = 1L;
+
+    /** The preferred width and height of one tile, in pixels, on small grids. */
+    private static final int PREFERRED_TILE_SIZE = 100;
+
+    /** The preferred width and height of the whole grid, in pixels, which shrinks the tiles of large grids. */
+    private static final int PREFERRED_GRID_SIZE = 800;
+
+    /** The smallest preferred tile size, in pixels. */
+    private static final int MIN_TILE_SIZE = 3;
+
+    /** The smallest tile size, in pixels, that still shows the number. */
+    private static final int MIN_LABELED_TILE_SIZE = 12;
+
+    /** The gap between two tiles and around the grid, in pixels, on small grids. */
+    private static final int GAP = 4;
+
+    /** The largest exponent shown as a decimal number; larger tiles are labeled {@code 2^e}. */
+    private static final int MAX_DECIMAL_EXPONENT = 16;
+
+    /** The color of the gaps between the tiles. */
+    private static final Color BACKGROUND_COLOR = new Color(187, 173, 160);
+
+    /** Tile background colors indexed by exponent; index 0 is the empty tile. */
+    private static final Color[] TILE_COLORS = {
+            new Color(205, 193, 180), // Empty tile
+            new Color(238, 228, 218), // 2
+            new Color(237, 224, 200), // 4
+            new Color(242, 177, 121), // 8
+            new Color(245, 149, 99),  // 16
+            new Color(246, 124, 95),  // 32
+            new Color(246, 94, 59),   // 64
+            new Color(237, 207, 114), // 128
+            new Color(237, 204, 97),  // 256
+            new Color(237, 200, 80),  // 512
+            new Color(237, 197, 63),  // 1024
+            new Color(237, 194, 46)   // 2048
+    };
+
+    /** The background color of tiles above 2048. */
+    private static final Color SUPER_TILE_COLOR = new Color(60, 58, 50);
+
+    /** The largest exponent that can be cached; exponents are unsigned bytes. */
+    private static final int MAX_EXPONENT = 255;
+
+    /** The number of rows and columns of the grid. */
+    private final int size;
+
+    /** The gap between two tiles and around the grid, in pixels. */
+    private final int gap;
+
+    /** The preferred width and height of one tile, in pixels. */
+    private final int preferredTile;
+
+    /** The exponents currently on screen, row by row. */
+    private final int[] exponents;
+
+    /** Pre-rendered tile images indexed by exponent, valid for {@link #glyphSize}. */
+    private final BufferedImage[] glyphs = new BufferedImage[MAX_EXPONENT + 1];
+
+    /** The tile size the cached images were rendered for. */
+    private int glyphSize;
+
+    /** Reused clip rectangle, so that painting does not allocate. */
+    private final Rectangle clip = new Rectangle();
+
+    /**
+     * Constructs a new board panel with all cells empty.
+     *
+     * @param size The number of rows and columns of the grid.
+     */
+    public BoardPanel(int size) {
+        this.size = size;
+        exponents = new int[size * size];
+        preferredTile = Math.max(MIN_TILE_SIZE, Math.min(PREFERRED_TILE_SIZE, PREFERRED_GRID_SIZE / size));
+        gap = preferredTile >= PREFERRED_TILE_SIZE / 2 ? GAP : 1;
+        int preferred = size * preferredTile + (size + 1) * gap;
+        setPreferredSize(new Dimension(preferred, preferred));
+        setOpaque(true);
+    }
+
+    /**
+     * Updates the displayed tiles, repainting only the cells whose value changed.
+     *
+     * @param grid The tile values, in the layout of {@link logic.Board#getGrid()}.
+     * @return The number of cells whose value changed.
+     */
+    public int setValues(int[][] grid) {
+        int tile = tileSize();
+        int changed = 0;
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                int value = grid[row][col];
+                int exponent = value == 0 ? 0 : Integer.numberOfTrailingZeros(value);
+                int index = row * size + col;
+                if (exponents[index] != exponent) {
+                    exponents[index] = exponent;
+                    repaint(cellOffset(col, tile), cellOffset(row, tile), tile, tile);
+                    changed++;
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Updates the displayed tiles from their exponents, repainting only the cells whose value changed.
+     *
+     * @param cells The tile exponents, row-major, as filled by {@link logic.Board#getExponents(byte[])}.
+     * @return The number of cells whose value changed.
+     */
+    public int setExponents(byte[] cells) {
+        int tile = tileSize();
+        int changed = 0;
+        for (int index = 0; index < exponents.length; index++) {
+            int exponent = cells[index] & 0xFF;
+            if (exponents[index] != exponent) {
+                exponents[index] = exponent;
+                repaint(cellOffset(index % size, tile), cellOffset(index / size, tile), tile, tile);
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Gets the exponent displayed in a cell.
+     *
+     * @param row The row of the cell.
+     * @param col The column of the cell.
+     * @return The exponent {@code e} of the tile {@code 2^e}, or 0 if the cell is empty.
+     */
+    public int getExponent(int row, int col) {
+        return exponents[row * size + col];
+    }
+
+    /**
+     * Gets the value displayed in a cell.
+     *
+     * @param row The row of the cell.
+     * @param col The column of the cell.
+     * @return The tile value, or 0 if the cell is empty; tiles of 2^31 and above are reported as {@link Integer#MAX_VALUE}.
+     */
+    public int getValue(int row, int col) {
+        int exponent = exponents[row * size + col];
+        return exponent == 0 ? 0 : exponent >= 31 ? Integer.MAX_VALUE : 1 << exponent;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        long start = Instrumentation.start();
+        RenderEvent event = new RenderEvent();
+        event.begin();
+        int painted = paintTiles(g);
+        event.end();
+        if (event.shouldCommit()) {
+            event.phase = "paint";
+            event.cells = painted;
+            event.commit();
+        }
+        Instrumentation.record(Operation.PAINT, start);
+    }
+
+    /**
+     * Paints the background and the tiles that intersect the clip.
+     *
+     * @param g The graphics to paint with.
+     * @return The number of tiles painted.
+     */
+    private int paintTiles(Graphics g) {
+        int tile = tileSize();
+        if (tile != glyphSize) {
+            // The component was resized; re-render the tiles lazily at the new size
+            Arrays.fill(glyphs, null);
+            glyphSize = tile;
+        }
+        g.getClipBounds(clip);
+        if (clip.isEmpty()) {
+            clip.setBounds(0, 0, getWidth(), getHeight());
+        }
+        g.setColor(BACKGROUND_COLOR);
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+        if (tile <= 0) {
+            return 0;
+        }
+        int painted = 0;
+        for (int row = 0; row < size; row++) {
+            int y = cellOffset(row, tile);
+            if (y >= clip.y + clip.height || y + tile <= clip.y) {
+                continue;
+            }
+            for (int col = 0; col < size; col++) {
+                int x = cellOffset(col, tile);
+                if (x >= clip.x + clip.width || x + tile <= clip.x) {
+                    continue;
+                }
+                g.drawImage(glyph(exponents[row * size + col], tile), x, y, null);
+                painted++;
+            }
+        }
+        return painted;
+    }
+
+    /**
+     * Computes the size of a tile for the current component size.
+     *
+     * @return The width and height of one tile, in pixels.
+     */
+    private int tileSize() {
+        int available = Math.min(getWidth(), getHeight()) - (size + 1) * gap;
+        if (available <= 0) {
+            available = size * preferredTile;
+        }
+        return available / size;
+    }
+
+    /**
+     * Computes the pixel offset of a row or column.
+     *
+     * @param index The row or column index.
+     * @param tile  The tile size.
+     * @return The x (for a column) or y (for a row) coordinate of the cell.
+     */
+    private int cellOffset(int index, int tile) {
+        return gap + index * (tile + gap);
+    }
+
+    /**
+     * Gets the cached image of a tile, rendering it on first use.
+     *
+     * @param exponent The exponent of the tile, or 0 for an empty cell.
+     * @param tile     The tile size.
+     * @return The tile image.
+     */
+    private BufferedImage glyph(int exponent, int tile) {
+        BufferedImage glyph = glyphs[exponent];
+        if (glyph == null) {
+            glyph = renderGlyph(exponent, tile);
+            glyphs[exponent] = glyph;
+        }
+        return glyph;
+    }
+
+    /**
+     * Renders the image of a tile.
+     *
+     * @param exponent The exponent of the tile, or 0 for an empty cell.
+     * @param tile     The tile size.
+     * @return The tile image.
+     */
+    private static BufferedImage renderGlyph(int exponent, int tile) {
+        BufferedImage image = new BufferedImage(tile, tile, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setColor(exponent < TILE_COLORS.length ? TILE_COLORS[exponent] : SUPER_TILE_COLOR);
+            int arc = Math.max(2, tile / 12);
+            g.fillRoundRect(0, 0, tile, tile, arc, arc);
+            if (exponent > 0 && tile >= MIN_LABELED_TILE_SIZE) {
+                String text = exponent <= MAX_DECIMAL_EXPONENT ? Long.toString(1L << exponent) : "2^" + exponent;
+                // Shrink the font as the number gets longer so that it always fits
+                int fontSize = Math.max(8, tile * (text.length() <= 2 ? 45 : text.length() == 3 ? 36 : 28) / 100);
+                g.setFont(new Font("Arial", Font.BOLD, fontSize));
+                // Set white text color for value 16 and above for better readability
+                g.setColor(exponent >= 4 ? Color.WHITE : Color.BLACK);
+                FontMetrics metrics = g.getFontMetrics();
+                int x = (tile - metrics.stringWidth(text)) / 2;
+                int y = (tile - metrics.getHeight()) / 2 + metrics.getAscent();
+                g.drawString(text, x, y);
+            }
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+}
@@ -3,8 +3,16 @@ package gui;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 import logic.Board;
+import logic.BoardSnapshot;
+import logic.MoveQueue;
+import metrics.Instrumentation;
+import metrics.Operation;
+import metrics.RenderEvent;
 
 /**
  * Represents the graphical user interface (GUI) for the 2048 game.
@@ -14,14 +22,19 @@ public class GameFrame extends JFrame {
     private JPanel mainPanel;
     private JPanel scorePanel;
     private JPanel resetPanel;
-    private JPanel gamePanel;
     private JButton resetButton;
-    private TileButton[][] tileButtons;
+    private BoardPanel boardPanel;
     private JLabel scoreLabel;
     private JLabel highScoreLabel;
     private JLabel gameOverLabel;
     private JLabel goalLabel;
     private Board board;
+    /** Applies the key presses to the board off the event dispatch thread. */
+    private final MoveQueue moveQueue;
+    /** Scratch copy of the tile exponents, refilled on every update. */
+    private final byte[] exponents;
+    /** Whether closing the window submits the game in progress to the leaderboard. */
+    private boolean submitOnClose = true;
 
     /**
      * Constructs a new GameFrame with the specified size and associated game board.
@@ -33,6 +46,7 @@ public class GameFrame extends JFrame {
         super("2048 - Damir Bajrami - Razvoj softvera");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         this.board = board; // Set the Board reference
+        exponents = new byte[size * size];
         mainPanel = new JPanel(new BorderLayout());
 
         // Score and High Score Panel
@@ -69,31 +83,42 @@ public class GameFrame extends JFrame {
 
         mainPanel.add(resetPanel, BorderLayout.LINE_START);
 
-        // Game Panel
-        gamePanel = new JPanel(new GridLayout(size, size));
-        tileButtons = new TileButton[size][size];
+        // Game Panel, painted as a single component
+        boardPanel = new BoardPanel(size);
+        mainPanel.add(boardPanel, BorderLayout.CENTER);
+        // Add key bindings
+        createKeyBindings();
 
-        // Create and add TileButtons to the gamePanel
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
-                tileButtons[i][j] = new TileButton(0);
-                gamePanel.add(tileButtons[i][j]);
+        // Apply moves on the logic thread and repaint from the published snapshots, at most once per frame
+        moveQueue = new MoveQueue(board, MoveQueue.DEFAULT_CAPACITY);
+        board.addBoardListener(new RenderScheduler(new Runnable() {
+            @Override
+            public void run() {
+                updateUI();
             }
-        }
+        }));
 
-        mainPanel.add(gamePanel, BorderLayout.CENTER);
-        // Add key bindings
-        createKeyBindings();
+        // Submit the game in progress to the leaderboard when the window is closed, unless it is saved to resume later
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                moveQueue.close(); // Let the moves already pressed finish first
+                if (submitOnClose) {
+                    board.saveHighScore();
+                }
+            }
+        });
 
         add(mainPanel);
         pack();
         setLocationRelativeTo(null);
         setVisible(true);
-        updateHighScore(board.getHighScore()); // Load the highscore at startup
+        updateHighScore(board.getSnapshot().getHighScore()); // Load the highscore at startup
     }
 
     /**
-     * Creates key bindings for arrow keys to handle game movements.
+     * Creates key bindings for arrow keys to handle game movements, Ctrl+Z / Ctrl+Y for undo and redo,
+     * and Ctrl+Shift+D to dump an instrumentation snapshot to the working directory.
      */
     private void createKeyBindings() {
         InputMap inputMap = this.getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW);
@@ -109,14 +134,16 @@ public class GameFrame extends JFrame {
         inputMap.put(downKey, "moveDown");
         inputMap.put(leftKey, "moveLeft");
         inputMap.put(rightKey, "moveRight");
+        inputMap.put(KeyStroke.getKeyStroke("control Z"), "undo");
+        inputMap.put(KeyStroke.getKeyStroke("control Y"), "redo");
+        inputMap.put(KeyStroke.getKeyStroke("control shift D"), "dumpMetrics");
 
         actionMap.put("moveUp", new AbstractAction() {
             private static final long serialVersionUID = 1L;
 
             @Override
             public void actionPerformed(ActionEvent e) {
-                board.moveUp(); // Delegate to the Board's moveUp method
-                updateUI(); // Update the UI after the move
+                moveQueue.submit(MoveQueue.Command.UP); // Applied on the logic thread; the render scheduler updates the UI
             }
         });
 
@@ -125,8 +152,7 @@ public class GameFrame extends JFrame {
 
             @Override
             public void actionPerformed(ActionEvent e) {
-                board.moveDown(); // Delegate to the Board's moveDown method
-                updateUI(); // Update the UI after the move
+                moveQueue.submit(MoveQueue.Command.DOWN); // Applied on the logic thread; the render scheduler updates the UI
             }
         });
 
@@ -135,8 +161,7 @@ public class GameFrame extends JFrame {
 
             @Override
             public void actionPerformed(ActionEvent e) {
-                board.moveLeft(); // Delegate to the Board's moveLeft method
-                updateUI(); // Update the UI after the move
+                moveQueue.submit(MoveQueue.Command.LEFT); // Applied on the logic thread; the render scheduler updates the UI
             }
         });
 
@@ -145,28 +170,87 @@ public class GameFrame extends JFrame {
 
             @Override
             public void actionPerformed(ActionEvent e) {
-                board.moveRight(); // Delegate to the Board's moveRight method
-                updateUI(); // Update the UI after the move
+                moveQueue.submit(MoveQueue.Command.RIGHT); // Applied on the logic thread; the render scheduler updates the UI
+            }
+        });
+
+        actionMap.put("undo", new AbstractAction() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                moveQueue.submit(MoveQueue.Command.UNDO); // Restore the state before the last move
+            }
+        });
+
+        actionMap.put("redo", new AbstractAction() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                moveQueue.submit(MoveQueue.Command.REDO); // Re-apply the last undone move
+            }
+        });
+
+        actionMap.put("dumpMetrics", new AbstractAction() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                dumpMetrics();
             }
         });
     }
 
+    /**
+     * Writes an instrumentation snapshot to the working directory on a background thread,
+     * so that a large Flight Recorder dump does not freeze the window, then names the files in a dialog.
+     */
+    private void dumpMetrics() {
+        Thread dumper = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                String message;
+                int type;
+                try {
+                    StringBuilder files = new StringBuilder("Wrote");
+                    for (Path file : Instrumentation.dumpSnapshot(Paths.get(""))) {
+                        files.append('\n').append(file.toAbsolutePath());
+                    }
+                    message = files.toString();
+                    type = JOptionPane.INFORMATION_MESSAGE;
+                } catch (IOException e) {
+                    message = "Cannot write the metrics: " + e.getMessage();
+                    type = JOptionPane.ERROR_MESSAGE;
+                }
+                String text = message;
+                int messageType = type;
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        JOptionPane.showMessageDialog(GameFrame.this, text, "Metrics", messageType);
+                    }
+                });
+            }
+        }, "metrics-dump");
+        dumper.setDaemon(true);
+        dumper.start();
+    }
+
     /**
      * Resets the game when the reset button is pressed.
      */
     public void resetGame() {
-        board.reset();
-        updateBoard(board.getGrid());
-        updateScore(0);
-        updateGameOverLabel();
-        updateGoalLabel();
+        moveQueue.submit(MoveQueue.Command.RESET); // The render scheduler updates the UI
     }
 
     /**
      * Updates the game over label based on the game state.
+     *
+     * @param snapshot The state of the game to show.
      */
-    public void updateGameOverLabel() {
-        if (!board.canMove()) {
+    public void updateGameOverLabel(BoardSnapshot snapshot) {
+        if (!snapshot.canMove()) {
             gameOverLabel.setText("Game Over!");
         } else {
             gameOverLabel.setText("");
@@ -175,21 +259,33 @@ public class GameFrame extends JFrame {
 
     /**
      * Updates the goal label based on whether the win condition is met.
+     *
+     * @param snapshot The state of the game to show.
      */
-    public void updateGoalLabel() {
-        if (board.isWinConditionMet()) {
+    public void updateGoalLabel(BoardSnapshot snapshot) {
+        if (snapshot.isWinConditionMet()) {
             goalLabel.setText("Goal reached!");
         } else {
             goalLabel.setText("");
         }
     }
 
+    /**
+     * Sets whether closing the window submits the game in progress to the leaderboard. A game that is
+     * saved to be resumed should not be, or it would be submitted once per session.
+     *
+     * @param submitOnClose True to submit the game when the window is closed (the default).
+     */
+    public void setSubmitOnClose(boolean submitOnClose) {
+        this.submitOnClose = submitOnClose;
+    }
+
     /**
      * Updates the score label with the current score.
      *
      * @param score The current score.
      */
-    public void updateScore(int score) {
+    public void updateScore(long score) {
         scoreLabel.setText("Score: " + score);
     }
 
@@ -198,33 +294,40 @@ public class GameFrame extends JFrame {
      *
      * @param highScore The current high score.
      */
-    public void updateHighScore(int highScore) {
+    public void updateHighScore(long highScore) {
         highScoreLabel.setText("Highscore: " + highScore);
     }
 
     /**
-     * Updates the entire graphical user interface (UI) based on the current state of the game.
+     * Updates the entire graphical user interface (UI) based on the latest snapshot of the game.
      */
     public void updateUI() {
-        updateGameOverLabel();
-        updateGoalLabel();
-        updateScore(board.getScore());
-        updateHighScore(board.getHighScore());
-        updateBoard(board.getGrid());
+        long start = Instrumentation.start();
+        RenderEvent event = new RenderEvent();
+        event.begin();
+        BoardSnapshot snapshot = board.getSnapshot();
+        updateGameOverLabel(snapshot);
+        updateGoalLabel(snapshot);
+        updateScore(snapshot.getScore());
+        updateHighScore(snapshot.getHighScore());
+        int changed = boardPanel.setExponents(snapshot.getExponents(exponents));
+        event.end();
+        if (event.shouldCommit()) {
+            event.phase = "update";
+            event.cells = changed;
+            event.commit();
+        }
+        Instrumentation.record(Operation.UI_UPDATE, start);
     }
 
     /**
      * Updates the game board in the GUI with the provided board state.
+     * Only the tiles whose value changed are repainted.
      *
      * @param board The current state of the game board.
      */
     public void updateBoard(int[][] board) {
-        for (int i = 0; i < tileButtons.length; i++) {
-            for (int j = 0; j < tileButtons[i].length; j++) {
-                tileButtons[i][j].setValue(board[i][j]);
-                tileButtons[i][j].repaint();
-            }
-        }
+        boardPanel.setValues(board);
     }
 }
 
@@ -0,0 +1,94 @@
+package gui;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import logic.Board;
+import logic.BoardListener;
+
+/**
+ * Coalesces board change events into at most one render per frame on the event dispatch thread.
+ * Any number of changes arriving before the pending render runs are folded into it, and renders
+ * closer together than {@link #FRAME_MILLIS} are delayed with a one-shot timer. Nothing runs
+ * while the board is idle.
+ */
+public class RenderScheduler implements BoardListener {
+    /**
+     * The minimum time between two renders, in milliseconds (about 60 frames per second).
+     */
+    public static final int FRAME_MILLIS = 16;
+
+    /** The render action, run on the event dispatch thread. */
+    private final Runnable renderer;
+
+    /** Set while a render has been requested but has not started yet. */
+    private final AtomicBoolean pending = new AtomicBoolean();
+
+    /** One-shot timer that delays a render until the current frame is over. */
+    private final Timer frameTimer;
+
+    /** The {@link System#nanoTime()} of the last render; only accessed on the event dispatch thread. */
+    private long lastRenderNanos;
+
+    /**
+     * Constructs a new render scheduler.
+     *
+     * @param renderer The render action, run on the event dispatch thread.
+     */
+    public RenderScheduler(Runnable renderer) {
+        this.renderer = renderer;
+        frameTimer = new Timer(FRAME_MILLIS, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                render();
+            }
+        });
+        frameTimer.setRepeats(false);
+        lastRenderNanos = System.nanoTime() - FRAME_MILLIS * 1_000_000L;
+    }
+
+    @Override
+    public void boardChanged(Board board) {
+        requestRender();
+    }
+
+    /**
+     * Requests a render. Safe to call from any thread; requests made while a render is pending are coalesced.
+     */
+    public void requestRender() {
+        if (pending.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    schedule();
+                }
+            });
+        }
+    }
+
+    /**
+     * Renders immediately if the last frame is over, otherwise arms the frame timer.
+     */
+    private void schedule() {
+        long sinceLastMillis = (System.nanoTime() - lastRenderNanos) / 1_000_000L;
+        if (sinceLastMillis >= FRAME_MILLIS) {
+            render();
+        } else if (!frameTimer.isRunning()) {
+            frameTimer.setInitialDelay((int) (FRAME_MILLIS - sinceLastMillis));
+            frameTimer.restart();
+        }
+    }
+
+    /**
+     * Runs the render action.
+     */
+    private void render() {
+        // Clear the flag first, so that a change made during rendering schedules another frame
+        pending.set(false);
+        lastRenderNanos = System.nanoTime();
+        renderer.run();
+    }
+}
@@ -0,0 +1,755 @@
+package logic;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * A 4x4 game board packed into a single {@code long}.
+ * Every cell is stored as a 4-bit exponent (0 for an empty cell, {@code n} for the tile 2^n),
+ * so the cell at ({@code row}, {@code col}) occupies bits {@code 4 * (4 * row + col)} to
+ * {@code 4 * (4 * row + col) + 3}. Moves are resolved a whole row at a time through
+ * precomputed 65536-entry lookup tables; vertical moves transpose the board first.
+ *
+ * <p>The static methods operate on raw packed states and never allocate, which makes them
+ * suitable for search and simulation code. The instance methods mirror the API of
+ * {@link Board} for callers that want a mutable game.</p>
+ *
+ * <p>Because each cell only has four bits, tiles are capped at 2^15 (32768): two 32768 tiles
+ * never merge.</p>
+ */
+public class BitBoard implements CompactBoard {
+    /**
+     * The size of the game grid. Bitboards are always 4x4.
+     */
+    public static final int SIZE = 4;
+
+    /**
+     * The largest exponent a single cell can hold.
+     */
+    public static final int MAX_EXPONENT = 15;
+
+    /**
+     * The exponent of the winning tile (2048).
+     */
+    public static final int WIN_EXPONENT = 11;
+
+    /**
+     * The probability that a newly spawned tile is a 4 rather than a 2, matching {@link Board}.
+     * Every engine draws a spawn the same way: first {@code nextInt(empty)} for the index of the
+     * empty cell in row-major order, then {@code nextInt(2)} for a 2 or a 4, so the same seed
+     * plays the same game on a {@link Board} and on a {@link CompactBoard}.
+     */
+    public static final double FOUR_PROBABILITY = 0.5;
+
+    /**
+     * Mask selecting the lowest bit of every cell.
+     */
+    private static final long NIBBLE_LOW_BITS = 0x1111111111111111L;
+
+    /**
+     * Mask selecting the cells that have a right-hand neighbour in the same row.
+     */
+    private static final long HORIZONTAL_PAIRS = 0x0FFF0FFF0FFF0FFFL;
+
+    /**
+     * Mask selecting the cells that have a neighbour in the row below.
+     */
+    private static final long VERTICAL_PAIRS = 0x0000FFFFFFFFFFFFL;
+
+    /**
+     * Result of moving each possible row to the left.
+     */
+    private static final char[] ROW_LEFT = new char[65536];
+
+    /**
+     * Result of moving each possible row to the right.
+     */
+    private static final char[] ROW_RIGHT = new char[65536];
+
+    /**
+     * Result of moving each possible transposed column up, already spread back into column 0.
+     */
+    private static final long[] COL_UP = new long[65536];
+
+    /**
+     * Result of moving each possible transposed column down, already spread back into column 0.
+     */
+    private static final long[] COL_DOWN = new long[65536];
+
+    /**
+     * Score gained by moving each possible row. Merges only happen between equal neighbours,
+     * so the gain is the same in both directions along the line.
+     */
+    private static final int[] ROW_SCORE = new int[65536];
+
+    static {
+        int[] line = new int[SIZE];
+        for (int row = 0; row < 65536; row++) {
+            for (int i = 0; i < SIZE; i++) {
+                line[i] = (row >>> (4 * i)) & 0xF;
+            }
+            ROW_SCORE[row] = slideLine(line, SIZE);
+            int moved = 0;
+            for (int i = 0; i < SIZE; i++) {
+                moved |= line[i] << (4 * i);
+            }
+            ROW_LEFT[row] = (char) moved;
+            ROW_RIGHT[reverseRow(row)] = (char) reverseRow(moved);
+        }
+        for (int row = 0; row < 65536; row++) {
+            COL_UP[row] = spreadColumn(ROW_LEFT[row]);
+            COL_DOWN[row] = spreadColumn(ROW_RIGHT[row]);
+        }
+    }
+
+    /**
+     * The packed cells of this board.
+     */
+    private long state;
+
+    /**
+     * Random number generator for tile generation.
+     */
+    private final RandomGenerator random;
+
+    /**
+     * The current score of the game.
+     */
+    private int score;
+
+    /**
+     * The cell of the most recently placed tile, or -1.
+     */
+    private int lastSpawnCell = -1;
+
+    /**
+     * The exponent of the most recently placed tile, or 0.
+     */
+    private int lastSpawnExponent;
+
+    /**
+     * Constructs a new bitboard with its own random number generator and two initial tiles.
+     */
+    public BitBoard() {
+        this(new Xoshiro256());
+    }
+
+    /**
+     * Constructs a new bitboard that spawns tiles with the given random number generator.
+     * Generates two initial tiles.
+     *
+     * @param random The random number generator used for tile generation.
+     */
+    public BitBoard(RandomGenerator random) {
+        this.random = random;
+        reset();
+    }
+
+    /**
+     * Constructs a copy of another bitboard without consuming random numbers.
+     *
+     * @param source The board to copy.
+     */
+    private BitBoard(BitBoard source) {
+        random = source.random;
+        state = source.state;
+        score = source.score;
+    }
+
+    /**
+     * Gets the size of the game board.
+     *
+     * @return Always 4.
+     */
+    @Override
+    public int getSize() {
+        return SIZE;
+    }
+
+    /**
+     * Gets the packed cells of the board.
+     *
+     * @return The packed board state.
+     */
+    public long getState() {
+        return state;
+    }
+
+    /**
+     * Replaces the packed cells of the board, keeping the score.
+     *
+     * @param state The new packed board state.
+     */
+    public void setState(long state) {
+        this.state = state;
+    }
+
+    /**
+     * Gets the current score of the game.
+     *
+     * @return The current score.
+     */
+    @Override
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Sets the current score of the game.
+     *
+     * @param score The new score.
+     */
+    @Override
+    public void setScore(int score) {
+        this.score = score;
+    }
+
+    /**
+     * Gets the value of a single tile.
+     *
+     * @param row The row of the tile.
+     * @param col The column of the tile.
+     * @return The tile value, or 0 if the cell is empty.
+     */
+    @Override
+    public int getTile(int row, int col) {
+        return valueOf(exponentAt(state, row, col));
+    }
+
+    /**
+     * Gets the exponent of a single cell.
+     *
+     * @param row The row of the cell.
+     * @param col The column of the cell.
+     * @return The exponent of the cell, or 0 if it is empty.
+     */
+    @Override
+    public int getExponent(int row, int col) {
+        return exponentAt(state, row, col);
+    }
+
+    /**
+     * Sets the exponent of a single cell.
+     *
+     * @param row      The row of the cell.
+     * @param col      The column of the cell.
+     * @param exponent The new exponent, or 0 to clear the cell.
+     */
+    @Override
+    public void setExponent(int row, int col, int exponent) {
+        int shift = 4 * (SIZE * row + col);
+        state = (state & ~(0xFL << shift)) | ((long) exponent << shift);
+    }
+
+    /**
+     * Unpacks the board into a new 2D array of tile values, in the same layout as {@link Board#getGrid()}.
+     *
+     * @return A new array holding the tile values.
+     */
+    @Override
+    public int[][] getGrid() {
+        return toGrid(state);
+    }
+
+    /**
+     * Moves the tiles to the left, merging and updating the score.
+     * Generates a new tile if any movement occurs.
+     *
+     * @return True if the board changed.
+     */
+    @Override
+    public boolean moveLeft() {
+        return move(Direction.LEFT);
+    }
+
+    /**
+     * Moves the tiles to the right, merging and updating the score.
+     * Generates a new tile if any movement occurs.
+     *
+     * @return True if the board changed.
+     */
+    @Override
+    public boolean moveRight() {
+        return move(Direction.RIGHT);
+    }
+
+    /**
+     * Moves the tiles upwards, merging and updating the score.
+     * Generates a new tile if any movement occurs.
+     *
+     * @return True if the board changed.
+     */
+    @Override
+    public boolean moveUp() {
+        return move(Direction.UP);
+    }
+
+    /**
+     * Moves the tiles downwards, merging and updating the score.
+     * Generates a new tile if any movement occurs.
+     *
+     * @return True if the board changed.
+     */
+    @Override
+    public boolean moveDown() {
+        return move(Direction.DOWN);
+    }
+
+    /**
+     * Moves the tiles in the given direction, merging and updating the score.
+     * Generates a new tile if any movement occurs.
+     *
+     * @param direction The direction to move in.
+     * @return True if the board changed.
+     */
+    @Override
+    public boolean move(Direction direction) {
+        if (!slide(direction)) {
+            return false;
+        }
+        generateNewTile();
+        return true;
+    }
+
+    /**
+     * Moves the tiles in the given direction, merging and updating the score,
+     * but does not generate a new tile.
+     *
+     * @param direction The direction to move in.
+     * @return True if the board changed.
+     */
+    @Override
+    public boolean slide(Direction direction) {
+        long moved = move(state, direction);
+        if (moved == state) {
+            return false;
+        }
+        score += scoreGain(state, direction);
+        state = moved;
+        return true;
+    }
+
+    /**
+     * Resets the game board by clearing the grid, resetting the score, and generating two initial tiles.
+     */
+    @Override
+    public void reset() {
+        state = 0L;
+        score = 0;
+        generateNewTile();
+        generateNewTile();
+    }
+
+    /**
+     * Checks if the game board is full with no empty spaces.
+     *
+     * @return True if the board is full, false otherwise.
+     */
+    @Override
+    public boolean isBoardFull() {
+        return emptyMask(state) == 0L;
+    }
+
+    /**
+     * Checks if the win condition is met, i.e. a tile of 2048 or more is on the board.
+     *
+     * @return True if the win condition is met, false otherwise.
+     */
+    @Override
+    public boolean isWinConditionMet() {
+        return maxExponent(state) >= WIN_EXPONENT;
+    }
+
+    /**
+     * Checks if the game can still be moved.
+     *
+     * @return True if there is an empty cell or two equal neighbouring tiles.
+     */
+    @Override
+    public boolean canMove() {
+        return canMove(state);
+    }
+
+    /**
+     * Generates a new tile (2 or 4) in an empty spot on the game board.
+     */
+    @Override
+    public void generateNewTile() {
+        int empty = countEmpty(state);
+        if (empty > 0) {
+            int k = random.nextInt(empty); // The cell first, then the value, like Board
+            placeTile(k, random.nextInt(2) + 1);
+        }
+    }
+
+    /**
+     * Counts the empty cells of the board.
+     *
+     * @return The number of empty cells.
+     */
+    @Override
+    public int countEmpty() {
+        return countEmpty(state);
+    }
+
+    /**
+     * Places a tile in the k-th empty cell, counting row by row from the top-left corner.
+     *
+     * @param k        The index of the empty cell, between 0 and {@code countEmpty() - 1}.
+     * @param exponent The exponent of the new tile (1 for a 2, 2 for a 4).
+     */
+    @Override
+    public void placeTile(int k, int exponent) {
+        long before = state;
+        state = spawn(state, k, exponent);
+        lastSpawnCell = Long.numberOfTrailingZeros(state ^ before) / 4;
+        lastSpawnExponent = exponent;
+    }
+
+    /**
+     * Gets the cell of the most recently spawned or placed tile.
+     *
+     * @return The cell index ({@code row * 4 + col}), or -1 if no tile has been placed yet.
+     */
+    @Override
+    public int getLastSpawnCell() {
+        return lastSpawnCell;
+    }
+
+    /**
+     * Gets the exponent of the most recently spawned or placed tile.
+     *
+     * @return The exponent (1 for a 2, 2 for a 4), or 0 if no tile has been placed yet.
+     */
+    @Override
+    public int getLastSpawnExponent() {
+        return lastSpawnExponent;
+    }
+
+    /**
+     * Finds the largest exponent on the board.
+     *
+     * @return The largest exponent, or 0 for an empty board.
+     */
+    @Override
+    public int maxExponent() {
+        return maxExponent(state);
+    }
+
+    /**
+     * Copies the tiles and score of another 4x4 board into this one.
+     *
+     * @param other The board to copy from.
+     */
+    @Override
+    public void copyFrom(CompactBoard other) {
+        BitBoard source = (BitBoard) other;
+        state = source.state;
+        score = source.score;
+    }
+
+    /**
+     * Creates an independent copy of this board that shares its random number generator.
+     *
+     * @return The copy.
+     */
+    @Override
+    public BitBoard copy() {
+        return new BitBoard(this);
+    }
+
+    /**
+     * Gets the key of the current tiles, which for a bitboard is the packed board itself.
+     *
+     * @return The packed board state.
+     */
+    @Override
+    public long hashKey() {
+        return state;
+    }
+
+    /**
+     * Moves a packed board in the given direction without spawning a tile.
+     *
+     * @param board     The packed board.
+     * @param direction The direction to move in.
+     * @return The packed board after the move; equal to {@code board} if nothing moved.
+     */
+    public static long move(long board, Direction direction) {
+        switch (direction) {
+            case UP:
+                return moveUp(board);
+            case DOWN:
+                return moveDown(board);
+            case LEFT:
+                return moveLeft(board);
+            default:
+                return moveRight(board);
+        }
+    }
+
+    /**
+     * Moves a packed board to the left without spawning a tile.
+     *
+     * @param board The packed board.
+     * @return The packed board after the move.
+     */
+    public static long moveLeft(long board) {
+        return (long) ROW_LEFT[(int) (board & 0xFFFF)]
+                | (long) ROW_LEFT[(int) ((board >>> 16) & 0xFFFF)] << 16
+                | (long) ROW_LEFT[(int) ((board >>> 32) & 0xFFFF)] << 32
+                | (long) ROW_LEFT[(int) (board >>> 48)] << 48;
+    }
+
+    /**
+     * Moves a packed board to the right without spawning a tile.
+     *
+     * @param board The packed board.
+     * @return The packed board after the move.
+     */
+    public static long moveRight(long board) {
+        return (long) ROW_RIGHT[(int) (board & 0xFFFF)]
+                | (long) ROW_RIGHT[(int) ((board >>> 16) & 0xFFFF)] << 16
+                | (long) ROW_RIGHT[(int) ((board >>> 32) & 0xFFFF)] << 32
+                | (long) ROW_RIGHT[(int) (board >>> 48)] << 48;
+    }
+
+    /**
+     * Moves a packed board upwards without spawning a tile.
+     *
+     * @param board The packed board.
+     * @return The packed board after the move.
+     */
+    public static long moveUp(long board) {
+        long t = transpose(board);
+        return COL_UP[(int) (t & 0xFFFF)]
+                | COL_UP[(int) ((t >>> 16) & 0xFFFF)] << 4
+                | COL_UP[(int) ((t >>> 32) & 0xFFFF)] << 8
+                | COL_UP[(int) (t >>> 48)] << 12;
+    }
+
+    /**
+     * Moves a packed board downwards without spawning a tile.
+     *
+     * @param board The packed board.
+     * @return The packed board after the move.
+     */
+    public static long moveDown(long board) {
+        long t = transpose(board);
+        return COL_DOWN[(int) (t & 0xFFFF)]
+                | COL_DOWN[(int) ((t >>> 16) & 0xFFFF)] << 4
+                | COL_DOWN[(int) ((t >>> 32) & 0xFFFF)] << 8
+                | COL_DOWN[(int) (t >>> 48)] << 12;
+    }
+
+    /**
+     * Computes the score gained by moving a packed board in the given direction.
+     *
+     * @param board     The packed board before the move.
+     * @param direction The direction to move in.
+     * @return The sum of the values of all tiles created by merges.
+     */
+    public static int scoreGain(long board, Direction direction) {
+        long lines = (direction == Direction.LEFT || direction == Direction.RIGHT) ? board : transpose(board);
+        return ROW_SCORE[(int) (lines & 0xFFFF)]
+                + ROW_SCORE[(int) ((lines >>> 16) & 0xFFFF)]
+                + ROW_SCORE[(int) ((lines >>> 32) & 0xFFFF)]
+                + ROW_SCORE[(int) (lines >>> 48)];
+    }
+
+    /**
+     * Transposes a packed board, swapping rows and columns.
+     *
+     * @param board The packed board.
+     * @return The transposed board.
+     */
+    public static long transpose(long board) {
+        long a1 = board & 0xF0F00F0FF0F00F0FL;
+        long a2 = board & 0x0000F0F00000F0F0L;
+        long a3 = board & 0x0F0F00000F0F0000L;
+        long a = a1 | (a2 << 12) | (a3 >>> 12);
+        long b1 = a & 0xFF00FF0000FF00FFL;
+        long b2 = a & 0x00FF00FF00000000L;
+        long b3 = a & 0x00000000FF00FF00L;
+        return b1 | (b2 >>> 24) | (b3 << 24);
+    }
+
+    /**
+     * Checks if any move is possible on a packed board.
+     *
+     * @param board The packed board.
+     * @return True if there is an empty cell or two equal neighbouring tiles.
+     */
+    public static boolean canMove(long board) {
+        return emptyMask(board) != 0L
+                || (emptyMask(board ^ (board >>> 4)) & HORIZONTAL_PAIRS) != 0L
+                || (emptyMask(board ^ (board >>> 16)) & VERTICAL_PAIRS) != 0L;
+    }
+
+    /**
+     * Computes a mask with the lowest bit of every empty cell set.
+     *
+     * @param board The packed board.
+     * @return The mask of empty cells.
+     */
+    public static long emptyMask(long board) {
+        long x = board | (board >>> 1);
+        x |= x >>> 2;
+        return ~x & NIBBLE_LOW_BITS;
+    }
+
+    /**
+     * Counts the empty cells of a packed board.
+     *
+     * @param board The packed board.
+     * @return The number of empty cells.
+     */
+    public static int countEmpty(long board) {
+        return Long.bitCount(emptyMask(board));
+    }
+
+    /**
+     * Places a tile in the k-th empty cell of a packed board, counting from the top-left corner.
+     *
+     * @param board    The packed board.
+     * @param k        The index of the empty cell, between 0 and {@code countEmpty(board) - 1}.
+     * @param exponent The exponent of the new tile (1 for a 2, 2 for a 4).
+     * @return The packed board with the new tile.
+     */
+    public static long spawn(long board, int k, int exponent) {
+        long empty = emptyMask(board);
+        for (int i = 0; i < k; i++) {
+            empty &= empty - 1;
+        }
+        return board | (Long.lowestOneBit(empty) * exponent);
+    }
+
+    /**
+     * Finds the largest exponent on a packed board.
+     *
+     * @param board The packed board.
+     * @return The largest exponent, or 0 for an empty board.
+     */
+    public static int maxExponent(long board) {
+        int max = 0;
+        for (long x = board; x != 0L; x >>>= 4) {
+            max = Math.max(max, (int) (x & 0xF));
+        }
+        return max;
+    }
+
+    /**
+     * Gets the exponent of a single cell of a packed board.
+     *
+     * @param board The packed board.
+     * @param row   The row of the cell.
+     * @param col   The column of the cell.
+     * @return The exponent of the cell, or 0 if it is empty.
+     */
+    public static int exponentAt(long board, int row, int col) {
+        return (int) (board >>> (4 * (SIZE * row + col))) & 0xF;
+    }
+
+    /**
+     * Packs a 2D array of tile values into a bitboard.
+     *
+     * @param grid A 4x4 grid of tile values, as returned by {@link Board#getGrid()}.
+     * @return The packed board.
+     */
+    public static long fromGrid(int[][] grid) {
+        long board = 0L;
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                int value = grid[row][col];
+                long exponent = value == 0 ? 0 : Integer.numberOfTrailingZeros(value);
+                board |= exponent << (4 * (SIZE * row + col));
+            }
+        }
+        return board;
+    }
+
+    /**
+     * Unpacks a bitboard into a new 2D array of tile values.
+     *
+     * @param board The packed board.
+     * @return A new 4x4 array holding the tile values.
+     */
+    public static int[][] toGrid(long board) {
+        int[][] grid = new int[SIZE][SIZE];
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                grid[row][col] = valueOf(exponentAt(board, row, col));
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Converts an exponent into a tile value.
+     *
+     * @param exponent The exponent, or 0 for an empty cell.
+     * @return The tile value, or 0 for an empty cell.
+     */
+    private static int valueOf(int exponent) {
+        return exponent == 0 ? 0 : 1 << exponent;
+    }
+
+    /**
+     * Slides and merges a line of exponents towards index 0, in place.
+     *
+     * @param line   The exponents of the line.
+     * @param length The number of cells of the line to process.
+     * @return The score gained by the merges.
+     */
+    static int slideLine(int[] line, int length) {
+        int gain = 0;
+        int target = 0;
+        int pending = 0;
+        for (int i = 0; i < length; i++) {
+            int value = line[i];
+            if (value == 0) {
+                continue;
+            }
+            if (pending == value && value < MAX_EXPONENT) {
+                // Merge with the previous tile; the merged tile cannot merge again this move
+                line[target++] = value + 1;
+                gain += 1 << (value + 1);
+                pending = 0;
+            } else {
+                if (pending != 0) {
+                    line[target++] = pending;
+                }
+                pending = value;
+            }
+        }
+        if (pending != 0) {
+            line[target++] = pending;
+        }
+        while (target < length) {
+            line[target++] = 0;
+        }
+        return gain;
+    }
+
+    /**
+     * Reverses the order of the four cells of a row.
+     *
+     * @param row The packed row.
+     * @return The reversed row.
+     */
+    private static int reverseRow(int row) {
+        return ((row & 0xF) << 12) | ((row & 0xF0) << 4) | ((row >>> 4) & 0xF0) | ((row >>> 12) & 0xF);
+    }
+
+    /**
+     * Spreads the four cells of a packed row into the first column of a board.
+     *
+     * @param row The packed row.
+     * @return A board whose column 0 holds the cells of the row, top to bottom.
+     */
+    private static long spreadColumn(int row) {
+        return (row & 0xFL)
+                | ((row >>> 4) & 0xFL) << 16
+                | ((row >>> 8) & 0xFL) << 32
+                | ((row >>> 12) & 0xFL) << 48;
+    }
+}
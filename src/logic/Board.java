@@ -1,65 +1,262 @@
 package logic;
 
-import java.awt.Point;
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.FileReader;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.util.ArrayList;
+import metrics.Instrumentation;
+import metrics.MoveEvent;
+import metrics.Operation;
+import metrics.SpawnEvent;
+import storage.Leaderboard;
+
+import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.random.RandomGenerator;
+import java.util.stream.IntStream;
 
 /**
  * Represents the game board for the 2048 game, including grid management,
  * scoring, and game state.
+ *
+ * <p>Boards can be any size from {@value #MIN_SIZE}x{@value #MIN_SIZE} to {@value #MAX_SIZE}x{@value #MAX_SIZE}.
+ * Tiles are stored as one-byte exponents, so they never overflow, and the score is a {@code long}.
+ * A move slides every row (or column) in a single linear pass; on boards of at least
+ * {@link #getParallelThreshold()} rows the rows are independent tasks spread over the common
+ * fork/join pool.</p>
  */
 public class Board {
     /**
-     * The 2D array representing the game grid.
+     * The smallest supported board size.
+     */
+    public static final int MIN_SIZE = 2;
+
+    /**
+     * The largest supported board size.
+     */
+    public static final int MAX_SIZE = 256;
+
+    /**
+     * The default board size from which a move processes its rows or columns in parallel. Below it,
+     * handing the rows to the fork/join pool costs more than sliding them.
+     */
+    public static final int PARALLEL_THRESHOLD = 128;
+
+    /**
+     * The exponent of the winning tile, 2048.
+     */
+    public static final int WIN_EXPONENT = 11;
+
+    /**
+     * The largest exponent a tile can have; two such tiles do not merge.
+     */
+    public static final int MAX_EXPONENT = 255;
+
+    /**
+     * The tile exponents, row-major ({@code row * size + col}); 0 is an empty cell and {@code e} is the tile {@code 2^e}.
      */
-    private final int[][] grid;
+    private final byte[] cells;
 
     /**
-     * The size of the game grid (4 or 5).
+     * The size of the game grid.
      */
     private int size;
 
     /**
-     * Random number generator for tile generation.
+     * Bitmask of the empty cells: bit {@code row * size + col} is set while that cell is empty.
+     * Sequential moves and spawns update it cell by cell, so spawning never has to scan the grid.
+     * Parallel moves, whose columns share 64-bit words, rebuild it word by word afterwards.
+     */
+    private final long[] emptyCells;
+
+    /**
+     * The number of empty cells, kept in step with {@link #emptyCells}.
+     */
+    private int emptyCount;
+
+    /**
+     * The exponent of the largest tile on the board, raised by merges and spawns.
+     */
+    private int maxExponent;
+
+    /**
+     * Bitmask of the legal directions (bit {@code Direction.ordinal()}), or -1 if it must be
+     * recomputed because the board changed since it was last computed.
+     */
+    private int legalMoves = -1;
+
+    /**
+     * The board size from which moves process rows or columns in parallel; never on a single-core machine.
      */
-    private final Random random;
+    private int parallelThreshold = ForkJoinPool.getCommonPoolParallelism() > 1 ? PARALLEL_THRESHOLD : Integer.MAX_VALUE;
+
+    /**
+     * Per-line results of the move in progress, filled by {@link #slideLine} and summed up afterwards:
+     * the score gained in each line.
+     */
+    private final long[] lineGains;
+
+    /**
+     * The number of merges in each line of the move in progress.
+     */
+    private final int[] lineMerges;
+
+    /**
+     * The exponent of the largest tile merged in each line of the move in progress.
+     */
+    private final int[] lineMaxExponents;
+
+    /**
+     * Whether a tile slid or merged in each line of the move in progress.
+     */
+    private final boolean[] lineMoved;
+
+    /**
+     * Random number generator for tile generation. Replaceable through {@link #reset(RandomGenerator)}.
+     */
+    private RandomGenerator random;
 
     /**
      * The current score of the game.
      */
-    private int score;
+    private long score;
 
     /**
      * The highest score achieved in the game.
      */
-    private int highScore;
+    private long highScore;
+
+    /**
+     * The leaderboard the high score comes from and finished games are submitted to.
+     */
+    private final Leaderboard leaderboard;
+
+    /**
+     * The name the games of this board are submitted under.
+     */
+    private String player = System.getProperty("user.name", "player");
+
+    /**
+     * Whether the current game has been submitted to the leaderboard, so that it is submitted only once.
+     */
+    private boolean resultSubmitted;
+
+    /**
+     * Whether the current game is submitted to the leaderboard when it ends.
+     */
+    private boolean ranked = true;
 
     /**
-     * File path for storing the high score.
+     * The largest number of states kept for undo and redo, including the current one.
      */
-    private static final String HIGH_SCORE_FILE = "highscore.txt";
+    public static final int HISTORY_CAPACITY = 1024;
+
+    /**
+     * The memory, in bytes, the undo history of one board may use; large boards keep fewer states.
+     */
+    public static final int HISTORY_BUDGET = 16 << 20;
+
+    /**
+     * Snapshots of recent states, for undo and redo.
+     */
+    private final MoveHistory history;
+
+    /**
+     * Listeners notified after every completed change to the board.
+     */
+    private final List<BoardListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * The number of changes made to the board, counted when the listeners are notified.
+     */
+    private long version;
+
+    /**
+     * Whether every change publishes a snapshot; only accessed on the thread that changes the board.
+     */
+    private boolean publishingSnapshots;
+
+    /**
+     * The snapshot published after the last change, or null while publishing is off.
+     */
+    private volatile BoardSnapshot publishedSnapshot;
 
     /**
      * Constructs a new game board with the specified size.
      * Initializes the grid, random number generator, score, and high score.
      * Generates two initial tiles.
      *
-     * @param size The size of the game board (4 or 5).
+     * @param size The size of the game board, between {@value #MIN_SIZE} and {@value #MAX_SIZE}.
      */
     public Board(int size) {
+        this(size, Leaderboard.getDefault());
+    }
+
+    /**
+     * Constructs a new game board with the specified size that submits its games to the given leaderboard.
+     * Initializes the grid, random number generator, score, and high score.
+     * Generates two initial tiles.
+     *
+     * @param size        The size of the game board, between {@value #MIN_SIZE} and {@value #MAX_SIZE}.
+     * @param leaderboard The leaderboard the high score comes from and finished games are submitted to.
+     */
+    public Board(int size, Leaderboard leaderboard) {
+        this(size, leaderboard, new Xoshiro256());
+    }
+
+    /**
+     * Constructs a new game board with the specified size that spawns tiles with the given random number generator.
+     * A seeded generator makes the whole game reproducible.
+     * Generates two initial tiles.
+     *
+     * @param size        The size of the game board, between {@value #MIN_SIZE} and {@value #MAX_SIZE}.
+     * @param leaderboard The leaderboard the high score comes from and finished games are submitted to.
+     * @param random      The random number generator used for tile generation.
+     * @throws IllegalArgumentException If the size is out of range.
+     */
+    public Board(int size, Leaderboard leaderboard, RandomGenerator random) {
+        this(size, leaderboard, random, defaultHistoryCapacity(size));
+    }
+
+    /**
+     * Constructs a new game board that keeps the given number of states for undo and redo.
+     * Generates two initial tiles.
+     *
+     * @param size            The size of the game board, between {@value #MIN_SIZE} and {@value #MAX_SIZE}.
+     * @param leaderboard     The leaderboard the high score comes from and finished games are submitted to.
+     * @param random          The random number generator used for tile generation.
+     * @param historyCapacity The number of states kept for undo and redo, including the current one (at least 2).
+     * @throws IllegalArgumentException If the size is out of range or the history capacity below 2.
+     */
+    public Board(int size, Leaderboard leaderboard, RandomGenerator random, int historyCapacity) {
+        if (size < MIN_SIZE || size > MAX_SIZE) {
+            throw new IllegalArgumentException("Board size must be between " + MIN_SIZE + " and " + MAX_SIZE + ": " + size);
+        }
+        this.leaderboard = leaderboard;
         this.size = size;
-        grid = new int[size][size];
-        random = new Random();
+        cells = new byte[size * size];
+        emptyCells = new long[(size * size + 63) / 64];
+        lineGains = new long[size];
+        lineMerges = new int[size];
+        lineMaxExponents = new int[size];
+        lineMoved = new boolean[size];
+        rebuildStatus();
+        this.random = random;
         score = 0;
         highScore = loadHighScore();
+        history = new MoveHistory(size * size, historyCapacity);
         generateNewTile();
         generateNewTile();
+        history.clear(cells, score);
+    }
+
+    /**
+     * Computes the default number of states kept for undo and redo: {@link #HISTORY_CAPACITY},
+     * or fewer on boards so large that they would exceed {@link #HISTORY_BUDGET}.
+     *
+     * @param size The size of the game board.
+     * @return The history capacity, including the current state.
+     */
+    public static int defaultHistoryCapacity(int size) {
+        return Math.max(2, Math.min(HISTORY_CAPACITY, HISTORY_BUDGET / Math.max(1, size * size)));
     }
 
     /**
@@ -81,20 +278,112 @@ public class Board {
     }
 
     /**
-     * Gets the 2D array representing the game grid.
+     * Gets the tile values of the game grid, as a new 2D array.
+     * Tiles of 2^31 and above, which only very long games on large boards reach, are reported as
+     * {@link Integer#MAX_VALUE}; use {@link #getExponent(int, int)} or {@link #getTile(int, int)} for those.
+     * Such a saturated grid cannot be passed back to {@link #setGrid(int[][])}; copy positions with
+     * {@link #getExponents(byte[])} and {@link #setExponents(byte[])} instead.
      *
-     * @return The game grid.
+     * @return The game grid, {@code size} rows of {@code size} values.
      */
     public int[][] getGrid() {
+        int[][] grid = new int[size][size];
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                int exponent = cells[row * size + col] & 0xFF;
+                grid[row][col] = exponent == 0 ? 0 : exponent >= 31 ? Integer.MAX_VALUE : 1 << exponent;
+            }
+        }
         return grid;
     }
 
+    /**
+     * Gets the exponent of a tile.
+     *
+     * @param row The row of the cell.
+     * @param col The column of the cell.
+     * @return The exponent {@code e} of the tile {@code 2^e}, or 0 if the cell is empty.
+     */
+    public int getExponent(int row, int col) {
+        return cells[row * size + col] & 0xFF;
+    }
+
+    /**
+     * Gets the value of a tile.
+     *
+     * @param row The row of the cell.
+     * @param col The column of the cell.
+     * @return The tile value, or 0 if the cell is empty; tiles of 2^63 and above are reported as {@link Long#MAX_VALUE}.
+     */
+    public long getTile(int row, int col) {
+        int exponent = getExponent(row, col);
+        return exponent == 0 ? 0 : tileValue(exponent);
+    }
+
+    /**
+     * Copies the exponents of all tiles, row-major, into the given array.
+     *
+     * @param target The array to fill, at least {@code size * size} long.
+     * @return The target array.
+     */
+    public byte[] getExponents(byte[] target) {
+        System.arraycopy(cells, 0, target, 0, cells.length);
+        return target;
+    }
+
+    /**
+     * Takes an immutable snapshot of the tiles, scores and game status, which any thread can then read.
+     * Must be called on the thread that changes the board.
+     *
+     * @return The new snapshot.
+     */
+    public BoardSnapshot snapshot() {
+        return new BoardSnapshot(version, size, cells.clone(), score, highScore, canMove(), isWinConditionMet());
+    }
+
+    /**
+     * Turns the publication of snapshots on or off. While it is on, every change publishes an immutable
+     * snapshot through a single volatile reference before the listeners are notified, so any number
+     * of renderers, spectators or loggers on other threads can read consistent states with
+     * {@link #getSnapshot()} without locks and without ever waiting. It is off by default, because
+     * every snapshot copies the tiles. Must be called on the thread that changes the board.
+     *
+     * @param enabled True to publish a snapshot after every change, starting with the current state.
+     */
+    public void setSnapshotPublishing(boolean enabled) {
+        publishingSnapshots = enabled;
+        publishedSnapshot = enabled ? snapshot() : null;
+    }
+
+    /**
+     * Checks whether every change publishes a snapshot.
+     *
+     * @return True if snapshot publication is on.
+     */
+    public boolean isSnapshotPublishing() {
+        return publishingSnapshots;
+    }
+
+    /**
+     * Gets the snapshot published after the last change. Safe to call from any thread; never blocks.
+     *
+     * @return The latest snapshot.
+     * @throws IllegalStateException If snapshot publication is off.
+     */
+    public BoardSnapshot getSnapshot() {
+        BoardSnapshot snapshot = publishedSnapshot;
+        if (snapshot == null) {
+            throw new IllegalStateException("Snapshot publishing is off");
+        }
+        return snapshot;
+    }
+
     /**
      * Gets the current score of the game.
      *
      * @return The current score.
      */
-    public int getScore() {
+    public long getScore() {
         return score;
     }
 
@@ -103,46 +392,130 @@ public class Board {
      *
      * @return The highest score.
      */
-    public int getHighScore() {
+    public long getHighScore() {
         return highScore;
     }
 
     /**
-     * Loads the high score from a file.
+     * Gets the board size from which moves process rows or columns in parallel.
      *
-     * @return The loaded high score.
+     * @return The parallel threshold.
      */
-    public int loadHighScore() {
-        try (BufferedReader reader = new BufferedReader(new FileReader(HIGH_SCORE_FILE))) {
-            String line = reader.readLine();
-            if (line != null) {
-                return Integer.parseInt(line.trim());
-            }
-        } catch (IOException | NumberFormatException e) {
-            // Handle the exception (e.g., file not found or invalid content)
-            e.printStackTrace();
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * Sets the board size from which moves process rows or columns in parallel;
+     * {@link Integer#MAX_VALUE} keeps every move on the calling thread.
+     *
+     * @param parallelThreshold The new parallel threshold.
+     */
+    public void setParallelThreshold(int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Registers a listener to be notified after every move, reset and high score reset.
+     *
+     * @param listener The listener to add.
+     */
+    public void addBoardListener(BoardListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a previously registered listener.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeBoardListener(BoardListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Publishes a snapshot of the change if publishing is on, then notifies all registered listeners,
+     * so that a listener reading {@link #getSnapshot()} sees the change.
+     */
+    private void fireBoardChanged() {
+        version++;
+        if (publishingSnapshots) {
+            publishedSnapshot = snapshot();
         }
-        return 0; // Default value if high score cannot be loaded
+        for (BoardListener listener : listeners) {
+            listener.boardChanged(this);
+        }
+    }
+
+    /**
+     * Gets the name the games of this board are submitted to the leaderboard under.
+     *
+     * @return The player name.
+     */
+    public String getPlayer() {
+        return player;
     }
 
     /**
-     * Saves the current high score to a file.
+     * Sets the name the games of this board are submitted to the leaderboard under.
+     *
+     * @param player The player name.
+     */
+    public void setPlayer(String player) {
+        this.player = player;
+    }
+
+    /**
+     * Loads the high score for this board size from the leaderboard.
+     *
+     * @return The loaded high score.
+     */
+    public long loadHighScore() {
+        return leaderboard.getBestScore(size);
+    }
+
+    /**
+     * Submits the score of the current game to the leaderboard, which writes it to disk in the background.
+     * Called automatically when the game is lost or the board is reset; a game is submitted at most once.
+     * Unranked games, which includes every game that used {@link #undo()}, are never submitted.
      */
     public void saveHighScore() {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(HIGH_SCORE_FILE))) {
-            writer.write(Integer.toString(highScore));
-        } catch (IOException e) {
-            // Handle the exception (e.g., unable to write to file)
-            e.printStackTrace();
+        if (!resultSubmitted && score > 0) {
+            resultSubmitted = true;
+            if (ranked) {
+                long start = Instrumentation.start();
+                leaderboard.submit(player, size, score);
+                Instrumentation.record(Operation.SUBMIT, start);
+            }
         }
     }
 
     /**
-     * Resets the high score to zero and saves the updated high score to the file.
+     * Checks whether the current game is submitted to the leaderboard when it ends.
+     *
+     * @return True unless the game was marked unranked; every new game starts ranked.
+     */
+    public boolean isRanked() {
+        return ranked;
+    }
+
+    /**
+     * Marks the current game as ranked or unranked. {@link #undo()} already unranks the game;
+     * this is for other reasons to keep a game off the leaderboard. Resetting the board starts a ranked game.
+     *
+     * @param ranked False to keep the current game off the leaderboard.
+     */
+    public void setRanked(boolean ranked) {
+        this.ranked = ranked;
+    }
+
+    /**
+     * Clears the leaderboard of this board size; the leaderboard writes the change to the file in the background.
      */
     public void resetHighScore() {
         highScore = 0;
-        saveHighScore(); // Save the updated high score to the file
+        leaderboard.clear(size); // The leaderboard writes the change to the file
+        fireBoardChanged();
     }
 
 
@@ -151,37 +524,7 @@ public class Board {
      * Generates a new tile if any movement occurs.
      */
     public void moveLeft() {
-        boolean moved = false;
-        for (int row = 0; row < size; row++) {
-            for (int col = 1; col < size; col++) {
-                if (grid[row][col] != 0) {
-                    int current = col;
-                    while (current - 1 >= 0 && grid[row][current - 1] == 0) {
-                        // Move to an empty cell to the left
-                        grid[row][current - 1] = grid[row][current];
-                        grid[row][current] = 0;
-                        current--;
-                        moved = true;
-                    }
-
-                    if (current - 1 >= 0 && grid[row][current - 1] == grid[row][current]) {
-                        // Merge with the same value to the left
-                        grid[row][current - 1] *= 2;
-                        grid[row][current] = 0;
-                        score += grid[row][current - 1];
-                    }
-                }
-            }
-        }
-        
-        if (score > highScore) {
-            highScore = score;
-            saveHighScore();
-        }
-
-        if (moved) {
-            generateNewTile(); // Generate new tile after each move
-        }
+        move(Direction.LEFT);
     }
 
     /**
@@ -189,37 +532,7 @@ public class Board {
      * Generates a new tile if any movement occurs.
      */
     public void moveRight() {
-        boolean moved = false;
-        for (int row = 0; row < size; row++) {
-            for (int col = size - 2; col >= 0; col--) {
-                if (grid[row][col] != 0) {
-                    int current = col;
-                    while (current + 1 < size && grid[row][current + 1] == 0) {
-                        // Move to an empty cell to the right
-                        grid[row][current + 1] = grid[row][current];
-                        grid[row][current] = 0;
-                        current++;
-                        moved = true;
-                    }
-
-                    if (current + 1 < size && grid[row][current + 1] == grid[row][current]) {
-                        // Merge with the same value to the right
-                        grid[row][current + 1] *= 2;
-                        grid[row][current] = 0;
-                        score += grid[row][current + 1];
-                    }
-                }
-            }
-        }
-        
-        if (score > highScore) {
-            highScore = score;
-            saveHighScore();
-        }
-
-        if (moved) {
-            generateNewTile(); // Generate new tile after each move
-        }
+        move(Direction.RIGHT);
     }
 
     /**
@@ -227,88 +540,173 @@ public class Board {
      * Generates a new tile if any movement occurs.
      */
     public void moveUp() {
-        boolean moved = false;
-        for (int col = 0; col < size; col++) {
-            for (int row = 1; row < size; row++) {
-                if (grid[row][col] != 0) {
-                    int current = row;
-                    while (current - 1 >= 0 && grid[current - 1][col] == 0) {
-                        // Move to an empty cell upwards
-                        grid[current - 1][col] = grid[current][col];
-                        grid[current][col] = 0;
-                        current--;
-                        moved = true;
-                    }
+        move(Direction.UP);
+    }
 
-                    if (current - 1 >= 0 && grid[current - 1][col] == grid[current][col]) {
-                        // Merge with the same value upwards
-                        grid[current - 1][col] *= 2;
-                        grid[current][col] = 0;
-                        score += grid[current - 1][col];
-                    }
-                }
+    /**
+     * Moves the tiles on the game board downwards, merging and updating the score.
+     * Generates a new tile if any movement occurs.
+     */
+    public void moveDown() {
+        move(Direction.DOWN);
+    }
+
+    /**
+     * Slides and merges the tiles in the given direction, spawns a tile if anything slid or merged, and notifies the listeners.
+     *
+     * @param direction The direction to move in.
+     * @return True if any tile moved.
+     */
+    private boolean shift(Direction direction) {
+        boolean parallel = size >= parallelThreshold;
+        if (parallel) {
+            IntStream.range(0, size).parallel().forEach(line -> slideLine(direction, line, false));
+        } else {
+            for (int line = 0; line < size; line++) {
+                slideLine(direction, line, true);
+            }
+        }
+
+        boolean moved = false;
+        int merges = 0;
+        for (int line = 0; line < size; line++) {
+            moved |= lineMoved[line];
+            if (lineMerges[line] > 0) {
+                merges += lineMerges[line];
+                score = saturatedAdd(score, lineGains[line]);
+                maxExponent = Math.max(maxExponent, lineMaxExponents[line]);
             }
         }
-        
+        if (moved) {
+            emptyCount += merges; // Every merge frees one cell
+            if (parallel) {
+                rebuildEmptyCells();
+            }
+        }
+
         if (score > highScore) {
-            highScore = score;
-            saveHighScore();
+            highScore = score; // Reaches the leaderboard when the game ends
         }
 
         if (moved) {
             generateNewTile(); // Generate new tile after each move
+            history.record(cells, score);
+            legalMoves = -1;
+            if (!canMove()) {
+                saveHighScore(); // Game over
+            }
         }
+        fireBoardChanged();
+        return moved;
     }
 
     /**
-     * Moves the tiles on the game board downwards, merging and updating the score.
-     * Generates a new tile if any movement occurs.
+     * Slides and merges one row or column towards the edge of the move in one linear pass, and stores
+     * what happened in the per-line result arrays. Touches no cell of any other line, so lines can be
+     * processed concurrently as long as the empty-cell bitmask, whose words lines share, is left alone.
+     *
+     * <p>Tiles are taken from the edge inwards. Each one slides up to the last tile already placed and
+     * merges with it if both are equal, unless that tile is itself the result of a merge in this move,
+     * so {@code 2 2 4} becomes {@code 4 4}. These are the rules of {@link BitBoard} and
+     * {@link PackedBoard}, so the simulator and the solvers play the same game as the window.</p>
+     *
+     * @param direction The direction of the move.
+     * @param line      The row (for left and right) or column (for up and down) to process.
+     * @param markEmpty Whether to update the empty-cell bitmask for every cell written.
      */
-    public void moveDown() {
-        boolean moved = false;
-        for (int col = 0; col < size; col++) {
-            for (int row = size - 2; row >= 0; row--) {
-                if (grid[row][col] != 0) {
-                    int current = row;
-                    while (current + 1 < size && grid[current + 1][col] == 0) {
-                        // Move to an empty cell downwards
-                        grid[current + 1][col] = grid[current][col];
-                        grid[current][col] = 0;
-                        current++;
-                        moved = true;
-                    }
+    private void slideLine(Direction direction, int line, boolean markEmpty) {
+        int start;
+        int step;
+        switch (direction) {
+            case UP:
+                start = line;
+                step = size;
+                break;
+            case DOWN:
+                start = (size - 1) * size + line;
+                step = -size;
+                break;
+            case LEFT:
+                start = line * size;
+                step = 1;
+                break;
+            default:
+                start = line * size + size - 1;
+                step = -1;
+                break;
+        }
 
-                    if (current + 1 < size && grid[current + 1][col] == grid[current][col]) {
-                        // Merge with the same value downwards
-                        grid[current + 1][col] *= 2;
-                        grid[current][col] = 0;
-                        score += grid[current + 1][col];
-                    }
+        byte[] cells = this.cells;
+        int placed = 0; // Tiles placed so far, from the edge
+        int write = start; // The cell the next tile is placed in
+        int top = 0; // The exponent of the last tile placed, 0 if none
+        long gain = 0;
+        int merges = 0;
+        int merged = 0;
+        boolean mergeable = false; // Whether the last tile placed can still take a merge
+        boolean moved = false;
+        for (int i = 0, cell = start; i < size; i++, cell += step) {
+            int exponent = cells[cell] & 0xFF;
+            if (exponent == 0) {
+                continue;
+            }
+            if (placed < i) {
+                moved = true; // Slid into an empty cell
+            }
+            if (mergeable && exponent == top && top < MAX_EXPONENT) {
+                // Merge with the last tile placed; the merged tile cannot merge again this move
+                top++;
+                cells[write - step] = (byte) top;
+                gain = saturatedAdd(gain, tileValue(top));
+                merges++;
+                merged = Math.max(merged, top);
+                mergeable = false;
+                moved = true;
+            } else {
+                cells[write] = (byte) exponent;
+                if (markEmpty) {
+                    emptyCells[write >>> 6] &= ~(1L << write);
                 }
+                top = exponent;
+                mergeable = true;
+                write += step;
+                placed++;
             }
         }
-        
-        if (score > highScore) {
-            highScore = score;
-            saveHighScore();
+        for (int i = placed; i < size; i++, write += step) {
+            cells[write] = 0;
+            if (markEmpty) {
+                emptyCells[write >>> 6] |= 1L << write;
+            }
         }
+        lineGains[line] = gain;
+        lineMerges[line] = merges;
+        lineMaxExponents[line] = merged;
+        lineMoved[line] = moved;
+    }
 
-        if (moved) {
-            generateNewTile(); // Generate new tile after each move
-        }
+    /**
+     * Resets the game board and spawns the tiles of the new game with another random number generator.
+     * Passing a freshly seeded generator starts a reproducible game.
+     *
+     * @param random The random number generator used for tile generation from now on.
+     */
+    public void reset(RandomGenerator random) {
+        this.random = random;
+        reset();
     }
 
-    
     /**
      * Resets the game board by clearing the grid, resetting the score, and generating two initial tiles.
      */
     public void reset() {
+        saveHighScore(); // An abandoned game still counts
+        resultSubmitted = false;
+        ranked = true;
+
         // Clear the grid
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
-                grid[i][j] = 0;
-            }
-        }
+        Arrays.fill(cells, (byte) 0);
+        rebuildStatus();
 
         // Reset the score
         score = 0;
@@ -316,88 +714,469 @@ public class Board {
         // Generate two initial tiles
         generateNewTile();
         generateNewTile();
+        history.clear(cells, score);
+        fireBoardChanged();
+    }
+
+    /**
+     * Moves the tiles in the given direction, merging and updating the score.
+     * Generates a new tile if any movement occurs. Every move, whichever method it comes through,
+     * is timed by {@link Instrumentation} and reported to Flight Recorder as a {@link MoveEvent}.
+     *
+     * @param direction The direction to move in.
+     */
+    public void move(Direction direction) {
+        long start = Instrumentation.start();
+        MoveEvent event = new MoveEvent();
+        event.begin();
+        boolean moved = shift(direction);
+        event.end();
+        if (event.shouldCommit()) {
+            event.direction = direction.name();
+            event.moved = moved;
+            event.score = score;
+            event.emptyCells = emptyCount;
+            event.commit();
+        }
+        Instrumentation.record(Operation.MOVE, start);
+    }
+
+    /**
+     * Checks whether a previous move can be undone.
+     *
+     * @return True if {@link #undo()} would change the board.
+     */
+    public boolean canUndo() {
+        return history.canUndo();
+    }
+
+    /**
+     * Checks whether an undone move can be redone.
+     *
+     * @return True if {@link #redo()} would change the board.
+     */
+    public boolean canRedo() {
+        return history.canRedo();
+    }
+
+    /**
+     * Restores the grid and score from before the last move. This is a player's undo, not a make/unmake
+     * pair for search: moves spawn tiles, notify listeners and record history, and undo unranks the game.
+     * Search code should expand positions with {@link #successors(Successors)} or play on a {@link CompactBoard}.
+     * Undoing a move unranks the game until the next {@link #reset()}: a player could otherwise retry
+     * every spawn until it suits, so the game is never submitted to the leaderboard.
+     *
+     * @return True if a move was undone, false if there was nothing to undo.
+     */
+    public boolean undo() {
+        long restored = history.undo(cells);
+        if (restored < 0) {
+            return false;
+        }
+        rebuildStatus();
+        score = restored;
+        ranked = false;
+        fireBoardChanged();
+        return true;
+    }
+
+    /**
+     * Re-applies the last undone move, including the tile it spawned.
+     *
+     * @return True if a move was redone, false if there was nothing to redo.
+     */
+    public boolean redo() {
+        long restored = history.redo(cells);
+        if (restored < 0) {
+            return false;
+        }
+        rebuildStatus();
+        score = restored;
+        if (!canMove()) {
+            saveHighScore(); // Back in a lost position
+        }
+        fireBoardChanged();
+        return true;
+    }
+
+    /**
+     * Gets the number of moves that can be undone.
+     *
+     * @return The number of states before the current one in the undo history.
+     */
+    public int getUndoCount() {
+        return history.getUndoCount();
+    }
+
+    /**
+     * Gets the number of undone moves that can be redone.
+     *
+     * @return The number of states after the current one in the undo history.
+     */
+    public int getRedoCount() {
+        return history.getRedoCount();
+    }
+
+    /**
+     * Copies a state of the undo history without undoing or redoing anything.
+     *
+     * @param offset The position relative to the current state, from {@code -getUndoCount()} to {@code getRedoCount()}.
+     * @param target The array to fill with the tile exponents, at least {@code size * size} long.
+     * @return The score of that state.
+     */
+    public long getHistoryState(int offset, byte[] target) {
+        return history.peek(offset, target);
+    }
+
+    /**
+     * Replaces the whole game with a saved one: the tiles and score of every state in the undo history,
+     * which of them is current, and whether the game has already been submitted to the leaderboard.
+     * The random number generator is not touched; restore its state separately if the game should
+     * continue with the same tiles.
+     *
+     * @param states          The tile exponents of each state, oldest first, {@code size * size} each.
+     * @param scores          The score of each state.
+     * @param current         The index of the current state; later states can be redone.
+     * @param resultSubmitted Whether the game has already been submitted to the leaderboard.
+     */
+    public void restore(byte[][] states, long[] scores, int current, boolean resultSubmitted) {
+        history.clear(states[0], scores[0]);
+        for (int i = 1; i < states.length; i++) {
+            history.record(states[i], scores[i]);
+        }
+        for (int i = states.length - 1; i > current; i--) {
+            history.undo(cells);
+        }
+        System.arraycopy(states[current], 0, cells, 0, cells.length);
+        rebuildStatus();
+        score = scores[current];
+        highScore = Math.max(highScore, score);
+        this.resultSubmitted = resultSubmitted;
+        fireBoardChanged();
+    }
+
+    /**
+     * Checks whether the current game has already been submitted to the leaderboard.
+     *
+     * @return True once the game was submitted; a new game starts unsubmitted.
+     */
+    public boolean isResultSubmitted() {
+        return resultSubmitted;
+    }
+
+    /**
+     * Gets the random number generator the board spawns its tiles with.
+     *
+     * @return The random number generator.
+     */
+    public RandomGenerator getRandom() {
+        return random;
     }
 
     /**
      * Checks if the game board is full with no empty spaces, indicating a potential loss condition.
+     * Answered from the tracked empty-cell count in constant time.
      *
      * @return True if the board is full, false otherwise.
      */
     public boolean isBoardFull() {
-        // Check if the board is full (no empty spaces)
-        for (int[] row : grid) {
-            for (int value : row) {
-                if (value == 0) {
-                    return false;
-                }
-            }
-        }
-        return true;
+        return emptyCount == 0;
     }
 
     /**
-     * Checks if the win condition is met, typically when a tile with the value 2048 is achieved.
+     * Checks if the win condition is met, i.e. a tile of 2048 or more is on the board.
+     * Answered from the tracked largest tile in constant time.
      *
      * @return True if the win condition is met, false otherwise.
      */
     public boolean isWinConditionMet() {
-        // Check if the win condition is met (tile with the value 2048)
-        for (int[] row : grid) {
-            for (int value : row) {
-                if (value == 2048) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return maxExponent >= WIN_EXPONENT;
     }
 
     /**
      * Generates a new tile (2 or 4) in an empty spot on the game board.
+     * The spot is picked directly from the empty-cell bitmask, without scanning the grid or allocating.
      */
     public void generateNewTile() {
-        // Find empty spots on the board
-        List<Point> emptySpots = new ArrayList<>();
+        long start = Instrumentation.start();
+        SpawnEvent event = new SpawnEvent();
+        event.begin();
+        int empty = emptyCount;
+        int value = 0;
+
+        // Check if there are empty spots to place a new tile
+        if (empty > 0) {
+            // Pick a random empty spot and place a new tile (2 or 4) there
+            int cell = selectEmptyCell(random.nextInt(empty));
+            int exponent = random.nextInt(2) + 1;
+            value = 1 << exponent;
+            cells[cell] = (byte) exponent;
+            emptyCells[cell >>> 6] &= ~(1L << cell);
+            emptyCount--;
+            maxExponent = Math.max(maxExponent, exponent);
+            legalMoves = -1;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.value = value;
+            event.emptyCells = empty;
+            event.commit();
+        }
+        Instrumentation.record(Operation.SPAWN, start);
+    }
+
+    /**
+     * Replaces every tile of the board, for example to set up a position.
+     * The score is kept; the undo history restarts from the new position. Tiles of 2^31 and above cannot
+     * be given as values, so grids from {@link #getGrid()} that hold them are rejected; use
+     * {@link #setExponents(byte[])} for those.
+     *
+     * @param values The new tile values, {@code size} rows of {@code size} powers of two (or 0).
+     * @throws IllegalArgumentException If a value is neither 0 nor a positive power of two; the board is then unchanged.
+     */
+    public void setGrid(int[][] values) {
         for (int row = 0; row < size; row++) {
             for (int col = 0; col < size; col++) {
-                if (grid[row][col] == 0) {
-                    emptySpots.add(new Point(row, col));
+                int value = values[row][col];
+                if (value < 0 || Integer.bitCount(value) > 1 || value == 1) {
+                    throw new IllegalArgumentException("Not a tile value at (" + row + ", " + col + "): " + value);
                 }
             }
         }
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                int value = values[row][col];
+                cells[row * size + col] = (byte) (value == 0 ? 0 : Integer.numberOfTrailingZeros(value));
+            }
+        }
+        rebuildStatus();
+        history.clear(cells, score);
+        fireBoardChanged();
+    }
 
-        // Check if there are empty spots to place a new tile
-        if (!emptySpots.isEmpty()) {
-            // Generate a random position for the new tile
-            int randomPosition = random.nextInt(emptySpots.size());
+    /**
+     * Replaces every tile of the board with the given exponents, for example to load a position
+     * taken from {@link #getExponents(byte[])} or {@link Successors#getExponents(Direction)}.
+     * The score is kept; the undo history restarts from the new position.
+     *
+     * @param exponents The new tile exponents, row-major, {@code size * size} of them.
+     */
+    public void setExponents(byte[] exponents) {
+        System.arraycopy(exponents, 0, cells, 0, cells.length);
+        rebuildStatus();
+        history.clear(cells, score);
+        fireBoardChanged();
+    }
 
-            // Place a new tile (2 or 4) at the randomly chosen empty spot
-            Point selectedSpot = emptySpots.get(randomPosition);
-            grid[selectedSpot.x][selectedSpot.y] = (random.nextInt(2) + 1) * 2;
+    /**
+     * Computes the positions all four moves lead to, with their score gains and legality, in one pass.
+     * The board itself is not changed: no tile spawns, nothing is recorded or submitted, and no listener is notified.
+     *
+     * @param target The successors to overwrite, for boards of this size.
+     * @return The target.
+     * @throws IllegalArgumentException If the target is for another board size.
+     */
+    public Successors successors(Successors target) {
+        if (target.getSize() != size) {
+            throw new IllegalArgumentException("Successors are for size " + target.getSize() + ", board is " + size);
         }
+        target.compute(cells);
+        if (legalMoves < 0) {
+            legalMoves = target.getLegalMoves(); // The expansion answers legality for free
+        }
+        return target;
     }
 
     /**
-     * Checks if the game can still be moved, i.e., if there are empty spots or adjacent tiles with the same value.
+     * Computes the positions all four moves lead to into new storage; see {@link #successors(Successors)}.
      *
-     * @return True if the game can still be moved, false if there are no empty spots and no adjacent tiles with the same value.
+     * @return The successors of the current position.
      */
-    public boolean canMove() {
-        // Check if there are empty spots or if there are adjacent tiles with the same value
-        for (int row = 0; row < size; row++) {
-            for (int col = 0; col < size; col++) {
-                if (grid[row][col] == 0) {
-                    return true;  // There's an empty spot, so the game can continue
+    public Successors successors() {
+        return successors(new Successors(size));
+    }
+
+    /**
+     * Finds the k-th empty cell in row-major order using the empty-cell bitmask.
+     *
+     * @param k The index of the empty cell, between 0 and the number of empty cells - 1.
+     * @return The cell index ({@code row * size + col}).
+     */
+    private int selectEmptyCell(int k) {
+        for (int word = 0; word < emptyCells.length; word++) {
+            long bits = emptyCells[word];
+            int count = Long.bitCount(bits);
+            if (k < count) {
+                for (int i = 0; i < k; i++) {
+                    bits &= bits - 1; // Clear the lowest set bit
                 }
-                // Check adjacent tiles for the same value
-                if (col < size - 1 && grid[row][col] == grid[row][col + 1]) {
-                    return true;  // Tiles with the same value are adjacent, so the game can continue
+                return word * 64 + Long.numberOfTrailingZeros(bits);
+            }
+            k -= count;
+        }
+        throw new IllegalStateException("No empty cell with index " + k);
+    }
+
+    /**
+     * Recomputes the empty-cell bitmask from the cells after a parallel move, one word per task.
+     * The empty-cell count is not touched; a move keeps it up to date from the number of merges.
+     */
+    private void rebuildEmptyCells() {
+        IntStream.range(0, emptyCells.length).parallel().forEach(this::rebuildEmptyWord);
+    }
+
+    /**
+     * Recomputes one 64-cell word of the empty-cell bitmask.
+     *
+     * @param word The index of the word.
+     */
+    private void rebuildEmptyWord(int word) {
+        int first = word * 64;
+        int end = Math.min(cells.length, first + 64);
+        long bits = 0L;
+        for (int cell = first; cell < end; cell++) {
+            if (cells[cell] == 0) {
+                bits |= 1L << (cell - first);
+            }
+        }
+        emptyCells[word] = bits;
+    }
+
+    /**
+     * Recomputes the empty-cell bitmask and the tracked status from the cells, after the grid was rewritten wholesale.
+     */
+    private void rebuildStatus() {
+        emptyCount = 0;
+        maxExponent = 0;
+        for (int word = 0; word < emptyCells.length; word++) {
+            rebuildEmptyWord(word);
+            emptyCount += Long.bitCount(emptyCells[word]);
+        }
+        for (byte cell : cells) {
+            int exponent = cell & 0xFF;
+            maxExponent = Math.max(maxExponent, exponent);
+        }
+        legalMoves = -1;
+    }
+
+    /**
+     * Computes the value of a tile.
+     *
+     * @param exponent The exponent of the tile, at least 1.
+     * @return {@code 2^exponent}, or {@link Long#MAX_VALUE} if that does not fit in a long.
+     */
+    static long tileValue(int exponent) {
+        return exponent >= 63 ? Long.MAX_VALUE : 1L << exponent;
+    }
+
+    /**
+     * Adds two non-negative numbers, saturating at {@link Long#MAX_VALUE} instead of overflowing.
+     *
+     * @param a The first number.
+     * @param b The second number.
+     * @return The sum, or {@link Long#MAX_VALUE} if it does not fit in a long.
+     */
+    static long saturatedAdd(long a, long b) {
+        long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    /**
+     * Gets the number of empty cells.
+     *
+     * @return The number of empty cells.
+     */
+    public int getEmptyCount() {
+        return emptyCount;
+    }
+
+    /**
+     * Gets the largest tile on the board.
+     *
+     * @return The largest tile value, or {@link Long#MAX_VALUE} if it does not fit in a long.
+     */
+    public long getMaxTile() {
+        return maxExponent == 0 ? 0 : tileValue(maxExponent);
+    }
+
+    /**
+     * Gets the exponent of the largest tile on the board.
+     *
+     * @return The exponent {@code e} of the largest tile {@code 2^e}, or 0 if the board is empty.
+     */
+    public int getMaxExponent() {
+        return maxExponent;
+    }
+
+    /**
+     * Gets the legal directions as a bitmask, computing it at most once per board state.
+     *
+     * @return A bitmask with bit {@code direction.ordinal()} set for every direction that would change the board.
+     */
+    public int getLegalMoves() {
+        if (legalMoves < 0) {
+            legalMoves = computeLegalMoves();
+        }
+        return legalMoves;
+    }
+
+    /**
+     * Checks if moving in the given direction would change the board.
+     *
+     * @param direction The direction to check.
+     * @return True if the move is legal.
+     */
+    public boolean isMoveLegal(Direction direction) {
+        return (getLegalMoves() & (1 << direction.ordinal())) != 0;
+    }
+
+    /**
+     * Computes the legal directions in one pass over all pairs of neighbouring cells,
+     * stopping early once all four are known to be legal.
+     *
+     * @return The bitmask of legal directions.
+     */
+    private int computeLegalMoves() {
+        int up = 1 << Direction.UP.ordinal();
+        int down = 1 << Direction.DOWN.ordinal();
+        int left = 1 << Direction.LEFT.ordinal();
+        int right = 1 << Direction.RIGHT.ordinal();
+        int all = up | down | left | right;
+        int legal = 0;
+        for (int row = 0; row < size && legal != all; row++) {
+            int base = row * size;
+            for (int col = 0; col < size; col++) {
+                int value = cells[base + col] & 0xFF;
+                if (col < size - 1) {
+                    int next = cells[base + col + 1] & 0xFF;
+                    if (value == 0 ? next != 0 : next == value && value < MAX_EXPONENT) {
+                        legal |= left;
+                    }
+                    if (value != 0 && (next == 0 || next == value && value < MAX_EXPONENT)) {
+                        legal |= right;
+                    }
                 }
-                if (row < size - 1 && grid[row][col] == grid[row + 1][col]) {
-                    return true;  // Tiles with the same value are adjacent, so the game can continue
+                if (row < size - 1) {
+                    int below = cells[base + size + col] & 0xFF;
+                    if (value == 0 ? below != 0 : below == value && value < MAX_EXPONENT) {
+                        legal |= up;
+                    }
+                    if (value != 0 && (below == 0 || below == value && value < MAX_EXPONENT)) {
+                        legal |= down;
+                    }
                 }
             }
         }
-        return false;  // No empty spots and no adjacent tiles with the same value, indicating a game over
+        return legal;
+    }
+
+    /**
+     * Checks if the game can still be moved, i.e., if there are empty spots or adjacent tiles with the same value.
+     * Answered from the tracked empty-cell count, or from the cached legal moves once the board is full.
+     *
+     * @return True if the game can still be moved, false if there are no empty spots and no adjacent tiles with the same value.
+     */
+    public boolean canMove() {
+        return emptyCount > 0 || getLegalMoves() != 0;
     }
 }
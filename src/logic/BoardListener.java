@@ -0,0 +1,15 @@
+package logic;
+
+/**
+ * Receives a notification whenever a {@link Board} finishes changing its tiles or scores.
+ * Notifications are delivered on the thread that changed the board, so listeners must be
+ * quick and must not assume they run on the Swing event dispatch thread.
+ */
+public interface BoardListener {
+    /**
+     * Called after a move, reset or high score reset has been applied to the board.
+     *
+     * @param board The board that changed.
+     */
+    void boardChanged(Board board);
+}
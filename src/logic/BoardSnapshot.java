@@ -0,0 +1,128 @@
+package logic;
+
+/**
+ * An immutable copy of everything a view shows of a {@link Board}: the tiles, the scores and whether
+ * the game is won or over. Taken with {@link Board#snapshot()} on the thread that changes the board,
+ * or published by the board after every change (see {@link Board#setSnapshotPublishing(boolean)}),
+ * a snapshot can be read by any thread without synchronization and is never torn.
+ */
+public final class BoardSnapshot {
+    /** The number of changes the board had gone through. */
+    private final long version;
+
+    /** The size of the board. */
+    private final int size;
+
+    /** The tile exponents, row-major; never modified after construction. */
+    private final byte[] cells;
+
+    /** The score. */
+    private final long score;
+
+    /** The high score. */
+    private final long highScore;
+
+    /** Whether any move is possible. */
+    private final boolean canMove;
+
+    /** Whether a tile of 2048 or more is on the board. */
+    private final boolean winConditionMet;
+
+    /**
+     * Constructs a new snapshot.
+     *
+     * @param version         The number of changes the board had gone through.
+     * @param size            The size of the board.
+     * @param cells           The tile exponents, row-major; the snapshot takes ownership of the array.
+     * @param score           The score.
+     * @param highScore       The high score.
+     * @param canMove         Whether any move is possible.
+     * @param winConditionMet Whether a tile of 2048 or more is on the board.
+     */
+    BoardSnapshot(long version, int size, byte[] cells, long score, long highScore, boolean canMove, boolean winConditionMet) {
+        this.version = version;
+        this.size = size;
+        this.cells = cells;
+        this.score = score;
+        this.highScore = highScore;
+        this.canMove = canMove;
+        this.winConditionMet = winConditionMet;
+    }
+
+    /**
+     * Gets the version of the snapshot: the number of changes the board had gone through when it was
+     * taken. A reader can compare versions to skip states it has already seen.
+     *
+     * @return The version.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the size of the board.
+     *
+     * @return The number of rows (and columns).
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the exponent of a tile.
+     *
+     * @param row The row of the cell.
+     * @param col The column of the cell.
+     * @return The exponent {@code e} of the tile {@code 2^e}, or 0 if the cell is empty.
+     */
+    public int getExponent(int row, int col) {
+        return cells[row * size + col] & 0xFF;
+    }
+
+    /**
+     * Copies the tile exponents into an array, row-major, in the layout of {@link Board#getExponents(byte[])}.
+     *
+     * @param target The array to fill, at least {@code size * size} long.
+     * @return The target array.
+     */
+    public byte[] getExponents(byte[] target) {
+        System.arraycopy(cells, 0, target, 0, cells.length);
+        return target;
+    }
+
+    /**
+     * Gets the score.
+     *
+     * @return The score of the game when the snapshot was taken.
+     */
+    public long getScore() {
+        return score;
+    }
+
+    /**
+     * Gets the high score.
+     *
+     * @return The high score when the snapshot was taken.
+     */
+    public long getHighScore() {
+        return highScore;
+    }
+
+    /**
+     * Checks if any move is possible.
+     *
+     * @return True if at least one move changes the board, false if the game is over.
+     */
+    public boolean canMove() {
+        return canMove;
+    }
+
+    /**
+     * Checks if the win condition (reaching the 2048 tile) is met.
+     *
+     * @return True if a tile of 2048 or more is on the board.
+     */
+    public boolean isWinConditionMet() {
+        return winConditionMet;
+    }
+}
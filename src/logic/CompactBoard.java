@@ -0,0 +1,243 @@
+package logic;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * A game board that stores its tiles as packed exponents instead of an {@code int[][]} grid.
+ * Moves on a compact board never allocate, so simulation and search code can drive millions
+ * of games without creating garbage. Use {@link #create(int, RandomGenerator)} to obtain the most
+ * compact implementation for a given board size, so callers never branch on the size themselves.
+ *
+ * <p>Every cell is a 4-bit exponent, so tiles stop at 2^{@value #MAX_EXPONENT} (32768) and two
+ * such tiles never merge, while a {@link Board} merges them. Games that get there, which takes
+ * long games on 5x5 and larger boards, may play on differently from the same game on a
+ * {@link Board}; {@link #isAtExponentCap()} tells when a board has reached that point, and the
+ * simulator reports how many games did.</p>
+ */
+public interface CompactBoard {
+    /**
+     * The largest exponent a cell can hold: tiles are capped at 2^15 (32768).
+     */
+    int MAX_EXPONENT = BitBoard.MAX_EXPONENT;
+
+    /**
+     * Creates a compact board of the given size with two initial tiles: a {@link BitBoard}
+     * for 4x4 and a {@link PackedBoard} for every other size. Tiles are capped at
+     * 2^{@value #MAX_EXPONENT} on both.
+     *
+     * @param size   The size of the game board.
+     * @param random The random number generator used for tile generation.
+     * @return The new board.
+     */
+    static CompactBoard create(int size, RandomGenerator random) {
+        if (size == BitBoard.SIZE) {
+            return new BitBoard(random);
+        }
+        return new PackedBoard(size, random);
+    }
+
+    /**
+     * Gets the size of the game board.
+     *
+     * @return The number of rows (and columns) of the board.
+     */
+    int getSize();
+
+    /**
+     * Gets the current score of the game.
+     *
+     * @return The current score.
+     */
+    int getScore();
+
+    /**
+     * Sets the current score of the game.
+     *
+     * @param score The new score.
+     */
+    void setScore(int score);
+
+    /**
+     * Gets the value of a single tile.
+     *
+     * @param row The row of the tile.
+     * @param col The column of the tile.
+     * @return The tile value, or 0 if the cell is empty.
+     */
+    int getTile(int row, int col);
+
+    /**
+     * Gets the exponent of a single cell.
+     *
+     * @param row The row of the cell.
+     * @param col The column of the cell.
+     * @return The exponent of the cell, or 0 if it is empty.
+     */
+    int getExponent(int row, int col);
+
+    /**
+     * Sets the exponent of a single cell.
+     *
+     * @param row      The row of the cell.
+     * @param col      The column of the cell.
+     * @param exponent The new exponent, or 0 to clear the cell.
+     */
+    void setExponent(int row, int col, int exponent);
+
+    /**
+     * Unpacks the board into a new 2D array of tile values, in the same layout as {@link Board#getGrid()}.
+     *
+     * @return A new array holding the tile values.
+     */
+    int[][] getGrid();
+
+    /**
+     * Moves the tiles to the left, merging and updating the score.
+     * Generates a new tile if any movement occurs.
+     *
+     * @return True if the board changed.
+     */
+    boolean moveLeft();
+
+    /**
+     * Moves the tiles to the right, merging and updating the score.
+     * Generates a new tile if any movement occurs.
+     *
+     * @return True if the board changed.
+     */
+    boolean moveRight();
+
+    /**
+     * Moves the tiles upwards, merging and updating the score.
+     * Generates a new tile if any movement occurs.
+     *
+     * @return True if the board changed.
+     */
+    boolean moveUp();
+
+    /**
+     * Moves the tiles downwards, merging and updating the score.
+     * Generates a new tile if any movement occurs.
+     *
+     * @return True if the board changed.
+     */
+    boolean moveDown();
+
+    /**
+     * Moves the tiles in the given direction, merging and updating the score.
+     * Generates a new tile if any movement occurs.
+     *
+     * @param direction The direction to move in.
+     * @return True if the board changed.
+     */
+    boolean move(Direction direction);
+
+    /**
+     * Moves the tiles in the given direction, merging and updating the score,
+     * but does not generate a new tile.
+     *
+     * @param direction The direction to move in.
+     * @return True if the board changed.
+     */
+    boolean slide(Direction direction);
+
+    /**
+     * Resets the game board by clearing the grid, resetting the score, and generating two initial tiles.
+     */
+    void reset();
+
+    /**
+     * Checks if the game board is full with no empty spaces.
+     *
+     * @return True if the board is full, false otherwise.
+     */
+    boolean isBoardFull();
+
+    /**
+     * Checks if the win condition is met, i.e. a tile of 2048 or more is on the board.
+     *
+     * @return True if the win condition is met, false otherwise.
+     */
+    boolean isWinConditionMet();
+
+    /**
+     * Checks if the game can still be moved.
+     *
+     * @return True if there is an empty cell or two equal neighbouring tiles.
+     */
+    boolean canMove();
+
+    /**
+     * Checks whether the board holds a tile of the largest exponent a cell can hold. From then on
+     * two such tiles refuse to merge, so the game may no longer match the same game on a {@link Board}.
+     *
+     * @return True if a 32768 tile is on the board.
+     */
+    default boolean isAtExponentCap() {
+        return maxExponent() >= MAX_EXPONENT;
+    }
+
+    /**
+     * Generates a new tile (2 or 4) in an empty spot on the game board, drawing the cell and then
+     * the value as described at {@link BitBoard#FOUR_PROBABILITY}.
+     */
+    void generateNewTile();
+
+    /**
+     * Counts the empty cells of the board.
+     *
+     * @return The number of empty cells.
+     */
+    int countEmpty();
+
+    /**
+     * Places a tile in the k-th empty cell, counting row by row from the top-left corner.
+     *
+     * @param k        The index of the empty cell, between 0 and {@code countEmpty() - 1}.
+     * @param exponent The exponent of the new tile (1 for a 2, 2 for a 4).
+     */
+    void placeTile(int k, int exponent);
+
+    /**
+     * Gets the cell of the most recently spawned or placed tile.
+     *
+     * @return The cell index ({@code row * size + col}), or -1 if no tile has been placed yet.
+     */
+    int getLastSpawnCell();
+
+    /**
+     * Gets the exponent of the most recently spawned or placed tile.
+     *
+     * @return The exponent (1 for a 2, 2 for a 4), or 0 if no tile has been placed yet.
+     */
+    int getLastSpawnExponent();
+
+    /**
+     * Finds the largest exponent on the board.
+     *
+     * @return The largest exponent, or 0 for an empty board.
+     */
+    int maxExponent();
+
+    /**
+     * Copies the tiles and score of another board of the same size into this one.
+     *
+     * @param other The board to copy from.
+     */
+    void copyFrom(CompactBoard other);
+
+    /**
+     * Creates an independent copy of this board that shares its random number generator.
+     *
+     * @return The copy.
+     */
+    CompactBoard copy();
+
+    /**
+     * Computes a 64-bit key for the tiles of the board, ignoring the score.
+     * For 4x4 boards the key is the packed board itself; larger boards hash their rows.
+     *
+     * @return The key of the current tiles.
+     */
+    long hashKey();
+}
@@ -0,0 +1,34 @@
+package logic;
+
+/**
+ * The four directions in which the tiles of a 2048 board can be moved.
+ */
+public enum Direction {
+    /** Moves the tiles towards the top row. */
+    UP,
+
+    /** Moves the tiles towards the bottom row. */
+    DOWN,
+
+    /** Moves the tiles towards the leftmost column. */
+    LEFT,
+
+    /** Moves the tiles towards the rightmost column. */
+    RIGHT;
+
+    /**
+     * Cached copy of {@link #values()}, so hot loops can look up a direction by ordinal
+     * without cloning the array on every call.
+     */
+    private static final Direction[] VALUES = values();
+
+    /**
+     * Gets the direction with the given ordinal.
+     *
+     * @param ordinal The ordinal of the direction (0 to 3).
+     * @return The direction with that ordinal.
+     */
+    public static Direction fromOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+}
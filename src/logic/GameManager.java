@@ -1,10 +1,18 @@
 package logic;
 
 import gui.GameFrame;
+import storage.AutoSaver;
+import storage.SaveGame;
+
+import javax.swing.SwingUtilities;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.nio.file.Paths;
 
 /**
- * Manages the game logic for the 2048 game, including the main game loop
- * and interactions with the user interface.
+ * Manages the game logic for the 2048 game and its interactions with the user interface.
+ * The game is event-driven: key presses are queued to a {@link MoveQueue}, which changes the board
+ * on its logic thread, and the frame repaints from the snapshots it publishes.
  */
 public class GameManager {
     /** The game board. */
@@ -18,30 +26,48 @@ public class GameManager {
 
     /**
      * Constructs a new GameManager with the specified grid size.
-     * Initializes the game board, graphical user interface, and score.
+     * Initializes the game board and score; the user interface is created by {@link #startGame()}.
      *
      * @param size The size of the game board (4 or 5).
      */
     public GameManager(int size) {
-        board = new Board(size);
-        gameFrame = new GameFrame(size, board);
+        this(new Board(size));
+    }
+
+    /**
+     * Constructs a new GameManager for an existing board, for example one resumed from a save game.
+     *
+     * @param board The game board.
+     */
+    public GameManager(Board board) {
+        this.board = board;
         score = 0;
     }
 
     /**
-     * Starts the main game loop and manages the game flow.
-     * The loop continues until the game is over.
+     * Starts the game by creating and showing the user interface on the event dispatch thread.
+     * Returns immediately; from then on the game is driven entirely by input events, and every
+     * change is saved in the background to {@link SaveGame#DEFAULT_FILE} so the game can be resumed.
+     * The undo history is saved as well when the window is closed.
      */
     public void startGame() {
-        boolean gameOver = false;
-
-        while (!gameOver) {
-            gameFrame.updateBoard(board.getGrid());
-        }
-        
-        if (board.isBoardFull()) {
-            gameOver = true;
-        }
+        AutoSaver autoSaver = new AutoSaver(Paths.get(SaveGame.DEFAULT_FILE), true);
+        board.addBoardListener(autoSaver);
+        autoSaver.save(board);
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                gameFrame = new GameFrame(board.getSize(), board);
+                gameFrame.setSubmitOnClose(false); // The saved game is resumed, not abandoned
+                gameFrame.addWindowListener(new WindowAdapter() {
+                    @Override
+                    public void windowClosing(WindowEvent e) {
+                        autoSaver.close(); // After the frame's own listener has stopped the logic thread
+                    }
+                });
+                gameFrame.updateUI();
+            }
+        });
     }
 
     /**
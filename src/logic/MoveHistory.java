@@ -0,0 +1,180 @@
+package logic;
+
+/**
+ * A fixed-capacity ring buffer of board states, used for undo and redo.
+ *
+ * <p>Each state is stored as one byte-sized exponent per cell, plus the score, all in preallocated
+ * primitive arrays. Recording, undoing and redoing a move copy one state and never allocate.
+ * When the buffer is full, recording a new state silently drops the oldest one.</p>
+ */
+public class MoveHistory {
+    /** The number of states the buffer holds, including the current one. */
+    private final int capacity;
+
+    /** The number of cells of the boards whose states are stored. */
+    private final int cellCount;
+
+    /** The states; slot {@code i} occupies {@code cellCount} bytes from {@code i * cellCount}. */
+    private final byte[] states;
+
+    /** The score of each slot. */
+    private final long[] scores;
+
+    /** The slot holding the current state. */
+    private int cursor;
+
+    /** The number of states before the current one that can be restored with {@link #undo}. */
+    private int undoable;
+
+    /** The number of states after the current one that can be restored with {@link #redo}. */
+    private int redoable;
+
+    /**
+     * Constructs a new, empty history.
+     *
+     * @param cellCount The number of cells of the boards whose states are stored.
+     * @param capacity  The number of states to keep, including the current one (at least 2).
+     */
+    public MoveHistory(int cellCount, int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("History must hold at least two states: " + capacity);
+        }
+        this.cellCount = cellCount;
+        this.capacity = capacity;
+        this.states = new byte[capacity * cellCount];
+        this.scores = new long[capacity];
+    }
+
+    /**
+     * Forgets all states and records the given one as the only state.
+     *
+     * @param cells The tile exponents of the board, row-major.
+     * @param score The score of the board.
+     */
+    public void clear(byte[] cells, long score) {
+        cursor = 0;
+        undoable = 0;
+        redoable = 0;
+        store(cursor, cells, score);
+    }
+
+    /**
+     * Records the state reached by a move. Any states that could have been redone are discarded.
+     *
+     * @param cells The tile exponents of the board after the move, row-major.
+     * @param score The score of the board after the move.
+     */
+    public void record(byte[] cells, long score) {
+        cursor = (cursor + 1) % capacity;
+        undoable = Math.min(undoable + 1, capacity - 1);
+        redoable = 0;
+        store(cursor, cells, score);
+    }
+
+    /**
+     * Checks whether a previous state is available.
+     *
+     * @return True if {@link #undo} can restore a state.
+     */
+    public boolean canUndo() {
+        return undoable > 0;
+    }
+
+    /**
+     * Checks whether an undone state is available.
+     *
+     * @return True if {@link #redo} can restore a state.
+     */
+    public boolean canRedo() {
+        return redoable > 0;
+    }
+
+    /**
+     * Gets the number of states before the current one.
+     *
+     * @return The number of moves that can be undone.
+     */
+    public int getUndoCount() {
+        return undoable;
+    }
+
+    /**
+     * Gets the number of undone states after the current one.
+     *
+     * @return The number of moves that can be redone.
+     */
+    public int getRedoCount() {
+        return redoable;
+    }
+
+    /**
+     * Copies a stored state without moving through the history.
+     *
+     * @param offset The position relative to the current state, from {@code -getUndoCount()} to {@code getRedoCount()}.
+     * @param cells  The tile exponents to overwrite.
+     * @return The score of the state.
+     * @throws IndexOutOfBoundsException If no state is stored at that offset.
+     */
+    public long peek(int offset, byte[] cells) {
+        if (offset < -undoable || offset > redoable) {
+            throw new IndexOutOfBoundsException("No state at offset " + offset);
+        }
+        return load(Math.floorMod(cursor + offset, capacity), cells);
+    }
+
+    /**
+     * Steps back to the previous state and writes its tiles into the given cells.
+     *
+     * @param cells The tile exponents to overwrite.
+     * @return The score of the restored state, or -1 if there is nothing to undo.
+     */
+    public long undo(byte[] cells) {
+        if (undoable == 0) {
+            return -1;
+        }
+        cursor = (cursor + capacity - 1) % capacity;
+        undoable--;
+        redoable++;
+        return load(cursor, cells);
+    }
+
+    /**
+     * Steps forward to the next undone state and writes its tiles into the given cells.
+     *
+     * @param cells The tile exponents to overwrite.
+     * @return The score of the restored state, or -1 if there is nothing to redo.
+     */
+    public long redo(byte[] cells) {
+        if (redoable == 0) {
+            return -1;
+        }
+        cursor = (cursor + 1) % capacity;
+        redoable--;
+        undoable++;
+        return load(cursor, cells);
+    }
+
+    /**
+     * Copies a state into a slot.
+     *
+     * @param slot  The slot index.
+     * @param cells The tile exponents.
+     * @param score The score.
+     */
+    private void store(int slot, byte[] cells, long score) {
+        System.arraycopy(cells, 0, states, slot * cellCount, cellCount);
+        scores[slot] = score;
+    }
+
+    /**
+     * Copies a slot back into the cells of a board.
+     *
+     * @param slot  The slot index.
+     * @param cells The tile exponents to overwrite.
+     * @return The score of the slot.
+     */
+    private long load(int slot, byte[] cells) {
+        System.arraycopy(states, slot * cellCount, cells, 0, cellCount);
+        return scores[slot];
+    }
+}
@@ -0,0 +1,145 @@
+package logic;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies the commands of a player to a {@link Board} on a dedicated logic thread, in order.
+ *
+ * <p>The input thread only {@linkplain #submit(Command) enqueues} a command, so a slow move, a
+ * leaderboard submission or a save game never holds up input handling. The queue turns on the
+ * board's {@linkplain Board#setSnapshotPublishing(boolean) snapshot publication}; a view listens to
+ * the board and reads the {@linkplain Board#getSnapshot() latest snapshot} whenever it renders, so
+ * any number of commands applied between two frames are coalesced into one. The queue is bounded: when the player
+ * presses keys faster than the game can keep up, further presses are rejected instead of piling
+ * up moves that would play out long after the keys were released.</p>
+ *
+ * <p>Once a queue is running, the board must only be changed through it.</p>
+ */
+public class MoveQueue implements AutoCloseable {
+    /**
+     * A command of the player.
+     */
+    public enum Command {
+        UP, DOWN, LEFT, RIGHT, UNDO, REDO, RESET
+    }
+
+    /**
+     * The default number of commands that can wait, a few frames' worth of key presses.
+     */
+    public static final int DEFAULT_CAPACITY = 4;
+
+    /**
+     * How long the logic thread waits for a command before checking whether the queue was closed, in milliseconds.
+     */
+    private static final long POLL_MILLIS = 100;
+
+    /** The board the commands are applied to. */
+    private final Board board;
+
+    /** The commands waiting to be applied. */
+    private final BlockingQueue<Command> commands;
+
+    /** The thread applying the commands. */
+    private final Thread worker;
+
+    /** Set once the queue is closed; no further commands are accepted. */
+    private volatile boolean closed;
+
+    /**
+     * Constructs a new move queue, turns on the board's snapshot publication and starts the logic thread.
+     * Must be called on the thread that has been changing the board so far.
+     *
+     * @param board    The board the commands are applied to.
+     * @param capacity The number of commands that can wait.
+     */
+    public MoveQueue(Board board, int capacity) {
+        this.board = board;
+        this.commands = new ArrayBlockingQueue<>(capacity);
+        board.setSnapshotPublishing(true);
+        worker = new Thread(this::run, "game-logic");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Enqueues a command. Never blocks.
+     *
+     * @param command The command.
+     * @return True if the command was accepted, false if the queue is full or closed.
+     */
+    public boolean submit(Command command) {
+        return !closed && commands.offer(command);
+    }
+
+    /**
+     * Stops accepting commands, applies the ones still waiting and waits for the logic thread to
+     * finish. Afterwards the board may again be changed directly on the calling thread.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Applies commands until the queue is closed and drained.
+     */
+    private void run() {
+        while (true) {
+            Command command;
+            try {
+                command = commands.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (command == null) {
+                if (closed) {
+                    return;
+                }
+                continue;
+            }
+            try {
+                apply(command);
+            } catch (RuntimeException e) {
+                e.printStackTrace(); // Keep playing from whatever state the board is in
+            }
+        }
+    }
+
+    /**
+     * Applies one command to the board.
+     *
+     * @param command The command.
+     */
+    private void apply(Command command) {
+        switch (command) {
+            case UP:
+                board.moveUp();
+                break;
+            case DOWN:
+                board.moveDown();
+                break;
+            case LEFT:
+                board.moveLeft();
+                break;
+            case RIGHT:
+                board.moveRight();
+                break;
+            case UNDO:
+                board.undo();
+                break;
+            case REDO:
+                board.redo();
+                break;
+            case RESET:
+                board.reset();
+                break;
+        }
+    }
+}
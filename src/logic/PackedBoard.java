@@ -0,0 +1,619 @@
+package logic;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * A compact game board for sizes other than 4x4 (typically 5x5), storing every row in its own
+ * {@code long} as 4-bit exponents. The cell in column {@code col} occupies bits {@code 4 * col} to
+ * {@code 4 * col + 3} of its row word, so rows of up to 16 cells fit in one word.
+ *
+ * <p>Moves are resolved row by row (or column by column, gathering one nibble from each row
+ * word). When a row is at most 20 bits wide, as on a 5x5 board, each line is resolved with a
+ * single lookup in a precomputed table shared by all boards of that size; wider rows fall back
+ * to sliding a scratch array. Either way, moves never allocate.</p>
+ *
+ * <p>As with {@link BitBoard}, tiles are capped at 2^15 (32768), see {@link CompactBoard}. Wider
+ * cells would not fit: a 16-cell row of 5-bit cells takes 80 bits, and a 5x5 lookup table 2^25 entries.</p>
+ */
+public class PackedBoard implements CompactBoard {
+    /**
+     * The largest supported board size; a row of 16 cells fills a whole {@code long}.
+     */
+    public static final int MAX_SIZE = 16;
+
+    /**
+     * The widest row, in bits, for which lookup tables are built (2^20 entries per table).
+     */
+    private static final int MAX_TABLE_BITS = 20;
+
+    /**
+     * Lookup tables per board size, built the first time a board of that size is created.
+     */
+    private static final RowTables[] TABLES = new RowTables[MAX_SIZE + 1];
+
+    /**
+     * The size of the game grid.
+     */
+    private final int size;
+
+    /**
+     * The packed rows of the board, top to bottom.
+     */
+    private final long[] rows;
+
+    /**
+     * Mask selecting the lowest bit of every cell of a row.
+     */
+    private final long rowLowBits;
+
+    /**
+     * Mask selecting the cells of a row that have a right-hand neighbour.
+     */
+    private final long rowPairLowBits;
+
+    /**
+     * The lookup tables for this board size, or null if rows are too wide for tables.
+     */
+    private final RowTables tables;
+
+    /**
+     * Scratch line used when rows are too wide for lookup tables.
+     */
+    private final int[] line;
+
+    /**
+     * Random number generator for tile generation.
+     */
+    private final RandomGenerator random;
+
+    /**
+     * The current score of the game.
+     */
+    private int score;
+
+    /**
+     * The cell of the most recently placed tile, or -1.
+     */
+    private int lastSpawnCell = -1;
+
+    /**
+     * The exponent of the most recently placed tile, or 0.
+     */
+    private int lastSpawnExponent;
+
+    /**
+     * Constructs a new packed board of the given size with two initial tiles.
+     *
+     * @param size   The size of the game board (2 to 16).
+     * @param random The random number generator used for tile generation.
+     */
+    public PackedBoard(int size, RandomGenerator random) {
+        if (size < 2 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("Unsupported board size: " + size);
+        }
+        this.size = size;
+        this.random = random;
+        rows = new long[size];
+        line = new int[size];
+        rowLowBits = size == MAX_SIZE ? 0x1111111111111111L : 0x1111111111111111L & ((1L << (4 * size)) - 1);
+        rowPairLowBits = rowLowBits >>> 4;
+        tables = 4 * size <= MAX_TABLE_BITS ? tablesFor(size) : null;
+        reset();
+    }
+
+    /**
+     * Constructs a copy of another packed board without consuming random numbers.
+     *
+     * @param source The board to copy.
+     */
+    private PackedBoard(PackedBoard source) {
+        size = source.size;
+        random = source.random;
+        rows = source.rows.clone();
+        line = new int[size];
+        rowLowBits = source.rowLowBits;
+        rowPairLowBits = source.rowPairLowBits;
+        tables = source.tables;
+        score = source.score;
+    }
+
+    /**
+     * Gets the size of the game board.
+     *
+     * @return The size of the game board.
+     */
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the current score of the game.
+     *
+     * @return The current score.
+     */
+    @Override
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Sets the current score of the game.
+     *
+     * @param score The new score.
+     */
+    @Override
+    public void setScore(int score) {
+        this.score = score;
+    }
+
+    /**
+     * Gets the packed word of a single row.
+     *
+     * @param row The row index.
+     * @return The packed row.
+     */
+    public long getRow(int row) {
+        return rows[row];
+    }
+
+    /**
+     * Replaces the packed word of a single row.
+     *
+     * @param row    The row index.
+     * @param packed The new packed row.
+     */
+    public void setRow(int row, long packed) {
+        rows[row] = packed;
+    }
+
+    /**
+     * Gets the value of a single tile.
+     *
+     * @param row The row of the tile.
+     * @param col The column of the tile.
+     * @return The tile value, or 0 if the cell is empty.
+     */
+    @Override
+    public int getTile(int row, int col) {
+        int exponent = getExponent(row, col);
+        return exponent == 0 ? 0 : 1 << exponent;
+    }
+
+    /**
+     * Gets the exponent of a single cell.
+     *
+     * @param row The row of the cell.
+     * @param col The column of the cell.
+     * @return The exponent of the cell, or 0 if it is empty.
+     */
+    @Override
+    public int getExponent(int row, int col) {
+        return (int) (rows[row] >>> (4 * col)) & 0xF;
+    }
+
+    /**
+     * Sets the exponent of a single cell.
+     *
+     * @param row      The row of the cell.
+     * @param col      The column of the cell.
+     * @param exponent The new exponent, or 0 to clear the cell.
+     */
+    @Override
+    public void setExponent(int row, int col, int exponent) {
+        int shift = 4 * col;
+        rows[row] = (rows[row] & ~(0xFL << shift)) | ((long) exponent << shift);
+    }
+
+    /**
+     * Unpacks the board into a new 2D array of tile values, in the same layout as {@link Board#getGrid()}.
+     *
+     * @return A new array holding the tile values.
+     */
+    @Override
+    public int[][] getGrid() {
+        int[][] grid = new int[size][size];
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                grid[row][col] = getTile(row, col);
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Moves the tiles to the left, merging and updating the score.
+     * Generates a new tile if any movement occurs.
+     *
+     * @return True if the board changed.
+     */
+    @Override
+    public boolean moveLeft() {
+        return move(Direction.LEFT);
+    }
+
+    /**
+     * Moves the tiles to the right, merging and updating the score.
+     * Generates a new tile if any movement occurs.
+     *
+     * @return True if the board changed.
+     */
+    @Override
+    public boolean moveRight() {
+        return move(Direction.RIGHT);
+    }
+
+    /**
+     * Moves the tiles upwards, merging and updating the score.
+     * Generates a new tile if any movement occurs.
+     *
+     * @return True if the board changed.
+     */
+    @Override
+    public boolean moveUp() {
+        return move(Direction.UP);
+    }
+
+    /**
+     * Moves the tiles downwards, merging and updating the score.
+     * Generates a new tile if any movement occurs.
+     *
+     * @return True if the board changed.
+     */
+    @Override
+    public boolean moveDown() {
+        return move(Direction.DOWN);
+    }
+
+    /**
+     * Moves the tiles in the given direction, merging and updating the score.
+     * Generates a new tile if any movement occurs.
+     *
+     * @param direction The direction to move in.
+     * @return True if the board changed.
+     */
+    @Override
+    public boolean move(Direction direction) {
+        if (!slide(direction)) {
+            return false;
+        }
+        generateNewTile();
+        return true;
+    }
+
+    /**
+     * Moves the tiles in the given direction, merging and updating the score,
+     * but does not generate a new tile.
+     *
+     * @param direction The direction to move in.
+     * @return True if the board changed.
+     */
+    @Override
+    public boolean slide(Direction direction) {
+        boolean towardsStart = direction == Direction.LEFT || direction == Direction.UP;
+        boolean moved = false;
+        if (direction == Direction.LEFT || direction == Direction.RIGHT) {
+            for (int row = 0; row < size; row++) {
+                long before = rows[row];
+                long after = slideLine(before, towardsStart);
+                if (after != before) {
+                    rows[row] = after;
+                    moved = true;
+                }
+            }
+        } else {
+            for (int col = 0; col < size; col++) {
+                long before = gatherColumn(col);
+                long after = slideLine(before, towardsStart);
+                if (after != before) {
+                    scatterColumn(col, after);
+                    moved = true;
+                }
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * Resets the game board by clearing the grid, resetting the score, and generating two initial tiles.
+     */
+    @Override
+    public void reset() {
+        for (int row = 0; row < size; row++) {
+            rows[row] = 0L;
+        }
+        score = 0;
+        generateNewTile();
+        generateNewTile();
+    }
+
+    /**
+     * Checks if the game board is full with no empty spaces.
+     *
+     * @return True if the board is full, false otherwise.
+     */
+    @Override
+    public boolean isBoardFull() {
+        for (int row = 0; row < size; row++) {
+            if ((BitBoard.emptyMask(rows[row]) & rowLowBits) != 0L) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if the win condition is met, i.e. a tile of 2048 or more is on the board.
+     *
+     * @return True if the win condition is met, false otherwise.
+     */
+    @Override
+    public boolean isWinConditionMet() {
+        return maxExponent() >= BitBoard.WIN_EXPONENT;
+    }
+
+    /**
+     * Checks if the game can still be moved.
+     *
+     * @return True if there is an empty cell or two equal neighbouring tiles.
+     */
+    @Override
+    public boolean canMove() {
+        for (int row = 0; row < size; row++) {
+            long packed = rows[row];
+            if ((BitBoard.emptyMask(packed) & rowLowBits) != 0L
+                    || (BitBoard.emptyMask(packed ^ (packed >>> 4)) & rowPairLowBits) != 0L) {
+                return true;
+            }
+            if (row < size - 1 && (BitBoard.emptyMask(packed ^ rows[row + 1]) & rowLowBits) != 0L) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Generates a new tile (2 or 4) in an empty spot on the game board.
+     */
+    @Override
+    public void generateNewTile() {
+        int empty = countEmpty();
+        if (empty > 0) {
+            int k = random.nextInt(empty); // The cell first, then the value, like Board
+            placeTile(k, random.nextInt(2) + 1);
+        }
+    }
+
+    /**
+     * Counts the empty cells of the board.
+     *
+     * @return The number of empty cells.
+     */
+    @Override
+    public int countEmpty() {
+        int empty = 0;
+        for (int row = 0; row < size; row++) {
+            empty += Long.bitCount(BitBoard.emptyMask(rows[row]) & rowLowBits);
+        }
+        return empty;
+    }
+
+    /**
+     * Places a tile in the k-th empty cell, counting row by row from the top-left corner.
+     *
+     * @param k        The index of the empty cell, between 0 and {@code countEmpty() - 1}.
+     * @param exponent The exponent of the new tile (1 for a 2, 2 for a 4).
+     */
+    @Override
+    public void placeTile(int k, int exponent) {
+        for (int row = 0; row < size; row++) {
+            long empty = BitBoard.emptyMask(rows[row]) & rowLowBits;
+            int count = Long.bitCount(empty);
+            if (k < count) {
+                for (int i = 0; i < k; i++) {
+                    empty &= empty - 1;
+                }
+                rows[row] |= Long.lowestOneBit(empty) * exponent;
+                lastSpawnCell = row * size + Long.numberOfTrailingZeros(empty) / 4;
+                lastSpawnExponent = exponent;
+                return;
+            }
+            k -= count;
+        }
+    }
+
+    /**
+     * Gets the cell of the most recently spawned or placed tile.
+     *
+     * @return The cell index ({@code row * size + col}), or -1 if no tile has been placed yet.
+     */
+    @Override
+    public int getLastSpawnCell() {
+        return lastSpawnCell;
+    }
+
+    /**
+     * Gets the exponent of the most recently spawned or placed tile.
+     *
+     * @return The exponent (1 for a 2, 2 for a 4), or 0 if no tile has been placed yet.
+     */
+    @Override
+    public int getLastSpawnExponent() {
+        return lastSpawnExponent;
+    }
+
+    /**
+     * Finds the largest exponent on the board.
+     *
+     * @return The largest exponent, or 0 for an empty board.
+     */
+    @Override
+    public int maxExponent() {
+        int max = 0;
+        for (int row = 0; row < size; row++) {
+            max = Math.max(max, BitBoard.maxExponent(rows[row]));
+        }
+        return max;
+    }
+
+    /**
+     * Copies the tiles and score of another board of the same size into this one.
+     *
+     * @param other The board to copy from.
+     */
+    @Override
+    public void copyFrom(CompactBoard other) {
+        PackedBoard source = (PackedBoard) other;
+        System.arraycopy(source.rows, 0, rows, 0, size);
+        score = source.score;
+    }
+
+    /**
+     * Creates an independent copy of this board that shares its random number generator.
+     *
+     * @return The copy.
+     */
+    @Override
+    public PackedBoard copy() {
+        return new PackedBoard(this);
+    }
+
+    /**
+     * Computes a 64-bit hash of the packed rows, ignoring the score.
+     *
+     * @return The key of the current tiles.
+     */
+    @Override
+    public long hashKey() {
+        long hash = size;
+        for (int row = 0; row < size; row++) {
+            hash = Long.rotateLeft(hash * 0x9E3779B97F4A7C15L, 31) ^ rows[row];
+        }
+        // Final avalanche (the mixing step of SplitMix64)
+        hash = (hash ^ (hash >>> 30)) * 0xBF58476D1CE4E5B9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94D049BB133111EBL;
+        return hash ^ (hash >>> 31);
+    }
+
+    /**
+     * Slides and merges one packed line, adding the merge gain to the score.
+     *
+     * @param packed       The packed line, index 0 in the lowest nibble.
+     * @param towardsStart True to slide towards index 0, false to slide towards the last index.
+     * @return The packed line after the slide.
+     */
+    private long slideLine(long packed, boolean towardsStart) {
+        if (tables != null) {
+            int index = (int) packed;
+            score += tables.score[index];
+            return towardsStart ? tables.left[index] : tables.right[index];
+        }
+        for (int i = 0; i < size; i++) {
+            int cell = towardsStart ? i : size - 1 - i;
+            line[i] = (int) (packed >>> (4 * cell)) & 0xF;
+        }
+        score += BitBoard.slideLine(line, size);
+        long result = 0L;
+        for (int i = 0; i < size; i++) {
+            int cell = towardsStart ? i : size - 1 - i;
+            result |= (long) line[i] << (4 * cell);
+        }
+        return result;
+    }
+
+    /**
+     * Collects one column into a packed line, top row in the lowest nibble.
+     *
+     * @param col The column index.
+     * @return The packed column.
+     */
+    private long gatherColumn(int col) {
+        int shift = 4 * col;
+        long packed = 0L;
+        for (int row = 0; row < size; row++) {
+            packed |= ((rows[row] >>> shift) & 0xFL) << (4 * row);
+        }
+        return packed;
+    }
+
+    /**
+     * Writes a packed line back into one column.
+     *
+     * @param col    The column index.
+     * @param packed The packed column, top row in the lowest nibble.
+     */
+    private void scatterColumn(int col, long packed) {
+        int shift = 4 * col;
+        long clear = ~(0xFL << shift);
+        for (int row = 0; row < size; row++) {
+            rows[row] = (rows[row] & clear) | (((packed >>> (4 * row)) & 0xFL) << shift);
+        }
+    }
+
+    /**
+     * Gets the lookup tables for the given size, building them on first use.
+     *
+     * @param size The board size.
+     * @return The lookup tables.
+     */
+    private static synchronized RowTables tablesFor(int size) {
+        if (TABLES[size] == null) {
+            TABLES[size] = new RowTables(size);
+        }
+        return TABLES[size];
+    }
+
+    /**
+     * Precomputed results of sliding every possible line of one width.
+     */
+    private static final class RowTables {
+        /** Result of sliding each line towards index 0. */
+        final int[] left;
+
+        /** Result of sliding each line towards the last index. */
+        final int[] right;
+
+        /** Score gained by sliding each line; the same in both directions. */
+        final int[] score;
+
+        /**
+         * Builds the tables for lines of the given number of cells.
+         *
+         * @param size The number of cells per line.
+         */
+        RowTables(int size) {
+            int entries = 1 << (4 * size);
+            left = new int[entries];
+            right = new int[entries];
+            score = new int[entries];
+            int[] line = new int[size];
+            for (int packed = 0; packed < entries; packed++) {
+                for (int i = 0; i < size; i++) {
+                    line[i] = (packed >>> (4 * i)) & 0xF;
+                }
+                score[packed] = BitBoard.slideLine(line, size);
+                int moved = 0;
+                for (int i = 0; i < size; i++) {
+                    moved |= line[i] << (4 * i);
+                }
+                left[packed] = moved;
+                right[reverse(packed, size)] = reverse(moved, size);
+            }
+        }
+
+        /**
+         * Reverses the order of the cells of a packed line.
+         *
+         * @param packed The packed line.
+         * @param size   The number of cells per line.
+         * @return The reversed line.
+         */
+        private static int reverse(int packed, int size) {
+            int reversed = 0;
+            for (int i = 0; i < size; i++) {
+                reversed |= ((packed >>> (4 * i)) & 0xF) << (4 * (size - 1 - i));
+            }
+            return reversed;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package logic;
+
+/**
+ * The four positions a {@link Board} can move to, with their score gains and legality, before any tile spawns.
+ *
+ * <p>Filled by {@link Board#successors(Successors)} in a single pass: every row is compacted once and
+ * the compacted tiles are merged towards both ends, giving the left and right successors together,
+ * and every column likewise gives the up and down successors. Computing them spawns no tile, records
+ * no history, submits nothing to the leaderboard and notifies no listener, so search code can expand
+ * a position as often as it likes. An instance owns all its buffers and is meant to be reused; it is
+ * not thread-safe.</p>
+ */
+public class Successors {
+    /** The size of the boards whose successors are stored. */
+    private final int size;
+
+    /** The tile exponents of each successor, row-major, indexed by {@link Direction} ordinal. */
+    private final byte[][] cells = new byte[4][];
+
+    /** The score gained by each move, indexed by {@link Direction} ordinal. */
+    private final long[] gains = new long[4];
+
+    /** Bitmask of the moves that change the board (bit {@code Direction.ordinal()}). */
+    private int legalMoves;
+
+    /** Scratch buffer for the tiles of one line, compacted towards its start. */
+    private final int[] line;
+
+    /**
+     * Constructs successor storage for boards of the given size.
+     *
+     * @param size The size of the boards, between {@link Board#MIN_SIZE} and {@link Board#MAX_SIZE}.
+     */
+    public Successors(int size) {
+        this.size = size;
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = new byte[size * size];
+        }
+        line = new int[size];
+    }
+
+    /**
+     * Gets the size of the boards whose successors are stored.
+     *
+     * @return The board size.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the legal moves as a bitmask.
+     *
+     * @return A bitmask with bit {@code direction.ordinal()} set for every direction that changes the board.
+     */
+    public int getLegalMoves() {
+        return legalMoves;
+    }
+
+    /**
+     * Checks if a move changes the board.
+     *
+     * @param direction The direction of the move.
+     * @return True if the move is legal.
+     */
+    public boolean isLegal(Direction direction) {
+        return (legalMoves & (1 << direction.ordinal())) != 0;
+    }
+
+    /**
+     * Gets the score a move gains.
+     *
+     * @param direction The direction of the move.
+     * @return The sum of the merged tiles, 0 for a move without merges.
+     */
+    public long getGain(Direction direction) {
+        return gains[direction.ordinal()];
+    }
+
+    /**
+     * Gets the exponent of a tile of a successor.
+     *
+     * @param direction The direction of the move.
+     * @param row       The row of the cell.
+     * @param col       The column of the cell.
+     * @return The exponent {@code e} of the tile {@code 2^e}, or 0 if the cell is empty.
+     */
+    public int getExponent(Direction direction, int row, int col) {
+        return cells[direction.ordinal()][row * size + col] & 0xFF;
+    }
+
+    /**
+     * Gets the tile exponents of a successor, row-major, in the layout of {@link Board#getExponents(byte[])}.
+     * The array is overwritten by the next computation and must not be modified.
+     *
+     * @param direction The direction of the move.
+     * @return The exponents of the position after the move, before a tile spawns.
+     */
+    public byte[] getExponents(Direction direction) {
+        return cells[direction.ordinal()];
+    }
+
+    /**
+     * Computes all four successors of a position.
+     *
+     * @param source The tile exponents of the position, row-major.
+     */
+    void compute(byte[] source) {
+        int up = Direction.UP.ordinal();
+        int down = Direction.DOWN.ordinal();
+        int left = Direction.LEFT.ordinal();
+        int right = Direction.RIGHT.ordinal();
+        gains[up] = 0;
+        gains[down] = 0;
+        gains[left] = 0;
+        gains[right] = 0;
+        legalMoves = 0;
+        for (int index = 0; index < size; index++) {
+            int rowStart = index * size;
+            int count = compact(source, rowStart, 1);
+            merge(source, count, left, rowStart, 1);
+            merge(source, count, right, rowStart + size - 1, -1);
+            count = compact(source, index, size);
+            merge(source, count, up, index, size);
+            merge(source, count, down, index + (size - 1) * size, -size);
+        }
+    }
+
+    /**
+     * Copies the tiles of one line into {@link #line}, without the empty cells.
+     *
+     * @param source The tile exponents of the position.
+     * @param start  The first cell of the line.
+     * @param step   The distance between two cells of the line.
+     * @return The number of tiles in the line.
+     */
+    private int compact(byte[] source, int start, int step) {
+        int count = 0;
+        for (int i = 0, cell = start; i < size; i++, cell += step) {
+            int exponent = source[cell] & 0xFF;
+            if (exponent != 0) {
+                line[count++] = exponent;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Merges the compacted tiles of a line towards one end and writes the result into a successor,
+     * by the same rules as {@link Board#move(Direction)}: each tile merges with the last tile placed
+     * if both are equal, unless that tile is itself the result of a merge in this move.
+     *
+     * @param source    The tile exponents of the position, to tell whether the line changed.
+     * @param count     The number of tiles in {@link #line}.
+     * @param direction The ordinal of the move.
+     * @param start     The cell at the end the tiles move towards.
+     * @param step      The distance from one cell of the line to the next, away from that end.
+     */
+    private void merge(byte[] source, int count, int direction, int start, int step) {
+        byte[] target = cells[direction];
+        boolean forward = step == 1 || step == size;
+        int write = start;
+        int placed = 0;
+        int top = 0;
+        long gain = 0;
+        boolean changed = false;
+        boolean mergeable = false;
+        for (int i = 0; i < count; i++) {
+            int exponent = line[forward ? i : count - 1 - i];
+            if (mergeable && exponent == top && top < Board.MAX_EXPONENT) {
+                // Merge with the last tile placed
+                top++;
+                mergeable = false;
+                target[write - step] = (byte) top;
+                gain = Board.saturatedAdd(gain, Board.tileValue(top));
+                changed = true;
+            } else {
+                changed |= source[write] != (byte) exponent;
+                target[write] = (byte) exponent;
+                top = exponent;
+                mergeable = true;
+                write += step;
+                placed++;
+            }
+        }
+        for (int i = placed; i < size; i++, write += step) {
+            changed |= source[write] != 0;
+            target[write] = 0;
+        }
+        if (changed) {
+            legalMoves |= 1 << direction;
+        }
+        gains[direction] = Board.saturatedAdd(gains[direction], gain);
+    }
+}
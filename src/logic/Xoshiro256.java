@@ -0,0 +1,159 @@
+package logic;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.random.RandomGenerator;
+
+/**
+ * A small, fast xoshiro256++ random number generator for tile spawns and simulated play.
+ *
+ * <p>Unlike {@link java.util.Random} it carries no synchronization, and it can be reseeded in
+ * place, so a simulation worker can start every game from a fresh seed without allocating.
+ * {@link #gameSeed(long, long)} derives the seed of each game from a master seed and the game
+ * number alone, which makes a batch reproducible bit for bit no matter how many threads play it
+ * or which thread plays which game.</p>
+ *
+ * <p>Instances are not thread-safe; use {@link #split()} to give every thread its own generator.</p>
+ */
+public final class Xoshiro256 implements RandomGenerator {
+    /**
+     * The golden-ratio increment of the SplitMix64 sequence used for seeding.
+     */
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Distinguishes generators created in the same clock tick.
+     */
+    private static final AtomicLong SEED_SEQUENCE = new AtomicLong();
+
+    /**
+     * The four words of generator state; never all zero.
+     */
+    private long s0, s1, s2, s3;
+
+    /**
+     * Constructs a generator with a seed drawn from the system clock and a global counter.
+     */
+    public Xoshiro256() {
+        this(mix(System.nanoTime()) ^ mix(SEED_SEQUENCE.getAndAdd(GOLDEN_GAMMA)));
+    }
+
+    /**
+     * Constructs a generator from a 64-bit seed. Equal seeds produce equal sequences.
+     *
+     * @param seed The seed.
+     */
+    public Xoshiro256(long seed) {
+        reseed(seed);
+    }
+
+    /**
+     * Resets the generator to the state it would have if it had just been constructed with the given seed.
+     * The four state words are expanded from the seed with SplitMix64, so that similar seeds give unrelated sequences.
+     *
+     * @param seed The new seed.
+     */
+    public void reseed(long seed) {
+        s0 = mix(seed += GOLDEN_GAMMA);
+        s1 = mix(seed += GOLDEN_GAMMA);
+        s2 = mix(seed += GOLDEN_GAMMA);
+        s3 = mix(seed + GOLDEN_GAMMA);
+    }
+
+    /**
+     * Copies the four words of generator state, for example to save a game mid-sequence.
+     *
+     * @param target The array to fill, at least four long.
+     * @return The target array.
+     */
+    public long[] getState(long[] target) {
+        target[0] = s0;
+        target[1] = s1;
+        target[2] = s2;
+        target[3] = s3;
+        return target;
+    }
+
+    /**
+     * Restores a state taken with {@link #getState(long[])}; the generator continues exactly where that one stood.
+     *
+     * @param state The four words of generator state, not all zero.
+     * @throws IllegalArgumentException If all four words are zero, which xoshiro256 can never leave.
+     */
+    public void setState(long[] state) {
+        if ((state[0] | state[1] | state[2] | state[3]) == 0L) {
+            throw new IllegalArgumentException("The generator state must not be all zero");
+        }
+        s0 = state[0];
+        s1 = state[1];
+        s2 = state[2];
+        s3 = state[3];
+    }
+
+    /**
+     * Creates a new generator seeded from this one, for use on another thread.
+     * This generator advances by one step.
+     *
+     * @return The new, independent generator.
+     */
+    public Xoshiro256 split() {
+        return new Xoshiro256(nextLong());
+    }
+
+    @Override
+    public long nextLong() {
+        long result = Long.rotateLeft(s0 + s3, 23) + s0;
+        long t = s1 << 17;
+        s2 ^= s0;
+        s3 ^= s1;
+        s1 ^= s2;
+        s0 ^= s3;
+        s2 ^= t;
+        s3 = Long.rotateLeft(s3, 45);
+        return result;
+    }
+
+    @Override
+    public int nextInt() {
+        return (int) (nextLong() >>> 32);
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("Bound must be positive: " + bound);
+        }
+        // Lemire's multiply-and-shift, rejecting the few values that would bias the result
+        long product = (nextLong() >>> 32) * bound;
+        if ((product & 0xFFFFFFFFL) < bound) {
+            long threshold = (0x100000000L - bound) % bound;
+            while ((product & 0xFFFFFFFFL) < threshold) {
+                product = (nextLong() >>> 32) * bound;
+            }
+        }
+        return (int) (product >>> 32);
+    }
+
+    /**
+     * Derives the seed of one game of a batch. The result depends only on the master seed and the
+     * game number, so a batch can be split over any number of threads and still replay identically.
+     *
+     * @param masterSeed The seed of the whole batch.
+     * @param game       The number of the game within the batch.
+     * @return The seed of that game.
+     */
+    public static long gameSeed(long masterSeed, long game) {
+        return mix(masterSeed ^ mix(game * GOLDEN_GAMMA + GOLDEN_GAMMA));
+    }
+
+    /**
+     * The SplitMix64 finalizer: a bijective mix of all 64 bits.
+     *
+     * @param z The value to mix.
+     * @return The mixed value.
+     */
+    public static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
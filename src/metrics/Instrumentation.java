@@ -0,0 +1,123 @@
+package metrics;
+
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Process-wide latency histograms for the hot paths of the game, plus snapshot dumps.
+ *
+ * <p>Call sites take a timestamp with {@link #start()} and hand it back to
+ * {@link #record(Operation, long)} when the operation completes; the cost is two
+ * {@link System#nanoTime()} calls and a few atomic increments. Running with
+ * {@code -Dgame2048.metrics=false} turns both calls into constants the JIT removes.</p>
+ *
+ * <p>The same call sites emit Flight Recorder events ({@link MoveEvent}, {@link SpawnEvent},
+ * {@link PersistEvent}, {@link RenderEvent}), which cost nothing unless a recording is running,
+ * for example one started with {@code -XX:StartFlightRecording}. {@link #dumpSnapshot(Path)}
+ * writes the histograms and, if a recording is running, the recorded events to files.</p>
+ */
+public final class Instrumentation {
+    /**
+     * Whether latencies are recorded; set {@code -Dgame2048.metrics=false} to turn it off.
+     */
+    public static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("game2048.metrics"));
+
+    /** The histograms by {@link Operation} ordinal. */
+    private static final LatencyHistogram[] HISTOGRAMS = new LatencyHistogram[Operation.values().length];
+
+    static {
+        for (int i = 0; i < HISTOGRAMS.length; i++) {
+            HISTOGRAMS[i] = new LatencyHistogram();
+        }
+    }
+
+    /** Formats the timestamps in snapshot file names. */
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS", Locale.ROOT);
+
+    private Instrumentation() {
+    }
+
+    /**
+     * Takes the start timestamp of an operation.
+     *
+     * @return The current {@link System#nanoTime()}, or 0 if instrumentation is disabled.
+     */
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Records the latency of a completed operation.
+     *
+     * @param operation The operation.
+     * @param start     The timestamp {@link #start()} returned when the operation began.
+     */
+    public static void record(Operation operation, long start) {
+        if (ENABLED) {
+            HISTOGRAMS[operation.ordinal()].record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Gets the histogram of an operation.
+     *
+     * @param operation The operation.
+     * @return The histogram of its latencies.
+     */
+    public static LatencyHistogram histogram(Operation operation) {
+        return HISTOGRAMS[operation.ordinal()];
+    }
+
+    /**
+     * Renders all histograms as a JSON object keyed by lower-case operation name.
+     *
+     * @return The JSON object.
+     */
+    public static String toJson() {
+        StringBuilder json = new StringBuilder("{");
+        for (Operation operation : Operation.values()) {
+            if (operation.ordinal() > 0) {
+                json.append(',');
+            }
+            json.append('"').append(operation.name().toLowerCase(Locale.ROOT)).append("\":")
+                    .append(histogram(operation).toJson());
+        }
+        return json.append('}').toString();
+    }
+
+    /**
+     * Writes a snapshot of the histograms to {@code metrics-<time>.json} in the given directory and,
+     * if a Flight Recorder recording is running, the events recorded so far to {@code flight-<time>.jfr}.
+     * Does not start Flight Recorder if it is not already running.
+     *
+     * @param directory The directory to write to.
+     * @return The files written.
+     * @throws IOException If a file cannot be written.
+     */
+    public static List<Path> dumpSnapshot(Path directory) throws IOException {
+        String time = LocalDateTime.now().format(FILE_TIME);
+        List<Path> files = new ArrayList<>(2);
+        Path metrics = directory.resolve("metrics-" + time + ".json");
+        Files.write(metrics, toJson().getBytes(StandardCharsets.UTF_8));
+        files.add(metrics);
+        if (FlightRecorder.isAvailable() && FlightRecorder.isInitialized()
+                && !FlightRecorder.getFlightRecorder().getRecordings().isEmpty()) {
+            Path flight = directory.resolve("flight-" + time + ".jfr");
+            try (Recording snapshot = FlightRecorder.getFlightRecorder().takeSnapshot()) {
+                snapshot.dump(flight);
+            }
+            files.add(flight);
+        }
+        return files;
+    }
+}
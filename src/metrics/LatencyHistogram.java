@@ -0,0 +1,152 @@
+package metrics;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of latencies with logarithmic buckets.
+ *
+ * <p>Every power of two of nanoseconds is split into four buckets, so recording is a couple of
+ * bit operations and three counter increments, and a percentile is reported to within 25% whether
+ * the latencies are tens of nanoseconds (a move) or hundreds of milliseconds (a disk write).
+ * Percentiles are reported as the upper bound of the bucket they fall into.</p>
+ *
+ * <p>Similar latencies all land in the same bucket, so every counter is a {@link LongAdder}: threads
+ * recording at once spread over striped cells instead of contending on one cache line, and the
+ * stripes are only summed when the histogram is read.</p>
+ */
+public class LatencyHistogram {
+    /** The number of sub-buckets per power of two, as a power of two. */
+    private static final int SUB_BITS = 2;
+
+    /** The number of sub-buckets per power of two. */
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    /** The number of buckets: enough for any non-negative long. */
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    /** The number of latencies per bucket. */
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+    /** The number of latencies recorded. */
+    private final LongAdder count = new LongAdder();
+
+    /** The sum of all latencies, in nanoseconds. */
+    private final LongAdder totalNanos = new LongAdder();
+
+    /**
+     * Constructs an empty histogram.
+     */
+    public LatencyHistogram() {
+        for (int b = 0; b < BUCKETS; b++) {
+            buckets[b] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records one latency.
+     *
+     * @param nanos The latency in nanoseconds.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets[bucketOf(value)].increment();
+        count.increment();
+        totalNanos.add(value);
+    }
+
+    /**
+     * Finds the bucket of a latency.
+     *
+     * @param nanos The latency in nanoseconds, not negative.
+     * @return The bucket index.
+     */
+    private static int bucketOf(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) nanos;
+        }
+        int highestBit = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (highestBit - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (highestBit - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Gets the exclusive upper bound of a bucket.
+     *
+     * @param bucket The bucket index.
+     * @return The smallest latency, in nanoseconds, that falls into a later bucket.
+     */
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket + 1;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        long bound = (SUB_BUCKETS + sub + 1) << shift;
+        return bound > 0 ? bound : Long.MAX_VALUE; // The last bucket ends past the range of a long
+    }
+
+    /**
+     * Gets the number of latencies recorded.
+     *
+     * @return The number of latencies.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Gets the sum of all latencies recorded.
+     *
+     * @return The total in nanoseconds.
+     */
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    /**
+     * Gets the mean latency.
+     *
+     * @return The mean latency in nanoseconds, or 0 if nothing was recorded.
+     */
+    public double getMeanNanos() {
+        long n = count.sum();
+        return n == 0 ? 0.0 : (double) totalNanos.sum() / n;
+    }
+
+    /**
+     * Estimates a percentile of the recorded latencies.
+     *
+     * @param percentile The percentile, between 0 and 100.
+     * @return The upper bound of the bucket holding that percentile, in nanoseconds, or 0 if nothing was recorded.
+     */
+    public long getPercentileNanos(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            snapshot[b] = buckets[b].sum();
+            total += snapshot[b];
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += snapshot[b];
+            if (seen >= rank) {
+                return upperBoundOf(b);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Renders the histogram summary as a JSON object.
+     *
+     * @return The JSON object with the count, mean and p50/p90/p99/p999 in microseconds.
+     */
+    public String toJson() {
+        return String.format(Locale.ROOT,
+                "{\"count\":%d,\"meanMicros\":%.3f,\"p50Micros\":%.3f,\"p90Micros\":%.3f,\"p99Micros\":%.3f,\"p999Micros\":%.3f}",
+                getCount(), getMeanNanos() / 1000.0, getPercentileNanos(50) / 1000.0, getPercentileNanos(90) / 1000.0,
+                getPercentileNanos(99) / 1000.0, getPercentileNanos(99.9) / 1000.0);
+    }
+}
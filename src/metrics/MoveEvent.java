@@ -0,0 +1,31 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for one player move on a {@code Board}.
+ */
+@Name("game2048.Move")
+@Label("Move")
+@Category({"2048", "Logic"})
+@Description("A player move, including merging and spawning the next tile")
+public class MoveEvent extends jdk.jfr.Event {
+    /** The direction of the move. */
+    @Label("Direction")
+    public String direction;
+
+    /** Whether the move changed the board. */
+    @Label("Moved")
+    public boolean moved;
+
+    /** The score after the move. */
+    @Label("Score")
+    public long score;
+
+    /** The number of empty cells after the move. */
+    @Label("Empty Cells")
+    public int emptyCells;
+}
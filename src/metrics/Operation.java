@@ -0,0 +1,24 @@
+package metrics;
+
+/**
+ * The operations whose latency {@link Instrumentation} tracks, one histogram each.
+ */
+public enum Operation {
+    /** A complete player move on a {@code Board}, including the spawn that follows it. */
+    MOVE,
+
+    /** Placing a new tile after a move or reset. */
+    SPAWN,
+
+    /** Handing a finished game to the leaderboard, which only updates memory. */
+    SUBMIT,
+
+    /** Writing to disk: leaderboard appends and compaction. */
+    PERSIST,
+
+    /** Refreshing the labels and tile values of the window after a change. */
+    UI_UPDATE,
+
+    /** Painting the board component. */
+    PAINT
+}
@@ -0,0 +1,29 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for a write to disk.
+ */
+@Name("game2048.Persist")
+@Label("Persist")
+@Category({"2048", "Storage"})
+@Description("Records written to a game file")
+public class PersistEvent extends jdk.jfr.Event {
+    /** The file written to. */
+    @Label("File")
+    public String file;
+
+    /** The number of records written. */
+    @Label("Records")
+    public int records;
+
+    /** The number of bytes written. */
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+}
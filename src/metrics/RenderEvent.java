@@ -0,0 +1,23 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for updating or painting the game window on the event dispatch thread.
+ */
+@Name("game2048.Render")
+@Label("Render")
+@Category({"2048", "Swing"})
+@Description("Work done on the event dispatch thread to show the board")
+public class RenderEvent extends jdk.jfr.Event {
+    /** The rendering phase: {@code update} or {@code paint}. */
+    @Label("Phase")
+    public String phase;
+
+    /** The number of cells whose value changed (update) or that were repainted (paint). */
+    @Label("Cells")
+    public int cells;
+}
@@ -0,0 +1,23 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for placing a new tile.
+ */
+@Name("game2048.Spawn")
+@Label("Spawn")
+@Category({"2048", "Logic"})
+@Description("A new tile placed in an empty cell")
+public class SpawnEvent extends jdk.jfr.Event {
+    /** The value of the new tile, or 0 if the board was full. */
+    @Label("Value")
+    public int value;
+
+    /** The number of empty cells before the spawn. */
+    @Label("Empty Cells")
+    public int emptyCells;
+}
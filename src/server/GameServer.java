@@ -0,0 +1,389 @@
+package server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import logic.Direction;
+import metrics.Instrumentation;
+import metrics.LatencyHistogram;
+import storage.LeaderboardEntry;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Hosts many concurrent games behind a small HTTP/JSON protocol.
+ *
+ * <pre>
+ * POST   /games?size=4&amp;player=name  start a new game, returns its state including the session id
+ * GET    /games/{id}                 the current state
+ * POST   /games/{id}/{action}        up, down, left, right, undo or restart; returns the new state;
+ *                                    an undo makes the game unranked, off the leaderboard, until it restarts
+ * DELETE /games/{id}                 end the game
+ * GET    /leaderboard?size=4         the best scores for a board size
+ * GET    /metrics                    session counts and per-request and per-operation latency percentiles
+ * </pre>
+ *
+ * <p>The protocol has no way to write files on the server; a Flight Recorder recording of a
+ * running server is dumped locally with {@code jcmd <pid> JFR.dump}.</p>
+ *
+ * <p>Every request runs on its own virtual thread when the runtime supports them (Java 21 and
+ * later) and on a cached thread pool otherwise. The sessions live in a {@link SessionRegistry},
+ * which evicts games that stay idle for too long.</p>
+ */
+public class GameServer implements AutoCloseable {
+    /** The smallest board size a client may ask for. */
+    public static final int MIN_SIZE = 2;
+
+    /** The largest board size a client may ask for. */
+    public static final int MAX_SIZE = 16;
+
+    /** The number of entries returned by {@code /leaderboard}. */
+    public static final int LEADERBOARD_LIMIT = 10;
+
+    /** The underlying HTTP server. */
+    private final HttpServer http;
+
+    /** The threads the requests run on. */
+    private final ExecutorService executor;
+
+    /** The live game sessions. */
+    private final SessionRegistry sessions;
+
+    /** Latencies of requests that start a game. */
+    private final LatencyHistogram createLatency = new LatencyHistogram();
+
+    /** Latencies of requests that play a move, undo or restart. */
+    private final LatencyHistogram moveLatency = new LatencyHistogram();
+
+    /** Latencies of requests that read the state of a game. */
+    private final LatencyHistogram stateLatency = new LatencyHistogram();
+
+    /** Latencies of requests that end a game. */
+    private final LatencyHistogram deleteLatency = new LatencyHistogram();
+
+    /**
+     * Constructs a server bound to the given address. Call {@link #start()} to begin serving.
+     *
+     * @param address  The address to listen on.
+     * @param sessions The registry holding the game sessions.
+     * @throws IOException If the address cannot be bound.
+     */
+    public GameServer(InetSocketAddress address, SessionRegistry sessions) throws IOException {
+        this.sessions = sessions;
+        executor = newRequestExecutor();
+        http = HttpServer.create(address, 1024);
+        http.setExecutor(executor);
+        http.createContext("/games", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                handleGames(exchange);
+            }
+        });
+        http.createContext("/leaderboard", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                long start = System.nanoTime();
+                int size = parseSize(queryParameter(exchange, "size"));
+                if (size < 0) {
+                    sendError(exchange, 400, "Size must be between " + MIN_SIZE + " and " + MAX_SIZE);
+                } else {
+                    send(exchange, 200, leaderboardJson(size));
+                }
+                stateLatency.record(System.nanoTime() - start);
+            }
+        });
+        http.createContext("/metrics", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                send(exchange, 200, metricsJson());
+            }
+        });
+    }
+
+    /**
+     * Creates the executor requests run on: one virtual thread per request if the runtime has
+     * {@code Executors.newVirtualThreadPerTaskExecutor()}, otherwise a cached pool of platform threads.
+     *
+     * @return The executor.
+     */
+    static ExecutorService newRequestExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(); // Virtual threads need Java 21
+        }
+    }
+
+    /**
+     * Starts serving requests in the background.
+     */
+    public void start() {
+        http.start();
+    }
+
+    /**
+     * Gets the address the server listens on, including the actual port if it was bound to port 0.
+     *
+     * @return The address.
+     */
+    public InetSocketAddress getAddress() {
+        return http.getAddress();
+    }
+
+    /**
+     * Stops accepting requests, waits briefly for the running ones and ends all sessions.
+     */
+    @Override
+    public void close() {
+        http.stop(1);
+        executor.shutdownNow();
+        sessions.close();
+    }
+
+    /**
+     * Routes a request below {@code /games} and records its latency.
+     *
+     * @param exchange The request.
+     * @throws IOException If the response cannot be written.
+     */
+    private void handleGames(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        String method = exchange.getRequestMethod();
+        String[] path = exchange.getRequestURI().getPath().split("/");
+        // path[0] is empty and path[1] is "games"
+        LatencyHistogram latency;
+        if (path.length == 2 && method.equals("POST")) {
+            latency = createLatency;
+            handleCreate(exchange);
+        } else if (path.length == 3 && method.equals("GET")) {
+            latency = stateLatency;
+            GameSession session = sessions.get(path[2]);
+            sendState(exchange, session, session == null ? null : session.state());
+        } else if (path.length == 3 && method.equals("DELETE")) {
+            latency = deleteLatency;
+            if (sessions.remove(path[2])) {
+                send(exchange, 200, "{\"deleted\":true}");
+            } else {
+                sendError(exchange, 404, "No such game");
+            }
+        } else if (path.length == 4 && method.equals("POST")) {
+            latency = moveLatency;
+            handleAction(exchange, sessions.get(path[2]), path[3]);
+        } else {
+            latency = stateLatency;
+            sendError(exchange, 404, "Unknown request");
+        }
+        latency.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Starts a new game.
+     *
+     * @param exchange The request, optionally carrying {@code size} and {@code player} in its query string.
+     * @throws IOException If the response cannot be written.
+     */
+    private void handleCreate(HttpExchange exchange) throws IOException {
+        int size = parseSize(queryParameter(exchange, "size"));
+        if (size < 0) {
+            sendError(exchange, 400, "Size must be between " + MIN_SIZE + " and " + MAX_SIZE);
+            return;
+        }
+        String player = queryParameter(exchange, "player");
+        GameSession session = sessions.create(size, player == null ? "anonymous" : player);
+        if (session == null) {
+            sendError(exchange, 503, "Too many games");
+            return;
+        }
+        String state = session.state();
+        if (state == null) {
+            sendError(exchange, 404, "No such game"); // Evicted before its first response
+            return;
+        }
+        send(exchange, 201, state);
+    }
+
+    /**
+     * Applies a move, undo or restart to a game.
+     *
+     * @param exchange The request.
+     * @param session  The game, or null if it does not exist.
+     * @param action   The action name from the request path.
+     * @throws IOException If the response cannot be written.
+     */
+    private void handleAction(HttpExchange exchange, GameSession session, String action) throws IOException {
+        if (session == null) {
+            sendState(exchange, null, null);
+            return;
+        }
+        switch (action) {
+            case "undo":
+                sendState(exchange, session, session.undo());
+                break;
+            case "restart":
+                sendState(exchange, session, session.restart());
+                break;
+            default:
+                Direction direction;
+                try {
+                    direction = Direction.valueOf(action.toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException e) {
+                    sendError(exchange, 400, "Unknown action");
+                    return;
+                }
+                sendState(exchange, session, session.move(direction));
+        }
+    }
+
+    /**
+     * Sends the state of a game, or a 404 if the game does not exist or ended while the request was under way.
+     *
+     * @param exchange The request.
+     * @param session  The game, or null if it does not exist.
+     * @param state    The state of the game as JSON, or null if the game has ended.
+     * @throws IOException If the response cannot be written.
+     */
+    private static void sendState(HttpExchange exchange, GameSession session, String state) throws IOException {
+        if (session == null || state == null) {
+            sendError(exchange, 404, "No such game");
+        } else {
+            send(exchange, 200, state);
+        }
+    }
+
+    /**
+     * Parses a board size parameter.
+     *
+     * @param value The parameter value, or null for the default size of 4.
+     * @return The size, or -1 if it is not a number between {@link #MIN_SIZE} and {@link #MAX_SIZE}.
+     */
+    private static int parseSize(String value) {
+        if (value == null) {
+            return 4;
+        }
+        try {
+            int size = Integer.parseInt(value);
+            return size < MIN_SIZE || size > MAX_SIZE ? -1 : size;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Gets a parameter of the query string.
+     *
+     * @param exchange The request.
+     * @param name     The parameter name.
+     * @return The decoded value of the first parameter with that name, or null if there is none.
+     */
+    private static String queryParameter(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0 && pair.substring(0, equals).equals(name)) {
+                return URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Renders the best scores of a board size.
+     *
+     * @param size The board size.
+     * @return The leaderboard as a JSON object.
+     */
+    String leaderboardJson(int size) {
+        StringBuilder json = new StringBuilder("{\"size\":").append(size).append(",\"entries\":[");
+        List<LeaderboardEntry> entries = sessions.getLeaderboard().top(size, LEADERBOARD_LIMIT);
+        for (int i = 0; i < entries.size(); i++) {
+            LeaderboardEntry entry = entries.get(i);
+            json.append(i == 0 ? "{" : ",{")
+                    .append("\"player\":");
+            appendString(json, entry.getPlayer());
+            json.append(",\"score\":").append(entry.getScore())
+                    .append(",\"timestamp\":").append(entry.getTimestamp())
+                    .append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * Appends a string as a JSON string literal, escaping quotes, backslashes and control characters.
+     *
+     * @param json  The JSON being built.
+     * @param value The string to append.
+     */
+    private static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+
+    /**
+     * Renders the server metrics.
+     *
+     * @return The metrics as a JSON object.
+     */
+    String metricsJson() {
+        return "{\"sessions\":" + sessions.size()
+                + ",\"sessionBytes\":" + sessions.getReservedBytes()
+                + ",\"maxSessionBytes\":" + sessions.getMaxBytes()
+                + ",\"evicted\":" + sessions.getEvictedCount()
+                + ",\"create\":" + createLatency.toJson()
+                + ",\"move\":" + moveLatency.toJson()
+                + ",\"state\":" + stateLatency.toJson()
+                + ",\"delete\":" + deleteLatency.toJson()
+                + ",\"operations\":" + Instrumentation.toJson() + "}";
+    }
+
+    /**
+     * Sends an error response.
+     *
+     * @param exchange The request.
+     * @param status   The HTTP status code.
+     * @param message  The error message; a constant, so it never needs JSON escaping.
+     * @throws IOException If the response cannot be written.
+     */
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        send(exchange, status, "{\"error\":\"" + message + "\"}");
+    }
+
+    /**
+     * Sends a JSON response and completes the exchange.
+     *
+     * @param exchange The request.
+     * @param status   The HTTP status code.
+     * @param json     The response body.
+     * @throws IOException If the response cannot be written.
+     */
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package server;
+
+import logic.Board;
+import logic.Direction;
+
+/**
+ * One hosted game: a {@link Board} plus the bookkeeping the server needs to evict it when idle.
+ * Every access to the board goes through the session's monitor, so two requests for the same game
+ * are applied one after the other while requests for different games never contend. Once a
+ * session has ended, every request on it answers null, which the server reports as a missing game.
+ */
+public class GameSession {
+    /** The identifier clients use to address this session. */
+    private final String id;
+
+    /** The game board of this session. */
+    private final Board board;
+
+    /** The {@link System#nanoTime()} of the last request that touched this session. */
+    private volatile long lastAccessNanos;
+
+    /** Whether the session has ended; guarded by the session's monitor. */
+    private boolean ended;
+
+    /**
+     * Constructs a new session.
+     *
+     * @param id    The identifier clients use to address this session.
+     * @param board The game board of this session.
+     */
+    public GameSession(String id, Board board) {
+        this.id = id;
+        this.board = board;
+        touch();
+    }
+
+    /**
+     * Gets the identifier clients use to address this session.
+     *
+     * @return The session identifier.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Gets the size of the board of this session.
+     *
+     * @return The board size.
+     */
+    public int getSize() {
+        return board.getSize();
+    }
+
+    /**
+     * Gets the {@link System#nanoTime()} of the last request that touched this session.
+     *
+     * @return The time of the last access.
+     */
+    public long getLastAccessNanos() {
+        return lastAccessNanos;
+    }
+
+    /**
+     * Marks the session as used now, postponing its eviction.
+     */
+    public void touch() {
+        lastAccessNanos = System.nanoTime();
+    }
+
+    /**
+     * Plays one move and renders the resulting state.
+     *
+     * @param direction The direction to move in.
+     * @return The game state as JSON, including whether the move changed the board, or null if the session has ended.
+     */
+    public synchronized String move(Direction direction) {
+        if (ended) {
+            return null;
+        }
+        touch();
+        boolean moved = board.isMoveLegal(direction);
+        board.move(direction);
+        return toJson(moved);
+    }
+
+    /**
+     * Starts a new game in this session.
+     *
+     * @return The game state as JSON, or null if the session has ended.
+     */
+    public synchronized String restart() {
+        if (ended) {
+            return null;
+        }
+        touch();
+        board.reset();
+        return toJson(false);
+    }
+
+    /**
+     * Undoes the last move, if there is one. A game that used undo is unranked until the next restart,
+     * see {@link Board#undo()}.
+     *
+     * @return The game state as JSON, or null if the session has ended; {@code moved} tells whether anything was undone.
+     */
+    public synchronized String undo() {
+        if (ended) {
+            return null;
+        }
+        touch();
+        return toJson(board.undo());
+    }
+
+    /**
+     * Ends the session, submitting the game in progress to the leaderboard. Ending an ended session does nothing.
+     */
+    public synchronized void end() {
+        if (!ended) {
+            ended = true;
+            board.saveHighScore();
+        }
+    }
+
+    /**
+     * Ends the session if it is still idle. The idle time is checked under the session's monitor,
+     * so a request that got hold of the session just before is either applied first, and keeps the
+     * session alive, or finds it ended.
+     *
+     * @param now              The current {@link System#nanoTime()}.
+     * @param idleTimeoutNanos The idle time after which the session ends, in nanoseconds.
+     * @return True if this call ended the session.
+     */
+    public synchronized boolean endIfIdle(long now, long idleTimeoutNanos) {
+        if (ended || now - lastAccessNanos <= idleTimeoutNanos) {
+            return false;
+        }
+        end();
+        return true;
+    }
+
+    /**
+     * Renders the current state.
+     *
+     * @return The game state as JSON, or null if the session has ended.
+     */
+    public synchronized String state() {
+        if (ended) {
+            return null;
+        }
+        touch();
+        return toJson(false);
+    }
+
+    /**
+     * Renders the state of the board as a JSON object. Must be called while holding the session's monitor.
+     *
+     * @param moved Whether the request changed the board.
+     * @return The JSON object.
+     */
+    private String toJson(boolean moved) {
+        int size = board.getSize();
+        StringBuilder json = new StringBuilder(64 + size * size * 6);
+        json.append("{\"id\":\"").append(id)
+                .append("\",\"size\":").append(size)
+                .append(",\"score\":").append(board.getScore())
+                .append(",\"highScore\":").append(board.getHighScore())
+                .append(",\"moved\":").append(moved)
+                .append(",\"won\":").append(board.isWinConditionMet())
+                .append(",\"over\":").append(!board.canMove())
+                .append(",\"ranked\":").append(board.isRanked())
+                .append(",\"grid\":[");
+        for (int row = 0; row < size; row++) {
+            json.append(row == 0 ? "[" : ",[");
+            for (int col = 0; col < size; col++) {
+                if (col > 0) {
+                    json.append(',');
+                }
+                json.append(board.getTile(row, col));
+            }
+            json.append(']');
+        }
+        return json.append("]}").toString();
+    }
+}
@@ -0,0 +1,40 @@
+package server;
+
+import storage.Leaderboard;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
+
+/**
+ * Command-line entry point of the game server.
+ *
+ * <pre>
+ * java server.ServerMain [port] [idle-timeout-seconds] [max-session-memory-mb] [bind-address]
+ * </pre>
+ *
+ * The server listens on the loopback interface unless another address is given, for example
+ * {@code 0.0.0.0} for all interfaces. It runs until the process is stopped.
+ */
+public class ServerMain {
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8048;
+        long idleSeconds = args.length > 1 ? Long.parseLong(args[1]) : 600;
+        long maxMegabytes = args.length > 2 ? Long.parseLong(args[2]) : 256;
+        InetAddress bindAddress = args.length > 3 ? InetAddress.getByName(args[3]) : InetAddress.getLoopbackAddress();
+
+        // Not the default leaderboard: its own shutdown hook would run concurrently and close it before the sessions submit
+        Leaderboard leaderboard = Leaderboard.open(Paths.get(Leaderboard.DEFAULT_FILE));
+        SessionRegistry sessions = new SessionRegistry(leaderboard, idleSeconds * 1000, maxMegabytes << 20);
+        GameServer server = new GameServer(new InetSocketAddress(bindAddress, port), sessions);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            leaderboard.close(); // Writes the games the closing sessions just submitted
+        }, "game-server-shutdown"));
+        server.start();
+        System.out.printf("Serving 2048 on %s port %d (idle timeout %ds, %d MB of games, about %d 4x4 or %d 16x16 games)%n",
+                bindAddress.getHostAddress(), server.getAddress().getPort(), idleSeconds, maxMegabytes,
+                (maxMegabytes << 20) / SessionRegistry.sessionBytes(4), (maxMegabytes << 20) / SessionRegistry.sessionBytes(16));
+    }
+}
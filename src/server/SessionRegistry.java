@@ -0,0 +1,249 @@
+package server;
+
+import logic.Board;
+import logic.Xoshiro256;
+import storage.Leaderboard;
+
+import java.security.SecureRandom;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The live game sessions of a {@link GameServer}, keyed by session identifier.
+ *
+ * <p>The sessions sit in a {@link ConcurrentHashMap}, so lookups never block and creating or
+ * removing a session only locks one bin of the table. A background sweeper evicts sessions
+ * that have not been touched for longer than the idle timeout.</p>
+ *
+ * <p>The registry is bounded by memory rather than by a number of sessions: every session is
+ * charged an estimate of what its board holds ({@link #sessionBytes(int)}), so a 16x16 game costs
+ * several times a 4x4 one, and new sessions are refused once the budget is spent. A new session
+ * reserves its bytes with a compare-and-set first, so concurrent requests can never push the
+ * registry past its budget. Server boards keep a short undo history of
+ * {@value #SESSION_HISTORY_CAPACITY} states instead of the desktop game's
+ * {@value logic.Board#HISTORY_CAPACITY}.</p>
+ *
+ * <p>Session identifiers are 128 random bits from a {@link SecureRandom}, so holding one
+ * identifier tells nothing about any other.</p>
+ */
+public class SessionRegistry implements AutoCloseable {
+    /** The number of states a session board keeps for undo, including the current one. */
+    public static final int SESSION_HISTORY_CAPACITY = 64;
+
+    /** The estimated memory of a session besides its cells: the session, board, history and map entry objects. */
+    static final int SESSION_OVERHEAD_BYTES = 1024;
+
+    /** The number of random bytes in a session identifier. */
+    static final int ID_BYTES = 16;
+
+    /** Hexadecimal digits, for rendering identifiers. */
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /** The live sessions by identifier. */
+    private final ConcurrentHashMap<String, GameSession> sessions = new ConcurrentHashMap<>();
+
+    /** The leaderboard all boards submit their finished games to. */
+    private final Leaderboard leaderboard;
+
+    /** Sessions idle for longer than this many nanoseconds are evicted. */
+    private final long idleTimeoutNanos;
+
+    /** The memory budget of all live sessions, in bytes. */
+    private final long maxBytes;
+
+    /** The bytes reserved by the live sessions and by those being created. */
+    private final AtomicLong reservedBytes = new AtomicLong();
+
+    /** The source of the session identifiers. */
+    private final SecureRandom idSource = new SecureRandom();
+
+    /** The number of sessions evicted for being idle. */
+    private final AtomicLong evicted = new AtomicLong();
+
+    /** Runs the periodic eviction sweep. */
+    private final ScheduledExecutorService sweeper;
+
+    /**
+     * Constructs a new registry and starts its eviction sweep.
+     *
+     * @param leaderboard       The leaderboard all boards submit their finished games to.
+     * @param idleTimeoutMillis Sessions idle for longer than this many milliseconds are evicted.
+     * @param maxBytes          The memory budget of all live sessions, in bytes.
+     */
+    public SessionRegistry(Leaderboard leaderboard, long idleTimeoutMillis, long maxBytes) {
+        this.leaderboard = leaderboard;
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.maxBytes = maxBytes;
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, idleTimeoutMillis / 4);
+        sweeper.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates and registers a new session with a fresh board.
+     *
+     * @param size   The size of the board.
+     * @param player The name the games of the session are submitted to the leaderboard under.
+     * @return The new session, or null if the memory budget is spent.
+     */
+    public GameSession create(int size, String player) {
+        long bytes = sessionBytes(size);
+        long taken;
+        do {
+            taken = reservedBytes.get();
+            if (taken + bytes > maxBytes) {
+                return null;
+            }
+        } while (!reservedBytes.compareAndSet(taken, taken + bytes));
+        String id = newId();
+        Board board = new Board(size, leaderboard, new Xoshiro256(), SESSION_HISTORY_CAPACITY);
+        board.setPlayer(player);
+        GameSession session = new GameSession(id, board);
+        sessions.put(id, session);
+        return session;
+    }
+
+    /**
+     * Estimates the memory a session holds: its cells, its undo history and a fixed overhead.
+     *
+     * @param size The size of the board.
+     * @return The estimated size of the session in bytes.
+     */
+    public static long sessionBytes(int size) {
+        long cells = (long) size * size;
+        return SESSION_OVERHEAD_BYTES + cells * (SESSION_HISTORY_CAPACITY + 2)
+                + (long) Long.BYTES * SESSION_HISTORY_CAPACITY + 32L * size;
+    }
+
+    /**
+     * Generates a new session identifier.
+     *
+     * @return {@value #ID_BYTES} random bytes in hexadecimal.
+     */
+    private String newId() {
+        byte[] bytes = new byte[ID_BYTES];
+        idSource.nextBytes(bytes);
+        char[] id = new char[2 * ID_BYTES];
+        for (int i = 0; i < ID_BYTES; i++) {
+            id[2 * i] = HEX_DIGITS[(bytes[i] >>> 4) & 0xF];
+            id[2 * i + 1] = HEX_DIGITS[bytes[i] & 0xF];
+        }
+        return new String(id);
+    }
+
+    /**
+     * Looks up a session.
+     *
+     * @param id The session identifier.
+     * @return The session, or null if it does not exist or has been evicted.
+     */
+    public GameSession get(String id) {
+        return sessions.get(id);
+    }
+
+    /**
+     * Gets the leaderboard all boards submit their finished games to.
+     *
+     * @return The leaderboard.
+     */
+    public Leaderboard getLeaderboard() {
+        return leaderboard;
+    }
+
+    /**
+     * Removes a session, submitting its game in progress to the leaderboard.
+     *
+     * @param id The session identifier.
+     * @return True if the session existed.
+     */
+    public boolean remove(String id) {
+        GameSession session = sessions.remove(id);
+        if (session == null) {
+            return false;
+        }
+        release(session);
+        session.end();
+        return true;
+    }
+
+    /**
+     * Gets the number of live sessions.
+     *
+     * @return The number of sessions.
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Gets the memory reserved by the live sessions.
+     *
+     * @return The estimated size of all sessions in bytes.
+     */
+    public long getReservedBytes() {
+        return reservedBytes.get();
+    }
+
+    /**
+     * Gets the memory budget of all live sessions.
+     *
+     * @return The budget in bytes.
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Gets the number of sessions evicted for being idle since the registry was created.
+     *
+     * @return The number of evicted sessions.
+     */
+    public long getEvictedCount() {
+        return evicted.get();
+    }
+
+    /**
+     * Removes every session that has been idle for longer than the timeout, submitting their games to the leaderboard.
+     * A session is ended before it is removed, so a request that looked it up just before gets a missing game.
+     */
+    void evictIdle() {
+        long now = System.nanoTime();
+        for (GameSession session : sessions.values()) {
+            if (session.endIfIdle(now, idleTimeoutNanos) && sessions.remove(session.getId(), session)) {
+                release(session);
+                evicted.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Stops the eviction sweep, then ends and drops all sessions, submitting their games to the leaderboard.
+     */
+    @Override
+    public void close() {
+        sweeper.shutdownNow();
+        for (Iterator<GameSession> it = sessions.values().iterator(); it.hasNext(); ) {
+            GameSession session = it.next();
+            it.remove();
+            release(session);
+            session.end();
+        }
+    }
+
+    /**
+     * Gives back the memory a removed session reserved.
+     *
+     * @param session The removed session.
+     */
+    private void release(GameSession session) {
+        reservedBytes.addAndGet(-sessionBytes(session.getSize()));
+    }
+}
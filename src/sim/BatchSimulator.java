@@ -0,0 +1,168 @@
+package sim;
+
+import logic.CompactBoard;
+import logic.Direction;
+import logic.Xoshiro256;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Plays batches of games headlessly on {@link CompactBoard}s, spread over a fixed number of
+ * worker threads. Each worker owns its board, policy and statistics and only touches shared
+ * state to claim the next game number, so throughput scales with the number of cores.
+ * Nothing in the simulator touches Swing, AWT or the file system.
+ *
+ * <p>Every game draws its spawns and random moves from a generator seeded with
+ * {@link Xoshiro256#gameSeed(long, long)} of the batch seed and the game number, so a batch
+ * with the same seed produces exactly the same statistics for any number of threads, provided
+ * each policy's moves depend only on the position and that generator. Policies that share a
+ * cache between workers, such as an {@code ExpectimaxPolicy} over a shared parallel solver,
+ * break that guarantee.</p>
+ */
+public class BatchSimulator {
+    /**
+     * The size of the simulated boards.
+     */
+    private final int size;
+
+    /**
+     * Creates one move policy per worker thread.
+     */
+    private final Supplier<MovePolicy> policies;
+
+    /**
+     * The number of worker threads.
+     */
+    private final int threads;
+
+    /**
+     * The seed all game seeds of a batch are derived from.
+     */
+    private final long seed;
+
+    /**
+     * Constructs a simulator that uses one worker per available processor.
+     *
+     * @param size     The size of the simulated boards.
+     * @param policies Creates one move policy per worker thread.
+     */
+    public BatchSimulator(int size, Supplier<MovePolicy> policies) {
+        this(size, policies, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a simulator with a random batch seed, which {@link #getSeed()} reports so the batch can be repeated.
+     *
+     * @param size     The size of the simulated boards.
+     * @param policies Creates one move policy per worker thread.
+     * @param threads  The number of worker threads.
+     */
+    public BatchSimulator(int size, Supplier<MovePolicy> policies, int threads) {
+        this(size, policies, threads, new Xoshiro256().nextLong());
+    }
+
+    /**
+     * Constructs a new simulator.
+     *
+     * @param size     The size of the simulated boards.
+     * @param policies Creates one move policy per worker thread.
+     * @param threads  The number of worker threads.
+     * @param seed     The seed all game seeds of a batch are derived from.
+     */
+    public BatchSimulator(int size, Supplier<MovePolicy> policies, int threads, long seed) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one worker thread is required: " + threads);
+        }
+        this.size = size;
+        this.policies = policies;
+        this.threads = threads;
+        this.seed = seed;
+    }
+
+    /**
+     * Gets the seed all game seeds of a batch are derived from.
+     *
+     * @return The batch seed.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Plays the given number of games and collects their statistics.
+     *
+     * @param games The number of games to play.
+     * @return The aggregate statistics of all games.
+     * @throws InterruptedException If the calling thread is interrupted while waiting for the workers.
+     */
+    public SimulationStats run(long games) throws InterruptedException {
+        AtomicLong nextGame = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        try {
+            List<Future<SimulationStats>> workers = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++) {
+                workers.add(executor.submit(() -> runWorker(nextGame, games)));
+            }
+            SimulationStats total = new SimulationStats();
+            for (Future<SimulationStats> worker : workers) {
+                total.merge(worker.get());
+            }
+            total.setElapsedNanos(System.nanoTime() - start);
+            return total;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Simulation worker failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Plays games until the batch is exhausted.
+     *
+     * @param nextGame The shared counter of games handed out so far.
+     * @param games    The number of games in the batch.
+     * @return The statistics of the games played by this worker.
+     */
+    private SimulationStats runWorker(AtomicLong nextGame, long games) {
+        SimulationStats stats = new SimulationStats();
+        MovePolicy policy = policies.get();
+        Xoshiro256 random = new Xoshiro256(seed);
+        CompactBoard board = CompactBoard.create(size, random);
+        long game;
+        while ((game = nextGame.getAndIncrement()) < games) {
+            // The board shares the generator, so reseeding it replays the game no matter which worker plays it
+            random.reseed(Xoshiro256.gameSeed(seed, game));
+            policy.startGame(random);
+            board.reset();
+            int moves = playGame(board, policy);
+            stats.record(board.getScore(), moves, board.maxExponent());
+        }
+        return stats;
+    }
+
+    /**
+     * Plays one game to the end. A game ends when the policy gives up or picks a move that does not change the board.
+     *
+     * @param board  The board, already reset.
+     * @param policy The policy choosing the moves.
+     * @return The number of moves played.
+     */
+    public static int playGame(CompactBoard board, MovePolicy policy) {
+        int moves = 0;
+        while (true) {
+            Direction direction = policy.chooseMove(board);
+            if (direction == null || !board.move(direction)) {
+                return moves;
+            }
+            moves++;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package sim;
+
+import logic.CompactBoard;
+import logic.Direction;
+import logic.Xoshiro256;
+import storage.TrajectoryWriter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Plays batches of games like the {@link BatchSimulator} and streams every transition (position,
+ * move, reward, terminal flag) to trajectory files for offline training and analysis.
+ *
+ * <p>Every worker thread writes its own shard, {@code shard-NNN.traj} in the output directory,
+ * through its own {@link TrajectoryWriter}, so the workers share nothing but the game counter.
+ * Games are seeded by batch seed and game number, so the same seed exports the same games; which
+ * shard a game lands in depends on the scheduling of the threads.</p>
+ */
+public class DatasetExporter {
+    /**
+     * The size of the simulated boards.
+     */
+    private final int size;
+
+    /**
+     * Creates one move policy per worker thread.
+     */
+    private final Supplier<MovePolicy> policies;
+
+    /**
+     * The number of worker threads, and of shards.
+     */
+    private final int threads;
+
+    /**
+     * The seed all game seeds of a batch are derived from.
+     */
+    private final long seed;
+
+    /**
+     * Constructs a new exporter.
+     *
+     * @param size     The size of the simulated boards, at most 16 (states store 4-bit exponents).
+     * @param policies Creates one move policy per worker thread.
+     * @param threads  The number of worker threads, and of shards.
+     * @param seed     The seed all game seeds of a batch are derived from.
+     */
+    public DatasetExporter(int size, Supplier<MovePolicy> policies, int threads, long seed) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one worker thread is required: " + threads);
+        }
+        this.size = size;
+        this.policies = policies;
+        this.threads = threads;
+        this.seed = seed;
+    }
+
+    /**
+     * Gets the seed all game seeds of a batch are derived from.
+     *
+     * @return The batch seed.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Gets the file of a shard.
+     *
+     * @param directory The output directory.
+     * @param shard     The number of the shard, from 0.
+     * @return The shard file.
+     */
+    public static Path shardFile(Path directory, int shard) {
+        return directory.resolve(String.format("shard-%03d.traj", shard));
+    }
+
+    /**
+     * Plays the given number of games and writes their transitions to one shard per worker thread.
+     *
+     * @param directory The output directory, created if needed; existing shards are replaced.
+     * @param games     The number of games to play.
+     * @return The aggregate statistics of all games; the number of transitions is the total of the moves.
+     * @throws IOException          If a shard cannot be written.
+     * @throws InterruptedException If the calling thread is interrupted while waiting for the workers.
+     */
+    public SimulationStats export(Path directory, long games) throws IOException, InterruptedException {
+        Files.createDirectories(directory);
+        AtomicLong nextGame = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        try {
+            List<Future<SimulationStats>> workers = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++) {
+                Path shard = shardFile(directory, i);
+                workers.add(executor.submit(() -> runWorker(shard, nextGame, games)));
+            }
+            SimulationStats total = new SimulationStats();
+            for (Future<SimulationStats> worker : workers) {
+                total.merge(worker.get());
+            }
+            total.setElapsedNanos(System.nanoTime() - start);
+            return total;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException("Export worker failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Plays games until the batch is exhausted, writing them to one shard.
+     *
+     * @param shard    The shard file of this worker.
+     * @param nextGame The shared counter of games handed out so far.
+     * @param games    The number of games in the batch.
+     * @return The statistics of the games played by this worker.
+     * @throws IOException If the shard cannot be written.
+     */
+    private SimulationStats runWorker(Path shard, AtomicLong nextGame, long games) throws IOException {
+        SimulationStats stats = new SimulationStats();
+        MovePolicy policy = policies.get();
+        Xoshiro256 random = new Xoshiro256(seed);
+        CompactBoard board = CompactBoard.create(size, random);
+        CompactBoard previous = CompactBoard.create(size, random);
+        CompactBoard current = CompactBoard.create(size, random);
+        try (TrajectoryWriter writer = new TrajectoryWriter(shard, size, seed)) {
+            long game;
+            while ((game = nextGame.getAndIncrement()) < games) {
+                random.reseed(Xoshiro256.gameSeed(seed, game));
+                policy.startGame(random);
+                board.reset();
+                int moves = playGame(board, previous, current, policy, writer);
+                stats.record(board.getScore(), moves, board.maxExponent());
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Plays one game to the end like {@link BatchSimulator#playGame(CompactBoard, MovePolicy)},
+     * writing every move. A move is written once the next one has been played, so that the last
+     * move of the game carries the terminal flag however the game ends.
+     *
+     * @param board    The board, already reset.
+     * @param previous Scratch board for the position before the move not yet written.
+     * @param current  Scratch board for the position before the move being played.
+     * @param policy   The policy choosing the moves.
+     * @param writer   The shard the moves are written to.
+     * @return The number of moves played.
+     * @throws IOException If the shard cannot be written.
+     */
+    private static int playGame(CompactBoard board, CompactBoard previous, CompactBoard current, MovePolicy policy,
+                                TrajectoryWriter writer) throws IOException {
+        int moves = 0;
+        Direction pending = null;
+        int pendingReward = 0;
+        while (true) {
+            Direction direction = policy.chooseMove(board);
+            if (direction == null) {
+                break;
+            }
+            current.copyFrom(board);
+            if (!board.move(direction)) {
+                break;
+            }
+            if (pending != null) {
+                writer.append(previous, pending, pendingReward, false);
+            }
+            CompactBoard swap = previous;
+            previous = current;
+            current = swap;
+            pending = direction;
+            pendingReward = board.getScore() - previous.getScore();
+            moves++;
+        }
+        if (pending != null) {
+            writer.append(previous, pending, pendingReward, true);
+        }
+        return moves;
+    }
+}
@@ -0,0 +1,45 @@
+package sim;
+
+import logic.Xoshiro256;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Command-line entry point of the dataset exporter.
+ *
+ * <pre>
+ * java sim.ExportMain directory [games] [size] [policy] [threads] [seed]
+ * </pre>
+ *
+ * Writes one trajectory shard per thread to the directory, read back with
+ * {@link storage.TrajectoryReader}. The policy is any of the {@link SimulatorMain}'s; boards
+ * are at most 16x16. Without a seed a random one is chosen and printed.
+ */
+public class ExportMain {
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.err.println("Usage: java sim.ExportMain directory [games] [size] [policy] [threads] [seed]");
+            System.exit(2);
+        }
+        Path directory = Paths.get(args[0]);
+        long games = args.length > 1 ? Long.parseLong(args[1]) : 10000;
+        int size = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        String policy = args.length > 3 ? args[3] : "random";
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 5 ? Long.parseLong(args[5]) : new Xoshiro256().nextLong();
+
+        DatasetExporter exporter = new DatasetExporter(size, SimulatorMain.policyFactory(policy, size), threads, seed);
+        SimulationStats stats = exporter.export(directory, games);
+        long bytes = 0;
+        for (int shard = 0; shard < threads; shard++) {
+            bytes += Files.size(DatasetExporter.shardFile(directory, shard));
+        }
+        System.out.printf("%s policy, %dx%d board, %d shards, seed %d%n", policy, size, size, threads, seed);
+        System.out.printf("Transitions:  %d (%.1f MB, %.1f bytes each)%n", stats.getTotalMoves(), bytes / 1e6,
+                stats.getTotalMoves() == 0 ? 0.0 : (double) bytes / stats.getTotalMoves());
+        System.out.print(stats.format());
+    }
+}
@@ -0,0 +1,33 @@
+package sim;
+
+import logic.CompactBoard;
+import logic.Direction;
+
+/**
+ * Plays the legal move with the largest immediate score gain, preferring
+ * the directions in {@link Direction} order when gains are equal.
+ */
+public class GreedyPolicy implements MovePolicy {
+    /** Scratch board used to try each move. */
+    private CompactBoard scratch;
+
+    @Override
+    public Direction chooseMove(CompactBoard board) {
+        if (scratch == null || scratch.getSize() != board.getSize()) {
+            scratch = board.copy();
+        }
+        Direction best = null;
+        int bestGain = -1;
+        for (Direction direction : Direction.values()) {
+            scratch.copyFrom(board);
+            if (scratch.slide(direction)) {
+                int gain = scratch.getScore() - board.getScore();
+                if (gain > bestGain) {
+                    best = direction;
+                    bestGain = gain;
+                }
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,30 @@
+package sim;
+
+import logic.CompactBoard;
+import logic.Direction;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Chooses the next move of a game. Policies may keep per-instance scratch state and are not
+ * required to be thread-safe: the {@link BatchSimulator} creates one policy per worker thread.
+ */
+public interface MovePolicy {
+    /**
+     * Chooses the next move. The board must not be modified.
+     *
+     * @param board The current position.
+     * @return The direction to move in, or null to give up (for example if no move is possible).
+     */
+    Direction chooseMove(CompactBoard board);
+
+    /**
+     * Called before every game with the random number generator of that game. Policies that make
+     * random choices draw them from this generator, and policies that cache results reset their
+     * cache here, so that a seeded game replays identically. Other policies can ignore it.
+     *
+     * @param random The random number generator of the game that is about to start.
+     */
+    default void startGame(RandomGenerator random) {
+    }
+}
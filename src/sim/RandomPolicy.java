@@ -0,0 +1,49 @@
+package sim;
+
+import logic.CompactBoard;
+import logic.Direction;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Plays a uniformly random legal move.
+ */
+public class RandomPolicy implements MovePolicy {
+    /** Random number generator for choosing moves, replaced at the start of every game. */
+    private RandomGenerator random;
+
+    /** Scratch board used to test which moves are legal. */
+    private CompactBoard scratch;
+
+    /** The legal directions of the current position, in the first entries. */
+    private final Direction[] legal = new Direction[4];
+
+    /**
+     * Constructs a new random policy.
+     *
+     * @param random The random number generator used to choose moves.
+     */
+    public RandomPolicy(RandomGenerator random) {
+        this.random = random;
+    }
+
+    @Override
+    public void startGame(RandomGenerator random) {
+        this.random = random;
+    }
+
+    @Override
+    public Direction chooseMove(CompactBoard board) {
+        if (scratch == null || scratch.getSize() != board.getSize()) {
+            scratch = board.copy();
+        }
+        int count = 0;
+        for (Direction direction : Direction.values()) {
+            scratch.copyFrom(board);
+            if (scratch.slide(direction)) {
+                legal[count++] = direction;
+            }
+        }
+        return count == 0 ? null : legal[random.nextInt(count)];
+    }
+}
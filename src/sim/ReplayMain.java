@@ -0,0 +1,39 @@
+package sim;
+
+import logic.CompactBoard;
+import logic.Xoshiro256;
+import storage.GameJournalReader;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Command-line entry point that prints a game recorded in a journal, for example by {@link SolveMain}.
+ *
+ * <pre>
+ * java sim.ReplayMain journal-file [moves]
+ * </pre>
+ *
+ * Prints the board after the given number of moves, by default after the last one. Any position
+ * is reconstructed from the nearest checkpoint, so even long games print instantly.
+ */
+public class ReplayMain {
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java sim.ReplayMain journal-file [moves]");
+            System.exit(2);
+        }
+        try (GameJournalReader journal = new GameJournalReader(Paths.get(args[0]))) {
+            long moves = args.length > 1 ? Long.parseLong(args[1]) : journal.getMoveCount();
+            CompactBoard board = journal.boardAfter(moves, new Xoshiro256(journal.getSeed()));
+            System.out.printf("%dx%d game, seed %d, move %d of %d%n",
+                    journal.getSize(), journal.getSize(), journal.getSeed(), moves, journal.getMoveCount());
+            System.out.print(SolveMain.format(board));
+            if (moves > 0) {
+                System.out.printf("Last move %s; score %d%n", journal.getMove(moves - 1), board.getScore());
+            } else {
+                System.out.printf("Score %d%n", board.getScore());
+            }
+        }
+    }
+}
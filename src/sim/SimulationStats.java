@@ -0,0 +1,275 @@
+package sim;
+
+import logic.CompactBoard;
+
+/**
+ * Aggregate statistics of a batch of simulated games. Instances are not thread-safe:
+ * every worker records into its own instance and the results are {@link #merge merged} at the end.
+ */
+public class SimulationStats {
+    /** Number of games recorded. */
+    private long games;
+
+    /** Number of games that reached the 2048 tile. */
+    private long wins;
+
+    /** Total number of moves over all games. */
+    private long totalMoves;
+
+    /** Fewest moves played in a single game. */
+    private int minMoves = Integer.MAX_VALUE;
+
+    /** Most moves played in a single game. */
+    private int maxMoves;
+
+    /** Sum of the final scores. */
+    private long totalScore;
+
+    /**
+     * Sum of the squared final scores, for the standard deviation, as an unsigned 128-bit integer
+     * split into a low and a high word. Integer sums do not depend on the order in which games are
+     * recorded and merged, so the result is identical for any number of worker threads.
+     */
+    private long totalScoreSquaredLow, totalScoreSquaredHigh;
+
+    /** Lowest final score. */
+    private int minScore = Integer.MAX_VALUE;
+
+    /** Highest final score. */
+    private int maxScore;
+
+    /**
+     * Final scores bucketed by powers of two: bucket {@code b} counts scores in [2^(b-1), 2^b), bucket 0 counts zero.
+     */
+    private final long[] scoreBuckets = new long[33];
+
+    /** Number of games per largest tile, indexed by the exponent of that tile. */
+    private final long[] maxTileCounts = new long[32];
+
+    /** Wall-clock duration of the batch in nanoseconds. */
+    private long elapsedNanos;
+
+    /**
+     * Records the outcome of one game.
+     *
+     * @param score       The final score.
+     * @param moves       The number of moves played.
+     * @param maxExponent The exponent of the largest tile on the final board.
+     */
+    public void record(int score, int moves, int maxExponent) {
+        games++;
+        if (maxExponent >= 11) {
+            wins++;
+        }
+        totalMoves += moves;
+        minMoves = Math.min(minMoves, moves);
+        maxMoves = Math.max(maxMoves, moves);
+        totalScore += score;
+        addScoreSquared((long) score * score, 0L);
+        minScore = Math.min(minScore, score);
+        maxScore = Math.max(maxScore, score);
+        scoreBuckets[32 - Integer.numberOfLeadingZeros(score)]++;
+        maxTileCounts[maxExponent]++;
+    }
+
+    /**
+     * Adds the games recorded by another instance to this one.
+     *
+     * @param other The statistics to add.
+     */
+    public void merge(SimulationStats other) {
+        games += other.games;
+        wins += other.wins;
+        totalMoves += other.totalMoves;
+        minMoves = Math.min(minMoves, other.minMoves);
+        maxMoves = Math.max(maxMoves, other.maxMoves);
+        totalScore += other.totalScore;
+        addScoreSquared(other.totalScoreSquaredLow, other.totalScoreSquaredHigh);
+        minScore = Math.min(minScore, other.minScore);
+        maxScore = Math.max(maxScore, other.maxScore);
+        for (int i = 0; i < scoreBuckets.length; i++) {
+            scoreBuckets[i] += other.scoreBuckets[i];
+        }
+        for (int i = 0; i < maxTileCounts.length; i++) {
+            maxTileCounts[i] += other.maxTileCounts[i];
+        }
+    }
+
+    /**
+     * Gets the number of games recorded.
+     *
+     * @return The number of games.
+     */
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * Gets the number of games that reached the 2048 tile.
+     *
+     * @return The number of wins.
+     */
+    public long getWins() {
+        return wins;
+    }
+
+    /**
+     * Gets the number of games that reached the tile cap of the compact boards, after which two
+     * 32768 tiles refuse to merge (see {@link CompactBoard#isAtExponentCap()}).
+     *
+     * @return The number of games whose largest tile reached 2^{@value CompactBoard#MAX_EXPONENT}.
+     */
+    public long getCappedGames() {
+        long capped = 0;
+        for (int exponent = CompactBoard.MAX_EXPONENT; exponent < maxTileCounts.length; exponent++) {
+            capped += maxTileCounts[exponent];
+        }
+        return capped;
+    }
+
+    /**
+     * Gets the total number of moves over all games.
+     *
+     * @return The total number of moves.
+     */
+    public long getTotalMoves() {
+        return totalMoves;
+    }
+
+    /**
+     * Gets the average final score.
+     *
+     * @return The mean score, or 0 if no games were recorded.
+     */
+    public double getMeanScore() {
+        return games == 0 ? 0.0 : (double) totalScore / games;
+    }
+
+    /**
+     * Gets the standard deviation of the final scores.
+     *
+     * @return The standard deviation, or 0 if no games were recorded.
+     */
+    public double getScoreStandardDeviation() {
+        if (games == 0) {
+            return 0.0;
+        }
+        double mean = getMeanScore();
+        double totalScoreSquared = totalScoreSquaredHigh * 0x1p64
+                + (totalScoreSquaredLow >>> 1) * 2.0 + (totalScoreSquaredLow & 1L);
+        return Math.sqrt(Math.max(0.0, totalScoreSquared / games - mean * mean));
+    }
+
+    /**
+     * Adds an unsigned 128-bit value to the sum of the squared scores.
+     *
+     * @param low  The low word of the value.
+     * @param high The high word of the value.
+     */
+    private void addScoreSquared(long low, long high) {
+        totalScoreSquaredLow += low;
+        totalScoreSquaredHigh += high;
+        if (Long.compareUnsigned(totalScoreSquaredLow, low) < 0) {
+            totalScoreSquaredHigh++; // Carry out of the low word
+        }
+    }
+
+    /**
+     * Gets the lowest final score.
+     *
+     * @return The lowest score, or 0 if no games were recorded.
+     */
+    public int getMinScore() {
+        return games == 0 ? 0 : minScore;
+    }
+
+    /**
+     * Gets the highest final score.
+     *
+     * @return The highest score.
+     */
+    public int getMaxScore() {
+        return maxScore;
+    }
+
+    /**
+     * Gets the average number of moves per game.
+     *
+     * @return The mean number of moves, or 0 if no games were recorded.
+     */
+    public double getMeanMoves() {
+        return games == 0 ? 0.0 : (double) totalMoves / games;
+    }
+
+    /**
+     * Gets the number of games whose largest tile was 2^exponent.
+     *
+     * @param exponent The exponent of the largest tile.
+     * @return The number of games.
+     */
+    public long getMaxTileCount(int exponent) {
+        return maxTileCounts[exponent];
+    }
+
+    /**
+     * Gets the wall-clock duration of the batch.
+     *
+     * @return The duration in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Sets the wall-clock duration of the batch.
+     *
+     * @param elapsedNanos The duration in nanoseconds.
+     */
+    public void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Gets the throughput of the batch.
+     *
+     * @return The number of games completed per second.
+     */
+    public double getGamesPerSecond() {
+        return elapsedNanos == 0 ? 0.0 : games * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Formats the statistics as a multi-line human-readable report.
+     *
+     * @return The report.
+     */
+    public String format() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Games:        %d (%.1f games/s, %.0f moves/s)%n",
+                games, getGamesPerSecond(), elapsedNanos == 0 ? 0.0 : totalMoves * 1e9 / elapsedNanos));
+        report.append(String.format("Score:        mean %.1f, stddev %.1f, min %d, max %d%n",
+                getMeanScore(), getScoreStandardDeviation(), getMinScore(), maxScore));
+        report.append(String.format("Moves/game:   mean %.1f, min %d, max %d%n",
+                getMeanMoves(), games == 0 ? 0 : minMoves, maxMoves));
+        report.append(String.format("Reached 2048: %.2f%%%n", games == 0 ? 0.0 : 100.0 * wins / games));
+        long capped = getCappedGames();
+        if (capped > 0) {
+            report.append(String.format("Tile cap:     %d games reached 32768, where 4-bit cells stop merging%n", capped));
+        }
+        report.append("Score distribution:").append(System.lineSeparator());
+        for (int bucket = 0; bucket < scoreBuckets.length; bucket++) {
+            if (scoreBuckets[bucket] > 0) {
+                long low = bucket == 0 ? 0 : 1L << (bucket - 1);
+                long high = bucket == 0 ? 0 : (1L << bucket) - 1;
+                report.append(String.format("  %10d - %-10d %8.3f%%%n", low, high, 100.0 * scoreBuckets[bucket] / games));
+            }
+        }
+        report.append("Max tile:").append(System.lineSeparator());
+        for (int exponent = 0; exponent < maxTileCounts.length; exponent++) {
+            if (maxTileCounts[exponent] > 0) {
+                report.append(String.format("  %10d %8.3f%%%n", 1L << exponent, 100.0 * maxTileCounts[exponent] / games));
+            }
+        }
+        return report.toString();
+    }
+}
@@ -0,0 +1,95 @@
+package sim;
+
+import ai.ExpectimaxPolicy;
+import ai.ExpectimaxSolver;
+import ai.MonteCarloPolicy;
+import ai.MonteCarloSolver;
+import ai.NTupleNetwork;
+import ai.NTuplePolicy;
+import logic.Xoshiro256;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Command-line entry point of the headless simulator.
+ *
+ * <pre>
+ * java sim.SimulatorMain [games] [size] [policy] [threads] [seed]
+ * </pre>
+ *
+ * The policy is {@code random}, {@code greedy}, {@code expectimax[:depth]},
+ * {@code montecarlo[:rollouts[:greedy]]} or {@code ntuple:weights-file} (4x4 only). Runs with
+ * the same seed play the same games, whatever the number of threads; without a seed a random one
+ * is chosen and printed.
+ *
+ * <p>Each worker of an {@code expectimax} run owns a solver that searches on the worker's thread
+ * with a transposition table of 2^{@value #WORKER_TABLE_BITS} slots (4 MB), cleared before every
+ * game. The workers already keep the cores busy, and no game sees values cached by another, so
+ * expectimax runs are reproducible like the others.</p>
+ */
+public class SimulatorMain {
+    /**
+     * The transposition table size of each expectimax worker: 2^18 slots (4 MB).
+     */
+    static final int WORKER_TABLE_BITS = 18;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 10000;
+        int size = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        String policy = args.length > 2 ? args[2] : "random";
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        BatchSimulator simulator = args.length > 4
+                ? new BatchSimulator(size, policyFactory(policy, size), threads, Long.parseLong(args[4]))
+                : new BatchSimulator(size, policyFactory(policy, size), threads);
+        SimulationStats stats = simulator.run(games);
+        System.out.printf("%s policy, %dx%d board, %d threads, seed %d%n", policy, size, size, threads, simulator.getSeed());
+        System.out.print(stats.format());
+    }
+
+    /**
+     * Creates the per-worker policy factory for a policy name.
+     *
+     * @param name The policy name: {@code random}, {@code greedy}, {@code expectimax[:depth]},
+     *             {@code montecarlo[:rollouts[:greedy]]} or {@code ntuple:weights-file}.
+     * @param size The size of the boards the policy will play.
+     * @return A factory creating one policy per worker.
+     * @throws IOException              If the weights file of an n-tuple policy cannot be opened.
+     * @throws IllegalArgumentException If the name is unknown, or names an n-tuple policy for boards that are not 4x4.
+     */
+    static Supplier<MovePolicy> policyFactory(String name, int size) throws IOException {
+        if (name.equals("random")) {
+            return () -> new RandomPolicy(new Xoshiro256());
+        }
+        if (name.equals("greedy")) {
+            return GreedyPolicy::new;
+        }
+        if (name.startsWith("expectimax")) {
+            int depth = name.contains(":")
+                    ? Integer.parseInt(name.substring(name.indexOf(':') + 1))
+                    : ExpectimaxSolver.DEFAULT_DEPTH;
+            // A sequential solver per worker: a shared table would make games depend on each other
+            return () -> new ExpectimaxPolicy(new ExpectimaxSolver(depth, 0, WORKER_TABLE_BITS, null));
+        }
+        if (name.startsWith("montecarlo")) {
+            String[] parts = name.split(":");
+            int rollouts = parts.length > 1 ? Integer.parseInt(parts[1]) : MonteCarloSolver.DEFAULT_ROLLOUTS;
+            MonteCarloSolver.Rollout rollout = parts.length > 2 && parts[2].equals("greedy")
+                    ? MonteCarloSolver.Rollout.GREEDY
+                    : MonteCarloSolver.Rollout.RANDOM;
+            return () -> new MonteCarloPolicy(new MonteCarloSolver(rollouts, 0, 0, rollout, ForkJoinPool.commonPool()));
+        }
+        if (name.startsWith("ntuple:")) {
+            if (size != 4) {
+                throw new IllegalArgumentException("The n-tuple policy only plays 4x4 boards: " + size);
+            }
+            // One read-only mapping shared by all workers
+            NTupleNetwork network = NTupleNetwork.open(Paths.get(name.substring("ntuple:".length())), false);
+            return () -> new NTuplePolicy(network);
+        }
+        throw new IllegalArgumentException("Unknown policy: " + name);
+    }
+}
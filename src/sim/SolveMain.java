@@ -0,0 +1,95 @@
+package sim;
+
+import logic.CompactBoard;
+import logic.Direction;
+import logic.Xoshiro256;
+import storage.GameJournalWriter;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Command-line entry point that plays a single game with one policy and prints how it ends.
+ *
+ * <pre>
+ * java sim.SolveMain [size] [policy] [seed] [journal-file]
+ * </pre>
+ *
+ * The policy is any of the {@link SimulatorMain}'s and defaults to {@code expectimax}. The game
+ * spawns the same tiles as the first game of a simulator batch with the same seed, so with a
+ * deterministic policy a game seen in a batch can be watched on its own. With a journal file every
+ * move is recorded for {@link ReplayMain}.
+ */
+public class SolveMain {
+    public static void main(String[] args) throws IOException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        String policyName = args.length > 1 ? args[1] : "expectimax";
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : new Xoshiro256().nextLong();
+
+        MovePolicy policy = SimulatorMain.policyFactory(policyName, size).get();
+        Xoshiro256 random = new Xoshiro256(seed);
+        CompactBoard board = CompactBoard.create(size, random);
+        random.reseed(Xoshiro256.gameSeed(seed, 0));
+        policy.startGame(random);
+        board.reset();
+
+        long start = System.nanoTime();
+        long moves;
+        if (args.length > 3) {
+            try (GameJournalWriter journal = new GameJournalWriter(Paths.get(args[3]), seed, board)) {
+                moves = playGame(board, policy, journal);
+            }
+        } else {
+            moves = BatchSimulator.playGame(board, policy);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%s policy, %dx%d board, seed %d%n", policyName, size, size, seed);
+        System.out.print(format(board));
+        System.out.printf("Score %d, max tile %d, %d moves in %.2fs%n",
+                board.getScore(), 1L << board.maxExponent(), moves, seconds);
+        if (board.isAtExponentCap()) {
+            System.out.println("The game reached 32768, where 4-bit cells stop merging; a Board may have played on differently.");
+        }
+    }
+
+    /**
+     * Plays one game to the end like {@link BatchSimulator#playGame(CompactBoard, MovePolicy)}, recording every move.
+     *
+     * @param board   The board, already reset.
+     * @param policy  The policy choosing the moves.
+     * @param journal The journal the moves are appended to.
+     * @return The number of moves played.
+     * @throws IOException If the journal cannot be written.
+     */
+    private static long playGame(CompactBoard board, MovePolicy policy, GameJournalWriter journal) throws IOException {
+        while (true) {
+            Direction direction = policy.chooseMove(board);
+            if (direction == null || !board.move(direction)) {
+                return journal.getMoveCount();
+            }
+            journal.append(direction, board);
+        }
+    }
+
+    /**
+     * Formats a board as rows of right-aligned tile values, with a dot for every empty cell.
+     *
+     * @param board The board.
+     * @return The board, one line per row.
+     */
+    static String format(CompactBoard board) {
+        int size = board.getSize();
+        int width = Long.toString(1L << Math.max(1, board.maxExponent())).length();
+        StringBuilder text = new StringBuilder();
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                int exponent = board.getExponent(row, col);
+                String tile = exponent == 0 ? "." : Long.toString(1L << exponent);
+                text.append(col == 0 ? "" : " ").append(" ".repeat(width - tile.length())).append(tile);
+            }
+            text.append(System.lineSeparator());
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,136 @@
+package storage;
+
+import logic.Board;
+import logic.BoardListener;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Saves a game in the background after every change, so that it can be resumed after the program exits.
+ *
+ * <p>After a change only the position is encoded on the thread that changed the board: the score,
+ * the cells and the random number generator, one byte per cell. The bytes are handed to a single
+ * daemon thread that writes them with {@link SaveGame#write(Path, byte[])}. Changes that arrive
+ * while a write is in progress replace each other, so a burst of moves costs one more write, not one
+ * per move, and a slow disk never holds up the game. The undo history, up to
+ * {@value SaveGame#MAX_HISTORY_BYTES} bytes, is only encoded by {@link #close()}, so a game resumed
+ * after a crash continues from its last position without undo.</p>
+ *
+ * <p>A game that is over is not worth resuming: once the board can no longer move, the save game
+ * file is deleted instead of written.</p>
+ */
+public class AutoSaver implements BoardListener, AutoCloseable {
+    /** The save game file. */
+    private final Path file;
+
+    /** Whether the undo history is saved as well. */
+    private final boolean withHistory;
+
+    /** Pending in place of a save game when the file is to be deleted. */
+    private static final byte[] DELETE = new byte[0];
+
+    /** The latest encoded save game not yet written, {@link #DELETE}, or null if the file is up to date. */
+    private final AtomicReference<byte[]> pending = new AtomicReference<>();
+
+    /** The board saved last, for the final save with history on {@link #close()}. */
+    private volatile Board board;
+
+    /** The thread writing the file. */
+    private final ExecutorService writer;
+
+    /**
+     * Constructs a new auto saver; register it with {@link Board#addBoardListener(BoardListener)}.
+     *
+     * @param file        The save game file.
+     * @param withHistory Whether to save the undo history as well when the saver is closed.
+     */
+    public AutoSaver(Path file, boolean withHistory) {
+        this.file = file;
+        this.withHistory = withHistory;
+        writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "autosave");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Runtime.getRuntime().addShutdownHook(new Thread(this::writePending, "autosave-shutdown"));
+    }
+
+    /**
+     * Encodes the position of the changed board and schedules a write unless one is already scheduled.
+     *
+     * @param board The board that changed.
+     */
+    @Override
+    public void boardChanged(Board board) {
+        save(board);
+    }
+
+    /**
+     * Encodes the position of a board, or marks the file for deletion if the game is over, and
+     * schedules a write unless one is already scheduled. Must be called on the thread that changes the board.
+     *
+     * @param board The board to save.
+     */
+    public void save(Board board) {
+        this.board = board;
+        if (pending.getAndSet(encode(board, false)) == null && !writer.isShutdown()) {
+            writer.execute(this::writePending);
+        }
+    }
+
+    /**
+     * Encodes a board for saving.
+     *
+     * @param board       The board.
+     * @param withHistory Whether to store the undo history as well.
+     * @return The bytes of the save game, or {@link #DELETE} if the game is over.
+     */
+    private static byte[] encode(Board board, boolean withHistory) {
+        return board.canMove() ? SaveGame.encode(board, withHistory) : DELETE;
+    }
+
+    /**
+     * Writes the latest encoded save game, or deletes the file, if anything is pending. Synchronized
+     * so that an older save game taken by one thread can never overwrite a newer one taken by another.
+     */
+    private synchronized void writePending() {
+        byte[] data = pending.getAndSet(null);
+        if (data == null) {
+            return;
+        }
+        try {
+            if (data == DELETE) {
+                Files.deleteIfExists(file);
+            } else {
+                SaveGame.write(file, data);
+            }
+        } catch (IOException e) {
+            e.printStackTrace(); // The game goes on; only the save is lost
+        }
+    }
+
+    /**
+     * Stops the background thread, then saves the last board once more, with its undo history if
+     * the saver was constructed with it. Call it once the board no longer changes.
+     */
+    @Override
+    public void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Board last = board;
+        if (last != null) {
+            pending.set(encode(last, withHistory));
+        }
+        writePending();
+    }
+}
@@ -0,0 +1,106 @@
+package storage;
+
+import logic.CompactBoard;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Layout of the binary game journal shared by {@link GameJournalWriter} and {@link GameJournalReader}.
+ *
+ * <p>A journal holds one game. It starts with a fixed {@value #HEADER_BYTES}-byte header
+ * (magic, version, board size, record width, checkpoint interval, seed, creation time),
+ * followed by fixed-size blocks. Every block starts with a checkpoint, the packed board and score
+ * after {@code block * interval} moves, followed by up to {@code interval} move records. Because
+ * every block has the same size, the block holding any move is found by arithmetic alone and at
+ * most {@code interval} moves are replayed from its checkpoint.</p>
+ *
+ * <p>A move record packs the direction (2 bits), whether the spawned tile is a 4 (1 bit) and the
+ * cell of the spawned tile ({@code row * size + col}) into one byte for boards of up to 5x5 and
+ * two bytes for larger boards. A checkpoint packs every cell as a 4-bit exponent, row by row,
+ * followed by the score as an int. All values are big-endian.</p>
+ */
+final class GameJournal {
+    /** Magic number at the start of every journal: "GJRN". */
+    static final int MAGIC = 0x474A524E;
+
+    /** The current format version. */
+    static final short VERSION = 1;
+
+    /** The size of the header in bytes. */
+    static final int HEADER_BYTES = 32;
+
+    /** The default number of moves between two checkpoints. */
+    static final int DEFAULT_CHECKPOINT_INTERVAL = 256;
+
+    private GameJournal() {
+    }
+
+    /**
+     * Computes the width of a move record.
+     *
+     * @param size The board size.
+     * @return 1 if the cell index fits in 5 bits, otherwise 2.
+     */
+    static int recordBytes(int size) {
+        return size * size <= 32 ? 1 : 2;
+    }
+
+    /**
+     * Computes the width of a checkpoint.
+     *
+     * @param size The board size.
+     * @return The number of bytes of one packed board plus its score.
+     */
+    static int checkpointBytes(int size) {
+        return (size * size + 1) / 2 + Integer.BYTES;
+    }
+
+    /**
+     * Packs a move record.
+     *
+     * @param direction The ordinal of the direction played.
+     * @param cell      The cell of the spawned tile.
+     * @param exponent  The exponent of the spawned tile (1 or 2).
+     * @return The packed record.
+     */
+    static int encodeRecord(int direction, int cell, int exponent) {
+        return direction | (exponent == 2 ? 4 : 0) | (cell << 3);
+    }
+
+    /**
+     * Writes a checkpoint of a board.
+     *
+     * @param board  The board.
+     * @param buffer The buffer to write to.
+     */
+    static void writeCheckpoint(CompactBoard board, ByteBuffer buffer) {
+        int size = board.getSize();
+        int cells = size * size;
+        for (int cell = 0; cell < cells; cell += 2) {
+            int high = board.getExponent(cell / size, cell % size);
+            int low = cell + 1 < cells ? board.getExponent((cell + 1) / size, (cell + 1) % size) : 0;
+            buffer.put((byte) (high << 4 | low));
+        }
+        buffer.putInt(board.getScore());
+    }
+
+    /**
+     * Restores a board from a checkpoint.
+     *
+     * @param buffer   The buffer holding the journal.
+     * @param position The position of the checkpoint in the buffer.
+     * @param board    The board to restore into.
+     */
+    static void readCheckpoint(ByteBuffer buffer, int position, CompactBoard board) {
+        int size = board.getSize();
+        int cells = size * size;
+        for (int cell = 0; cell < cells; cell += 2) {
+            int packed = buffer.get(position + cell / 2) & 0xFF;
+            board.setExponent(cell / size, cell % size, packed >>> 4);
+            if (cell + 1 < cells) {
+                board.setExponent((cell + 1) / size, (cell + 1) % size, packed & 0xF);
+            }
+        }
+        board.setScore(buffer.getInt(position + (cells + 1) / 2));
+    }
+}
@@ -0,0 +1,230 @@
+package storage;
+
+import logic.CompactBoard;
+import logic.Direction;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.random.RandomGenerator;
+
+/**
+ * Reads a game journal written by {@link GameJournalWriter} through a memory-mapped file.
+ *
+ * <p>Any position of the game can be reconstructed by seeking to the checkpoint of its block
+ * and replaying at most one checkpoint interval of moves, independent of the length of the game.
+ * A journal cut short by a crash is read up to its last complete record.</p>
+ */
+public class GameJournalReader implements AutoCloseable {
+    /** The channel of the journal file. */
+    private final FileChannel channel;
+
+    /** The mapped contents of the journal. */
+    private final MappedByteBuffer buffer;
+
+    /** The board size of the game. */
+    private final int size;
+
+    /** The width of a move record in bytes. */
+    private final int recordBytes;
+
+    /** The number of moves between two checkpoints. */
+    private final int checkpointInterval;
+
+    /** The width of a checkpoint in bytes. */
+    private final int checkpointBytes;
+
+    /** The width of a block (checkpoint plus a full interval of records) in bytes. */
+    private final long blockBytes;
+
+    /** The seed of the random number generator the game was started with. */
+    private final long seed;
+
+    /** The time the journal was created, in milliseconds since the epoch. */
+    private final long createdMillis;
+
+    /** The number of complete move records in the journal. */
+    private final long moveCount;
+
+    /**
+     * Opens and maps a journal.
+     *
+     * @param file The journal file.
+     * @throws IOException If the file cannot be read or is not a journal.
+     */
+    public GameJournalReader(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long length = channel.size();
+            if (length < GameJournal.HEADER_BYTES || length > Integer.MAX_VALUE) {
+                throw new IOException("Not a game journal: " + file);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            if (buffer.getInt(0) != GameJournal.MAGIC) {
+                throw new IOException("Not a game journal: " + file);
+            }
+            if (buffer.getShort(4) != GameJournal.VERSION) {
+                throw new IOException("Unsupported game journal version " + buffer.getShort(4) + ": " + file);
+            }
+            size = buffer.get(6);
+            recordBytes = buffer.get(7);
+            checkpointInterval = buffer.getInt(8);
+            seed = buffer.getLong(12);
+            createdMillis = buffer.getLong(20);
+            checkpointBytes = GameJournal.checkpointBytes(size);
+            blockBytes = checkpointBytes + (long) checkpointInterval * recordBytes;
+
+            long body = length - GameJournal.HEADER_BYTES;
+            long rest = body % blockBytes;
+            long partial = rest >= checkpointBytes ? (rest - checkpointBytes) / recordBytes : 0;
+            moveCount = body / blockBytes * checkpointInterval + partial;
+            if (body < checkpointBytes) {
+                throw new IOException("Game journal has no initial board: " + file);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the board size of the game.
+     *
+     * @return The board size.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the seed of the random number generator the game was started with.
+     *
+     * @return The seed.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Gets the time the journal was created.
+     *
+     * @return The creation time in milliseconds since the epoch.
+     */
+    public long getCreatedMillis() {
+        return createdMillis;
+    }
+
+    /**
+     * Gets the number of moves in the journal.
+     *
+     * @return The number of moves.
+     */
+    public long getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * Gets the direction of a move.
+     *
+     * @param move The index of the move, from 0.
+     * @return The direction played.
+     */
+    public Direction getMove(long move) {
+        return Direction.fromOrdinal(record(move) & 3);
+    }
+
+    /**
+     * Gets the cell of the tile spawned by a move.
+     *
+     * @param move The index of the move, from 0.
+     * @return The cell index ({@code row * size + col}).
+     */
+    public int getSpawnCell(long move) {
+        return record(move) >>> 3;
+    }
+
+    /**
+     * Gets the exponent of the tile spawned by a move.
+     *
+     * @param move The index of the move, from 0.
+     * @return 1 for a 2, 2 for a 4.
+     */
+    public int getSpawnExponent(long move) {
+        return (record(move) & 4) != 0 ? 2 : 1;
+    }
+
+    /**
+     * Reconstructs the board after the given number of moves into a new board.
+     *
+     * @param moves  The number of moves, from 0 (the initial board) to {@link #getMoveCount()}.
+     * @param random The random number generator of the new board, used if play continues from it.
+     * @return The reconstructed board.
+     */
+    public CompactBoard boardAfter(long moves, RandomGenerator random) {
+        CompactBoard board = CompactBoard.create(size, random);
+        replayTo(moves, board);
+        return board;
+    }
+
+    /**
+     * Reconstructs the board after the given number of moves into an existing board of the same size.
+     * Seeks to the nearest checkpoint and replays at most one checkpoint interval of moves.
+     *
+     * @param moves The number of moves, from 0 (the initial board) to {@link #getMoveCount()}.
+     * @param board The board to overwrite.
+     */
+    public void replayTo(long moves, CompactBoard board) {
+        if (moves < 0 || moves > moveCount) {
+            throw new IndexOutOfBoundsException("Move " + moves + " of " + moveCount);
+        }
+        long block = moves / checkpointInterval;
+        if (checkpointPosition(block) + checkpointBytes > buffer.limit()) {
+            // The journal ends exactly where this checkpoint should start
+            block--;
+        }
+        GameJournal.readCheckpoint(buffer, (int) checkpointPosition(block), board);
+        for (long move = block * checkpointInterval; move < moves; move++) {
+            int record = record(move);
+            int cell = record >>> 3;
+            board.slide(Direction.fromOrdinal(record & 3));
+            board.setExponent(cell / size, cell % size, (record & 4) != 0 ? 2 : 1);
+        }
+    }
+
+    /**
+     * Closes the file. The mapping stays valid until it is garbage collected.
+     *
+     * @throws IOException If the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Computes the position of the checkpoint that starts a block.
+     *
+     * @param block The block index.
+     * @return The position in the file.
+     */
+    private long checkpointPosition(long block) {
+        return GameJournal.HEADER_BYTES + block * blockBytes;
+    }
+
+    /**
+     * Reads a packed move record.
+     *
+     * @param move The index of the move, from 0.
+     * @return The packed record.
+     */
+    private int record(long move) {
+        if (move < 0 || move >= moveCount) {
+            throw new IndexOutOfBoundsException("Move " + move + " of " + moveCount);
+        }
+        long block = move / checkpointInterval;
+        int position = (int) (checkpointPosition(block) + checkpointBytes + (move % checkpointInterval) * recordBytes);
+        return recordBytes == 1 ? buffer.get(position) & 0xFF : buffer.getShort(position) & 0xFFFF;
+    }
+}
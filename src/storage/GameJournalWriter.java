@@ -0,0 +1,173 @@
+package storage;
+
+import logic.CompactBoard;
+import logic.Direction;
+import metrics.Instrumentation;
+import metrics.Operation;
+import metrics.PersistEvent;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends one game to a binary journal (see {@link GameJournal} for the layout).
+ * Records are collected in a buffer and written to the file in large chunks.
+ *
+ * <p>Typical use: create the writer with the freshly reset board, then call
+ * {@link #append(Direction, CompactBoard)} after every successful move.</p>
+ */
+public class GameJournalWriter implements AutoCloseable {
+    /** The size of the write buffer in bytes. */
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    /** The journal file, for instrumentation. */
+    private final String fileName;
+
+    /** The channel of the journal file. */
+    private final FileChannel channel;
+
+    /** Pending bytes not yet written to the channel. */
+    private final ByteBuffer buffer;
+
+    /** The board size of the game. */
+    private final int size;
+
+    /** The number of moves between two checkpoints. */
+    private final int checkpointInterval;
+
+    /** The width of a move record in bytes. */
+    private final int recordBytes;
+
+    /** The number of moves appended so far. */
+    private long moves;
+
+    /**
+     * Creates a new journal with the default checkpoint interval, replacing any existing file.
+     *
+     * @param file    The journal file.
+     * @param seed    The seed of the random number generator the game was started with.
+     * @param initial The board at the start of the game, after the two initial tiles were placed.
+     * @throws IOException If the file cannot be created.
+     */
+    public GameJournalWriter(Path file, long seed, CompactBoard initial) throws IOException {
+        this(file, seed, initial, GameJournal.DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    /**
+     * Creates a new journal, replacing any existing file.
+     *
+     * @param file               The journal file.
+     * @param seed               The seed of the random number generator the game was started with.
+     * @param initial            The board at the start of the game, after the two initial tiles were placed.
+     * @param checkpointInterval The number of moves between two checkpoints.
+     * @throws IOException If the file cannot be created.
+     */
+    public GameJournalWriter(Path file, long seed, CompactBoard initial, int checkpointInterval) throws IOException {
+        if (checkpointInterval < 1) {
+            throw new IllegalArgumentException("Checkpoint interval must be positive: " + checkpointInterval);
+        }
+        this.fileName = file.toString();
+        this.size = initial.getSize();
+        this.checkpointInterval = checkpointInterval;
+        this.recordBytes = GameJournal.recordBytes(size);
+        this.buffer = ByteBuffer.allocateDirect(Math.max(BUFFER_BYTES, GameJournal.HEADER_BYTES + GameJournal.checkpointBytes(size)));
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+
+        buffer.putInt(GameJournal.MAGIC);
+        buffer.putShort(GameJournal.VERSION);
+        buffer.put((byte) size);
+        buffer.put((byte) recordBytes);
+        buffer.putInt(checkpointInterval);
+        buffer.putLong(seed);
+        buffer.putLong(System.currentTimeMillis());
+        buffer.putInt(0); // Reserved
+        GameJournal.writeCheckpoint(initial, buffer);
+    }
+
+    /**
+     * Appends a move. Must be called right after {@code board.move(direction)} returned true,
+     * so that the board still reports the tile that the move spawned.
+     *
+     * @param direction The direction that was played.
+     * @param board     The board after the move and its spawn.
+     * @throws IOException If the journal cannot be written.
+     */
+    public void append(Direction direction, CompactBoard board) throws IOException {
+        ensureCapacity(recordBytes);
+        int record = GameJournal.encodeRecord(direction.ordinal(), board.getLastSpawnCell(), board.getLastSpawnExponent());
+        if (recordBytes == 1) {
+            buffer.put((byte) record);
+        } else {
+            buffer.putShort((short) record);
+        }
+        moves++;
+        if (moves % checkpointInterval == 0) {
+            // Start the next block with a checkpoint of the board after this move
+            ensureCapacity(GameJournal.checkpointBytes(size));
+            GameJournal.writeCheckpoint(board, buffer);
+        }
+    }
+
+    /**
+     * Gets the number of moves appended so far.
+     *
+     * @return The number of moves.
+     */
+    public long getMoveCount() {
+        return moves;
+    }
+
+    /**
+     * Writes all buffered records to the file.
+     *
+     * @throws IOException If the journal cannot be written.
+     */
+    public void flush() throws IOException {
+        long start = Instrumentation.start();
+        PersistEvent event = new PersistEvent();
+        event.begin();
+        buffer.flip();
+        int bytes = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+        event.end();
+        if (event.shouldCommit()) {
+            event.file = fileName;
+            event.bytes = bytes;
+            event.commit();
+        }
+        Instrumentation.record(Operation.PERSIST, start);
+    }
+
+    /**
+     * Flushes the buffered records and closes the file.
+     *
+     * @throws IOException If the journal cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Flushes the buffer if it cannot hold the given number of bytes.
+     *
+     * @param bytes The number of bytes about to be written.
+     * @throws IOException If the journal cannot be written.
+     */
+    private void ensureCapacity(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+}
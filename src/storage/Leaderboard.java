@@ -0,0 +1,560 @@
+package storage;
+
+import metrics.Instrumentation;
+import metrics.Operation;
+import metrics.PersistEvent;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The top scores per board size, kept in memory and persisted to a compact binary file.
+ *
+ * <p>Each board size has its own table holding at most {@code capacity} entries, sorted by
+ * descending score; equal scores rank in the order they were submitted. A table is published
+ * as an immutable array through a volatile field, so lookups and rank queries never lock and
+ * a rank is found by binary search in O(log n). Submissions that cannot make the table are
+ * rejected without locking; the others lock only the table of their own board size.</p>
+ *
+ * <p>The file is an append-only log of accepted entries behind a 16-byte header. Accepted
+ * entries are appended in the background, at most once per flush interval, so a submission
+ * never waits for the disk and the file is never rewritten as a whole during play. When the
+ * file is opened, the log is replayed into the tables and, if it has grown much longer than
+ * the live entries, compacted into a fresh file that is atomically renamed over the old one.</p>
+ *
+ * <pre>
+ * header: int magic, short version, short record size, int capacity, int reserved
+ * record: long score (-1 clears the size), long timestamp, short size, byte name length,
+ *         16 bytes UTF-8 name, 5 bytes padding
+ * </pre>
+ */
+public class Leaderboard implements AutoCloseable {
+    /**
+     * File path for storing the leaderboard.
+     */
+    public static final String DEFAULT_FILE = "leaderboard.bin";
+
+    /**
+     * The file that held the single high score before the leaderboard existed.
+     */
+    public static final String LEGACY_FILE = "highscore.txt";
+
+    /**
+     * The default number of entries kept per board size.
+     */
+    public static final int DEFAULT_CAPACITY = 100;
+
+    /**
+     * The default interval between background flushes, in milliseconds.
+     */
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 1000;
+
+    /**
+     * The longest player name kept, in UTF-8 bytes.
+     */
+    public static final int MAX_NAME_BYTES = 16;
+
+    /** Identifies leaderboard files: "LDRB". */
+    private static final int MAGIC = 0x4C445242;
+
+    /** The version of the file format. */
+    private static final short VERSION = 1;
+
+    /** The size of the file header in bytes. */
+    private static final int HEADER_BYTES = 16;
+
+    /** The size of one record in bytes. */
+    private static final int RECORD_BYTES = 40;
+
+    /** The score of a record that clears all entries of its board size. */
+    private static final long CLEAR = -1;
+
+    /** Shared by all empty tables. */
+    private static final LeaderboardEntry[] NO_ENTRIES = new LeaderboardEntry[0];
+
+    /**
+     * The shared leaderboard for {@link #DEFAULT_FILE}, created on first use.
+     */
+    private static Leaderboard defaultLeaderboard;
+
+    /** The file the leaderboard is persisted to. */
+    private final Path file;
+
+    /** The maximum number of entries per board size. */
+    private final int capacity;
+
+    /** The tables by board size. */
+    private final ConcurrentHashMap<Integer, Table> tables = new ConcurrentHashMap<>();
+
+    /** Accepted entries and clear records not yet appended to the file, in the order they were applied. */
+    private final Queue<LeaderboardEntry> pending = new ConcurrentLinkedQueue<>();
+
+    /** Serializes appends to the file. */
+    private final Object writeLock = new Object();
+
+    /** The open file, positioned at its end. */
+    private final FileChannel channel;
+
+    /** The background thread that appends pending records. */
+    private final ScheduledExecutorService flusher;
+
+    /**
+     * The sorted entries of one board size, replaced as a whole on every change.
+     */
+    private static final class Table {
+        /** The entries by descending score. Never modified once published. */
+        volatile LeaderboardEntry[] entries = NO_ENTRIES;
+    }
+
+    /**
+     * Opens a leaderboard, loading and if necessary compacting the file.
+     *
+     * @param file                The file the leaderboard is persisted to; created if it does not exist.
+     * @param capacity            The maximum number of entries per board size.
+     * @param flushIntervalMillis The interval between background flushes, in milliseconds.
+     * @throws IOException If the file cannot be read or created.
+     */
+    public Leaderboard(Path file, int capacity, long flushIntervalMillis) throws IOException {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.file = file;
+        this.capacity = capacity;
+        long records = load();
+        long live = 0;
+        for (Table table : tables.values()) {
+            live += table.entries.length;
+        }
+        if (records > 2 * live + capacity) {
+            compact();
+        }
+        channel = openForAppend();
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "leaderboard-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Gets the shared leaderboard for {@link #DEFAULT_FILE}, creating it on first use with {@link #open(Path)}.
+     * The shared leaderboard is flushed by a shutdown hook when the JVM exits. Programs that close the
+     * leaderboard themselves, after work of their own at shutdown, should {@link #open(Path)} it instead.
+     *
+     * @return The default leaderboard.
+     */
+    public static synchronized Leaderboard getDefault() {
+        if (defaultLeaderboard == null) {
+            Leaderboard leaderboard = open(Paths.get(DEFAULT_FILE));
+            Runtime.getRuntime().addShutdownHook(new Thread(leaderboard::close, "leaderboard-shutdown"));
+            defaultLeaderboard = leaderboard;
+        }
+        return defaultLeaderboard;
+    }
+
+    /**
+     * Opens a leaderboard with the default capacity and flush interval. A new leaderboard takes over
+     * the score from {@link #LEGACY_FILE} next to it as a 4x4 entry. The caller owns the leaderboard
+     * and must {@link #close()} it, or the last second of submissions is lost.
+     *
+     * @param path The file the leaderboard is persisted to.
+     * @return The open leaderboard.
+     * @throws IllegalStateException If the file cannot be opened.
+     */
+    public static Leaderboard open(Path path) {
+        boolean fresh = !Files.exists(path);
+        Leaderboard leaderboard;
+        try {
+            leaderboard = new Leaderboard(path, DEFAULT_CAPACITY, DEFAULT_FLUSH_INTERVAL_MILLIS);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot open the leaderboard " + path.toAbsolutePath(), e);
+        }
+        if (fresh) {
+            int legacy = loadLegacyHighScore(path.resolveSibling(LEGACY_FILE));
+            if (legacy > 0) {
+                leaderboard.submit("-", 4, legacy);
+            }
+        }
+        return leaderboard;
+    }
+
+    /**
+     * Gets the maximum number of entries kept per board size.
+     *
+     * @return The capacity.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Submits a score. Never blocks on I/O, and does not lock at all if the score cannot make the table.
+     *
+     * @param player The name of the player; truncated to {@link #MAX_NAME_BYTES} bytes when stored.
+     * @param size   The size of the board the game was played on.
+     * @param score  The final score of the game.
+     * @return The 1-based position the score took, or 0 if it did not make the table.
+     */
+    public int submit(String player, int size, long score) {
+        if (score <= 0) {
+            return 0;
+        }
+        Table table = table(size);
+        LeaderboardEntry[] entries = table.entries;
+        if (entries.length == capacity && score <= entries[capacity - 1].getScore()) {
+            return 0;
+        }
+        LeaderboardEntry entry = new LeaderboardEntry(truncate(player), size, score, System.currentTimeMillis());
+        synchronized (table) {
+            int index = insert(table, entry);
+            if (index >= 0) {
+                pending.add(entry); // Queued under the lock, so the file sees the same order as the table
+            }
+            return index + 1;
+        }
+    }
+
+    /**
+     * Gets the highest score of a board size.
+     *
+     * @param size The board size.
+     * @return The highest score, or 0 if there is none.
+     */
+    public long getBestScore(int size) {
+        LeaderboardEntry[] entries = table(size).entries;
+        return entries.length == 0 ? 0 : entries[0].getScore();
+    }
+
+    /**
+     * Finds the rank a score has, or would have, among the entries of a board size.
+     * Equal scores share a rank. Runs in O(log n) without locking.
+     *
+     * @param size  The board size.
+     * @param score The score to rank.
+     * @return The 1-based rank: one more than the number of entries with a higher score.
+     */
+    public int rank(int size, long score) {
+        return countHigher(table(size).entries, score) + 1;
+    }
+
+    /**
+     * Gets the best entries of a board size.
+     *
+     * @param size  The board size.
+     * @param limit The maximum number of entries to return.
+     * @return The entries by descending score.
+     */
+    public List<LeaderboardEntry> top(int size, int limit) {
+        LeaderboardEntry[] entries = table(size).entries;
+        return Arrays.asList(Arrays.copyOf(entries, Math.min(limit, entries.length)));
+    }
+
+    /**
+     * Removes all entries of a board size. The change is written by the next flush.
+     *
+     * @param size The board size.
+     */
+    public void clear(int size) {
+        Table table = table(size);
+        synchronized (table) {
+            table.entries = NO_ENTRIES;
+            pending.add(new LeaderboardEntry("", size, CLEAR, System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * Appends the pending records to the file.
+     */
+    public void flush() {
+        synchronized (writeLock) {
+            if (pending.isEmpty() || !channel.isOpen()) {
+                return;
+            }
+            long start = Instrumentation.start();
+            PersistEvent event = new PersistEvent();
+            event.begin();
+            List<LeaderboardEntry> batch = new ArrayList<>();
+            for (LeaderboardEntry entry; (entry = pending.poll()) != null; ) {
+                batch.add(entry);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(batch.size() * RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            for (LeaderboardEntry entry : batch) {
+                putRecord(buffer, entry);
+            }
+            buffer.flip();
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } catch (IOException e) {
+                e.printStackTrace(); // The entries stay in memory; only their persistence is lost
+            }
+            event.end();
+            if (event.shouldCommit()) {
+                event.file = file.toString();
+                event.records = batch.size();
+                event.bytes = (long) batch.size() * RECORD_BYTES;
+                event.commit();
+            }
+            Instrumentation.record(Operation.PERSIST, start);
+        }
+    }
+
+    /**
+     * Stops the background thread, appends any pending records and closes the file.
+     */
+    @Override
+    public void close() {
+        flusher.shutdown();
+        synchronized (writeLock) {
+            flush();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Gets the table of a board size, creating it if necessary.
+     *
+     * @param size The board size.
+     * @return The table.
+     */
+    private Table table(int size) {
+        return tables.computeIfAbsent(size, key -> new Table());
+    }
+
+    /**
+     * Inserts an entry into a table, dropping the lowest entry if the table is full. Must hold the table's monitor.
+     *
+     * @param table The table.
+     * @param entry The entry to insert.
+     * @return The 0-based position of the entry, or -1 if it did not make the table.
+     */
+    private int insert(Table table, LeaderboardEntry entry) {
+        LeaderboardEntry[] entries = table.entries;
+        // Later submissions rank below earlier ones with the same score
+        int index = countHigher(entries, entry.getScore() - 1);
+        if (index >= capacity) {
+            return -1;
+        }
+        LeaderboardEntry[] updated = new LeaderboardEntry[Math.min(capacity, entries.length + 1)];
+        System.arraycopy(entries, 0, updated, 0, index);
+        updated[index] = entry;
+        System.arraycopy(entries, index, updated, index + 1, updated.length - index - 1);
+        table.entries = updated;
+        return index;
+    }
+
+    /**
+     * Counts the entries with a score above the given one by binary search.
+     *
+     * @param entries The entries by descending score.
+     * @param score   The score to compare with.
+     * @return The number of entries with a strictly higher score.
+     */
+    private static int countHigher(LeaderboardEntry[] entries, long score) {
+        int low = 0;
+        int high = entries.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (entries[mid].getScore() > score) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Replays the records of the file into the tables.
+     *
+     * @return The number of records in the file.
+     * @throws IOException If the file cannot be read or is not a leaderboard.
+     */
+    private long load() throws IOException {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return 0; // No leaderboard yet
+        }
+        if (bytes.length == 0) {
+            return 0;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        if (bytes.length < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getShort(4) != VERSION
+                || buffer.getShort(6) != RECORD_BYTES) {
+            throw new IOException("Not a leaderboard file: " + file);
+        }
+        long records = (bytes.length - HEADER_BYTES) / RECORD_BYTES; // A torn final record is ignored
+        buffer.position(HEADER_BYTES);
+        for (long i = 0; i < records; i++) {
+            LeaderboardEntry entry = getRecord(buffer);
+            Table table = table(entry.getSize());
+            if (entry.getScore() == CLEAR) {
+                table.entries = NO_ENTRIES;
+            } else {
+                insert(table, entry);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Rewrites the file with only the live entries, atomically replacing the old one.
+     *
+     * @throws IOException If the file cannot be written.
+     */
+    private void compact() throws IOException {
+        List<LeaderboardEntry> live = new ArrayList<>();
+        for (Table table : tables.values()) {
+            live.addAll(Arrays.asList(table.entries)); // Descending order replays to the same table
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + live.size() * RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        putHeader(buffer);
+        for (LeaderboardEntry entry : live) {
+            putRecord(buffer, entry);
+        }
+        Path directory = file.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, buffer.array());
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Opens the file for appending, writing the header if the file is new or empty.
+     * A torn final record left by a crash is cut off so that appends stay aligned.
+     *
+     * @return The channel, positioned at the end of the file.
+     * @throws IOException If the file cannot be opened.
+     */
+    private FileChannel openForAppend() throws IOException {
+        FileChannel opened = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long length = opened.size();
+        if (length < HEADER_BYTES) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            putHeader(header);
+            header.flip();
+            opened.truncate(0);
+            opened.write(header, 0);
+            length = HEADER_BYTES;
+        } else {
+            length -= (length - HEADER_BYTES) % RECORD_BYTES;
+            opened.truncate(length);
+        }
+        opened.position(length);
+        return opened;
+    }
+
+    /**
+     * Writes the file header.
+     *
+     * @param buffer The buffer to write to.
+     */
+    private void putHeader(ByteBuffer buffer) {
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        buffer.putShort((short) RECORD_BYTES);
+        buffer.putInt(capacity);
+        buffer.putInt(0);
+    }
+
+    /**
+     * Writes one record.
+     *
+     * @param buffer The buffer to write to.
+     * @param entry  The entry to write.
+     */
+    private static void putRecord(ByteBuffer buffer, LeaderboardEntry entry) {
+        byte[] name = entry.getPlayer().getBytes(StandardCharsets.UTF_8);
+        int start = buffer.position();
+        buffer.putLong(entry.getScore());
+        buffer.putLong(entry.getTimestamp());
+        buffer.putShort((short) entry.getSize());
+        buffer.put((byte) name.length);
+        buffer.put(name);
+        buffer.position(start + RECORD_BYTES); // Zero padding
+    }
+
+    /**
+     * Reads one record.
+     *
+     * @param buffer The buffer to read from.
+     * @return The entry.
+     */
+    private static LeaderboardEntry getRecord(ByteBuffer buffer) {
+        int start = buffer.position();
+        long score = buffer.getLong();
+        long timestamp = buffer.getLong();
+        int size = buffer.getShort() & 0xFFFF;
+        int nameLength = Math.min(buffer.get() & 0xFF, MAX_NAME_BYTES);
+        byte[] name = new byte[nameLength];
+        buffer.get(name);
+        buffer.position(start + RECORD_BYTES);
+        return new LeaderboardEntry(new String(name, StandardCharsets.UTF_8), size, score, timestamp);
+    }
+
+    /**
+     * Shortens a player name to at most {@link #MAX_NAME_BYTES} bytes of UTF-8 without splitting a character.
+     *
+     * @param player The player name.
+     * @return The name as it will be stored.
+     */
+    private static String truncate(String player) {
+        String name = player == null ? "" : player;
+        while (name.getBytes(StandardCharsets.UTF_8).length > MAX_NAME_BYTES) {
+            name = name.substring(0, name.offsetByCodePoints(name.length(), -1));
+        }
+        return name;
+    }
+
+    /**
+     * Loads the single high score of the legacy text file.
+     *
+     * @param file The legacy file.
+     * @return The high score, or 0 if the file is missing or invalid.
+     */
+    private static int loadLegacyHighScore(Path file) {
+        try {
+            String content = new String(Files.readAllBytes(file), StandardCharsets.US_ASCII).trim();
+            return content.isEmpty() ? 0 : Integer.parseInt(content);
+        } catch (NoSuchFileException e) {
+            return 0; // Nothing to take over
+        } catch (IOException | NumberFormatException e) {
+            e.printStackTrace();
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package storage;
+
+/**
+ * One result on the {@link Leaderboard}: who scored how much on which board size, and when.
+ * Entries are immutable and can be shared freely between threads.
+ */
+public final class LeaderboardEntry {
+    /** The name of the player. */
+    private final String player;
+
+    /** The size of the board the game was played on. */
+    private final int size;
+
+    /** The final score of the game. */
+    private final long score;
+
+    /** When the score was submitted, in milliseconds since the epoch. */
+    private final long timestamp;
+
+    /**
+     * Constructs a new entry.
+     *
+     * @param player    The name of the player.
+     * @param size      The size of the board the game was played on.
+     * @param score     The final score of the game.
+     * @param timestamp When the score was submitted, in milliseconds since the epoch.
+     */
+    public LeaderboardEntry(String player, int size, long score, long timestamp) {
+        this.player = player;
+        this.size = size;
+        this.score = score;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Gets the name of the player.
+     *
+     * @return The player name.
+     */
+    public String getPlayer() {
+        return player;
+    }
+
+    /**
+     * Gets the size of the board the game was played on.
+     *
+     * @return The board size.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the final score of the game.
+     *
+     * @return The score.
+     */
+    public long getScore() {
+        return score;
+    }
+
+    /**
+     * Gets when the score was submitted.
+     *
+     * @return The time in milliseconds since the epoch.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return player + " " + score + " (" + size + "x" + size + ")";
+    }
+}
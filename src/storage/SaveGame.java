@@ -0,0 +1,283 @@
+package storage;
+
+import logic.Board;
+import logic.Xoshiro256;
+import metrics.Instrumentation;
+import metrics.Operation;
+import metrics.PersistEvent;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Compact binary save game: a game in progress written to one small file and resumed exactly.
+ *
+ * <p>The file holds a 12-byte header (magic, version, flags, board size), the score, the player,
+ * one byte per cell with the tile exponent, optionally the four words of the {@link Xoshiro256}
+ * state so that the resumed game spawns the same tiles, and optionally the undo history as a count,
+ * the index of the current state and one score and cell array per state. A CRC-32 of everything
+ * before it ends the file. All values are little-endian. A 4x4 game with a full undo history fits
+ * in about 25 KB; the history of larger boards is trimmed, oldest state first, to
+ * {@value #MAX_HISTORY_BYTES} bytes.</p>
+ *
+ * <p>Files are replaced atomically: the new contents are written and forced to a temporary file in
+ * the same directory, which is then moved over the old file, so a crash leaves either the old or the
+ * new save game and never a torn one.</p>
+ */
+public final class SaveGame {
+    /** The default save game file, in the working directory. */
+    public static final String DEFAULT_FILE = "savegame.bin";
+
+    /** Magic number at the start of every save game: "2048". */
+    static final int MAGIC = 0x38343032;
+
+    /** The current format version. */
+    static final short VERSION = 1;
+
+    /** Flag set when the random number generator state is stored. */
+    static final short FLAG_RANDOM = 1;
+
+    /** Flag set when the undo history is stored. */
+    static final short FLAG_HISTORY = 2;
+
+    /** Flag set when the game has already been submitted to the leaderboard. */
+    static final short FLAG_SUBMITTED = 4;
+
+    /** Flag set when the game is unranked, for example because it used undo. */
+    static final short FLAG_UNRANKED = 8;
+
+    /** The size of the header in bytes. */
+    static final int HEADER_BYTES = 12;
+
+    /** The largest number of bytes spent on the undo history. */
+    static final int MAX_HISTORY_BYTES = 1 << 20;
+
+    private SaveGame() {
+    }
+
+    /**
+     * Encodes a game into the save game format.
+     *
+     * @param board       The game.
+     * @param withHistory Whether to store the undo history as well.
+     * @return The bytes of the save game.
+     */
+    public static byte[] encode(Board board, boolean withHistory) {
+        int size = board.getSize();
+        int cellCount = size * size;
+        byte[] player = board.getPlayer().getBytes(StandardCharsets.UTF_8);
+        short flags = board.isResultSubmitted() ? FLAG_SUBMITTED : 0;
+        if (!board.isRanked()) {
+            flags |= FLAG_UNRANKED;
+        }
+        long[] randomState = null;
+        if (board.getRandom() instanceof Xoshiro256) {
+            randomState = ((Xoshiro256) board.getRandom()).getState(new long[4]);
+            flags |= FLAG_RANDOM;
+        }
+
+        // Trim the history to its budget, dropping the oldest undo states first, then the newest redo states
+        int first = 0;
+        int last = 0;
+        if (withHistory) {
+            int budget = Math.max(1, MAX_HISTORY_BYTES / (Long.BYTES + cellCount));
+            first = -Math.min(board.getUndoCount(), budget - 1);
+            last = Math.min(board.getRedoCount(), budget - 1 + first);
+            flags |= FLAG_HISTORY;
+        }
+        int states = last - first + 1;
+
+        int length = HEADER_BYTES + Long.BYTES + Short.BYTES + player.length + cellCount
+                + (randomState != null ? 4 * Long.BYTES : 0)
+                + (withHistory ? 2 * Integer.BYTES + states * (Long.BYTES + cellCount) : 0)
+                + Integer.BYTES;
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        buffer.putShort(flags);
+        buffer.putInt(size);
+        buffer.putLong(board.getScore());
+        buffer.putShort((short) player.length);
+        buffer.put(player);
+        byte[] cells = board.getExponents(new byte[cellCount]);
+        buffer.put(cells);
+        if (randomState != null) {
+            for (long word : randomState) {
+                buffer.putLong(word);
+            }
+        }
+        if (withHistory) {
+            buffer.putInt(states);
+            buffer.putInt(-first);
+            for (int offset = first; offset <= last; offset++) {
+                buffer.putLong(board.getHistoryState(offset, cells));
+                buffer.put(cells);
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        return buffer.array();
+    }
+
+    /**
+     * Decodes a save game into a new board, ready to continue where the saved game stopped.
+     *
+     * @param data        The bytes of the save game.
+     * @param leaderboard The leaderboard the resumed game is submitted to.
+     * @return The restored board.
+     * @throws IOException If the data is not a valid save game.
+     */
+    public static Board decode(byte[] data, Leaderboard leaderboard) throws IOException {
+        if (data.length < HEADER_BYTES + Integer.BYTES) {
+            throw new IOException("Not a save game");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("Not a save game");
+        }
+        short version = buffer.getShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported save game version " + version);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length - Integer.BYTES);
+        if (buffer.getInt(data.length - Integer.BYTES) != (int) crc.getValue()) {
+            throw new IOException("Save game is corrupt: checksum mismatch");
+        }
+        try {
+            short flags = buffer.getShort();
+            int size = buffer.getInt();
+            if (size < Board.MIN_SIZE || size > Board.MAX_SIZE) {
+                throw new IOException("Save game has an invalid board size: " + size);
+            }
+            int cellCount = size * size;
+            long score = buffer.getLong();
+            byte[] player = new byte[buffer.getShort() & 0xFFFF];
+            buffer.get(player);
+            byte[] cells = new byte[cellCount];
+            buffer.get(cells);
+            long[] randomState = null;
+            if ((flags & FLAG_RANDOM) != 0) {
+                randomState = new long[4];
+                for (int i = 0; i < randomState.length; i++) {
+                    randomState[i] = buffer.getLong();
+                }
+            }
+
+            byte[][] states = {cells};
+            long[] scores = {score};
+            int current = 0;
+            if ((flags & FLAG_HISTORY) != 0) {
+                int count = buffer.getInt();
+                current = buffer.getInt();
+                if (count < 1 || current < 0 || current >= count
+                        || (long) count * (Long.BYTES + cellCount) > buffer.remaining()) {
+                    throw new IOException("Save game has an invalid history");
+                }
+                states = new byte[count][cellCount];
+                scores = new long[count];
+                for (int i = 0; i < count; i++) {
+                    scores[i] = buffer.getLong();
+                    buffer.get(states[i]);
+                }
+            }
+
+            Xoshiro256 random = new Xoshiro256();
+            Board board = new Board(size, leaderboard, random);
+            if (randomState != null) {
+                random.setState(randomState); // After the constructor has drawn the tiles of its own new game
+            }
+            board.setPlayer(new String(player, StandardCharsets.UTF_8));
+            board.restore(states, scores, current, (flags & FLAG_SUBMITTED) != 0);
+            board.setRanked((flags & FLAG_UNRANKED) == 0);
+            return board;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Save game is corrupt", e);
+        }
+    }
+
+    /**
+     * Writes a save game to a file, atomically replacing any previous one.
+     *
+     * @param file The file.
+     * @param data The bytes of the save game.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(Path file, byte[] data) throws IOException {
+        long start = Instrumentation.start();
+        PersistEvent event = new PersistEvent();
+        event.begin();
+        Path directory = file.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(data);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false); // The contents must be on disk before the rename makes them visible
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.file = file.toString();
+            event.records = 1;
+            event.bytes = data.length;
+            event.commit();
+        }
+        Instrumentation.record(Operation.PERSIST, start);
+    }
+
+    /**
+     * Saves a game to a file, atomically replacing any previous one.
+     *
+     * @param file        The file.
+     * @param board       The game.
+     * @param withHistory Whether to store the undo history as well.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void save(Path file, Board board, boolean withHistory) throws IOException {
+        write(file, encode(board, withHistory));
+    }
+
+    /**
+     * Loads a save game from a file.
+     *
+     * @param file        The file.
+     * @param leaderboard The leaderboard the resumed game is submitted to.
+     * @return The restored board, or null if there is no save game.
+     * @throws IOException If the file cannot be read or is not a valid save game.
+     */
+    public static Board load(Path file, Leaderboard leaderboard) throws IOException {
+        byte[] data;
+        try {
+            data = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        try {
+            return decode(data, leaderboard);
+        } catch (IOException e) {
+            throw new IOException(e.getMessage() + ": " + file, e);
+        }
+    }
+}
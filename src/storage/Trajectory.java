@@ -0,0 +1,109 @@
+package storage;
+
+import logic.BitBoard;
+import logic.CompactBoard;
+
+/**
+ * Layout of the binary trajectory files shared by {@link TrajectoryWriter} and {@link TrajectoryReader}.
+ *
+ * <p>A trajectory file holds the transitions of any number of games: the position before a move,
+ * the move, the score it gained (the reward) and whether it was the last move of its game (the
+ * terminal flag). The file starts with a fixed {@value #HEADER_BYTES}-byte header (magic, version,
+ * board size, words per state, records per block, seed, creation time), followed by blocks of up to
+ * {@code blockRecords} transitions. Within a block the data is stored column by column, so that
+ * every column is one large contiguous run:</p>
+ *
+ * <pre>
+ * int    count                       the number of transitions in the block
+ * long   states[count * stateWords]  the packed positions before the moves
+ * int    rewards[count]              the score gained by each move
+ * byte   moves[(count + 3) / 4]      the direction ordinals, 2 bits each
+ * byte   terminals[(count + 7) / 8]  the terminal flags, 1 bit each
+ * </pre>
+ *
+ * <p>A state packs every cell as a 4-bit exponent, cell {@code row * size + col} in bits
+ * {@code 4 * (cell % 16)} of word {@code cell / 16}, which for a 4x4 board is exactly a
+ * {@link BitBoard} state. Bit fields are filled from the least significant bit. All values are
+ * little-endian. A block cut short by a crash is ignored by the reader.</p>
+ */
+final class Trajectory {
+    /** Magic number at the start of every trajectory file: "TRAJ". */
+    static final int MAGIC = 0x4A415254;
+
+    /** The current format version. */
+    static final short VERSION = 1;
+
+    /** The size of the header in bytes. */
+    static final int HEADER_BYTES = 32;
+
+    /** The default number of transitions per block. */
+    static final int DEFAULT_BLOCK_RECORDS = 65536;
+
+    /** The number of cells packed into one state word. */
+    static final int CELLS_PER_WORD = 16;
+
+    private Trajectory() {
+    }
+
+    /**
+     * Computes the number of words of a packed state.
+     *
+     * @param size The board size.
+     * @return The number of longs per state.
+     */
+    static int stateWords(int size) {
+        return (size * size + CELLS_PER_WORD - 1) / CELLS_PER_WORD;
+    }
+
+    /**
+     * Computes the size of a block.
+     *
+     * @param records    The number of transitions in the block.
+     * @param stateWords The number of words per state.
+     * @return The size of the block in bytes, including its count.
+     */
+    static long blockBytes(int records, int stateWords) {
+        return Integer.BYTES + (long) records * (stateWords * Long.BYTES + Integer.BYTES)
+                + (records + 3) / 4 + (records + 7) / 8;
+    }
+
+    /**
+     * Packs the cells of a board into state words.
+     *
+     * @param board  The board.
+     * @param target The array to fill, at least {@link #stateWords(int)} long.
+     */
+    static void pack(CompactBoard board, long[] target) {
+        if (board instanceof BitBoard) {
+            target[0] = ((BitBoard) board).getState();
+            return;
+        }
+        int size = board.getSize();
+        int words = stateWords(size);
+        for (int word = 0; word < words; word++) {
+            target[word] = 0L;
+        }
+        for (int cell = 0; cell < size * size; cell++) {
+            long exponent = board.getExponent(cell / size, cell % size);
+            target[cell / CELLS_PER_WORD] |= exponent << (4 * (cell % CELLS_PER_WORD));
+        }
+    }
+
+    /**
+     * Unpacks state words into the cells of a board; the score is left alone.
+     *
+     * @param state The packed state.
+     * @param board The board to overwrite.
+     */
+    static void unpack(long[] state, CompactBoard board) {
+        if (board instanceof BitBoard) {
+            ((BitBoard) board).setState(state[0]);
+            return;
+        }
+        int size = board.getSize();
+        for (int cell = 0; cell < size * size; cell++) {
+            int exponent = (int) (state[cell / CELLS_PER_WORD] >>> (4 * (cell % CELLS_PER_WORD))) & 0xF;
+            board.setExponent(cell / size, cell % size, exponent);
+        }
+    }
+}
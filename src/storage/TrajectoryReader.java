@@ -0,0 +1,286 @@
+package storage;
+
+import logic.CompactBoard;
+import logic.Direction;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams the transitions of a trajectory file written by {@link TrajectoryWriter}, one block at a time.
+ *
+ * <p>Only the current block is held in memory, in direct buffers allocated once, so files of any
+ * size are read in constant memory. {@link #next()} advances to the next transition; the getters
+ * then describe it. A reader is not thread-safe; read shards in parallel with one reader each.</p>
+ *
+ * <pre>
+ * try (TrajectoryReader reader = new TrajectoryReader(file)) {
+ *     while (reader.next()) {
+ *         long state = reader.getState(0);
+ *         Direction move = reader.getMove();
+ *         ...
+ *     }
+ * }
+ * </pre>
+ */
+public class TrajectoryReader implements AutoCloseable {
+    /** The trajectory file, for error messages. */
+    private final Path file;
+
+    /** The channel of the trajectory file. */
+    private final FileChannel channel;
+
+    /** The board size of the games. */
+    private final int size;
+
+    /** The number of words per state. */
+    private final int stateWords;
+
+    /** The largest number of transitions per block. */
+    private final int blockRecords;
+
+    /** The seed the games were derived from. */
+    private final long seed;
+
+    /** The time the file was created, in milliseconds since the epoch. */
+    private final long createdMillis;
+
+    /** The count of the current block. */
+    private final ByteBuffer count;
+
+    /** The state column of the current block. */
+    private final ByteBuffer states;
+
+    /** The reward column of the current block. */
+    private final ByteBuffer rewards;
+
+    /** The move column of the current block. */
+    private final ByteBuffer moves;
+
+    /** The terminal flag column of the current block. */
+    private final ByteBuffer terminals;
+
+    /** Scratch buffer for unpacking a state. */
+    private final long[] packed;
+
+    /** The number of transitions in the current block. */
+    private int blockCount;
+
+    /** The index of the current transition in its block; -1 before the first. */
+    private int index = -1;
+
+    /** The number of transitions read so far, including the current one. */
+    private long records;
+
+    /**
+     * Opens a trajectory file and reads its header.
+     *
+     * @param file The trajectory file.
+     * @throws IOException If the file cannot be read or is not a trajectory file.
+     */
+    public TrajectoryReader(Path file) throws IOException {
+        this.file = file;
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(Trajectory.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            if (!readFully(header) || header.getInt(0) != Trajectory.MAGIC) {
+                throw new IOException("Not a trajectory file: " + file);
+            }
+            if (header.getShort(4) != Trajectory.VERSION) {
+                throw new IOException("Unsupported trajectory version " + header.getShort(4) + ": " + file);
+            }
+            size = header.getShort(6);
+            stateWords = header.getInt(8);
+            blockRecords = header.getInt(12);
+            seed = header.getLong(16);
+            createdMillis = header.getLong(24);
+            if (stateWords != Trajectory.stateWords(size) || blockRecords < 1) {
+                throw new IOException("Corrupt trajectory header: " + file);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        count = ByteBuffer.allocateDirect(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        states = ByteBuffer.allocateDirect(blockRecords * stateWords * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        rewards = ByteBuffer.allocateDirect(blockRecords * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        moves = ByteBuffer.allocateDirect((blockRecords + 3) / 4);
+        terminals = ByteBuffer.allocateDirect((blockRecords + 7) / 8);
+        packed = new long[stateWords];
+    }
+
+    /**
+     * Gets the board size of the games.
+     *
+     * @return The board size.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the number of words of a packed state.
+     *
+     * @return The number of longs per state; 1 for boards of up to 4x4.
+     */
+    public int getStateWords() {
+        return stateWords;
+    }
+
+    /**
+     * Gets the seed the games were derived from.
+     *
+     * @return The seed.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Gets the time the file was created.
+     *
+     * @return The creation time in milliseconds since the epoch.
+     */
+    public long getCreatedMillis() {
+        return createdMillis;
+    }
+
+    /**
+     * Gets the number of transitions read so far.
+     *
+     * @return The number of calls to {@link #next()} that returned true.
+     */
+    public long getRecordCount() {
+        return records;
+    }
+
+    /**
+     * Advances to the next transition, reading the next block when the current one is exhausted.
+     *
+     * @return True if there is a next transition, false at the end of the file.
+     * @throws IOException If the file cannot be read.
+     */
+    public boolean next() throws IOException {
+        if (++index >= blockCount && !readBlock()) {
+            return false;
+        }
+        records++;
+        return true;
+    }
+
+    /**
+     * Gets one word of the packed position before the current move.
+     *
+     * @param word The index of the word, below {@link #getStateWords()}.
+     * @return The state word, in the layout of {@link Trajectory}; for a 4x4 board, a {@link logic.BitBoard} state.
+     */
+    public long getState(int word) {
+        return states.getLong((index * stateWords + word) * Long.BYTES);
+    }
+
+    /**
+     * Copies the packed position before the current move.
+     *
+     * @param target The array to fill, at least {@link #getStateWords()} long.
+     * @return The target array.
+     */
+    public long[] getState(long[] target) {
+        for (int word = 0; word < stateWords; word++) {
+            target[word] = getState(word);
+        }
+        return target;
+    }
+
+    /**
+     * Writes the position before the current move into a board; the score is left alone.
+     *
+     * @param board The board to overwrite, of the same size.
+     */
+    public void getBoard(CompactBoard board) {
+        Trajectory.unpack(getState(packed), board);
+    }
+
+    /**
+     * Gets the current move.
+     *
+     * @return The direction played.
+     */
+    public Direction getMove() {
+        return Direction.fromOrdinal(moves.get(index >>> 2) >>> (2 * (index & 3)) & 3);
+    }
+
+    /**
+     * Gets the reward of the current move.
+     *
+     * @return The score the move gained.
+     */
+    public int getReward() {
+        return rewards.getInt(index * Integer.BYTES);
+    }
+
+    /**
+     * Checks whether the current move was the last of its game.
+     *
+     * @return True if the game ended after this move.
+     */
+    public boolean isTerminal() {
+        return (terminals.get(index >>> 3) >>> (index & 7) & 1) != 0;
+    }
+
+    /**
+     * Closes the file.
+     *
+     * @throws IOException If the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Reads the next block into the column buffers.
+     *
+     * @return True if a complete block was read, false at the end of the file or at a block cut short.
+     * @throws IOException If the file cannot be read or a block is corrupt.
+     */
+    private boolean readBlock() throws IOException {
+        count.clear();
+        if (!readFully(count)) {
+            return false;
+        }
+        int length = count.getInt(0);
+        if (length < 1 || length > blockRecords) {
+            throw new IOException("Corrupt trajectory block of " + length + " records: " + file);
+        }
+        states.clear().limit(length * stateWords * Long.BYTES);
+        rewards.clear().limit(length * Integer.BYTES);
+        moves.clear().limit((length + 3) / 4);
+        terminals.clear().limit((length + 7) / 8);
+        if (!readFully(states) || !readFully(rewards) || !readFully(moves) || !readFully(terminals)) {
+            return false; // A torn final block, left by a crash
+        }
+        blockCount = length;
+        index = 0;
+        return true;
+    }
+
+    /**
+     * Fills a buffer from the current position of the file.
+     *
+     * @param buffer The buffer to fill up to its limit.
+     * @return True if the buffer was filled, false if the file ended first.
+     * @throws IOException If the file cannot be read.
+     */
+    private boolean readFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
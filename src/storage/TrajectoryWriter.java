@@ -0,0 +1,250 @@
+package storage;
+
+import logic.CompactBoard;
+import logic.Direction;
+import metrics.Instrumentation;
+import metrics.Operation;
+import metrics.PersistEvent;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends game transitions to a binary trajectory file (see {@link Trajectory} for the layout).
+ *
+ * <p>Each column of the current block is collected in its own direct buffer, and a full block is
+ * written with a single gathering write, so the file grows in runs of a few megabytes no matter how
+ * small the records are. A writer is not thread-safe; parallel exporters give every thread its own
+ * writer and file, a shard.</p>
+ */
+public class TrajectoryWriter implements AutoCloseable {
+    /** The trajectory file, for instrumentation. */
+    private final String fileName;
+
+    /** The channel of the trajectory file. */
+    private final FileChannel channel;
+
+    /** The board size of the games. */
+    private final int size;
+
+    /** The number of words per state. */
+    private final int stateWords;
+
+    /** The largest number of transitions per block. */
+    private final int blockRecords;
+
+    /** The count of the current block. */
+    private final ByteBuffer count;
+
+    /** The state column of the current block. */
+    private final ByteBuffer states;
+
+    /** The reward column of the current block. */
+    private final ByteBuffer rewards;
+
+    /** The move column of the current block. */
+    private final ByteBuffer moves;
+
+    /** The terminal flag column of the current block. */
+    private final ByteBuffer terminals;
+
+    /** All columns of the current block in file order, for the gathering write. */
+    private final ByteBuffer[] block;
+
+    /** Scratch buffer for packing a board. */
+    private final long[] packed;
+
+    /** The number of transitions in the current block. */
+    private int blockCount;
+
+    /** The number of transitions appended so far. */
+    private long records;
+
+    /**
+     * Creates a new trajectory file with the default block size, replacing any existing file.
+     *
+     * @param file The trajectory file.
+     * @param size The board size of the games.
+     * @param seed The seed the games were derived from.
+     * @throws IOException If the file cannot be created.
+     */
+    public TrajectoryWriter(Path file, int size, long seed) throws IOException {
+        this(file, size, seed, Trajectory.DEFAULT_BLOCK_RECORDS);
+    }
+
+    /**
+     * Creates a new trajectory file, replacing any existing file.
+     *
+     * @param file         The trajectory file.
+     * @param size         The board size of the games.
+     * @param seed         The seed the games were derived from.
+     * @param blockRecords The largest number of transitions per block.
+     * @throws IOException If the file cannot be created.
+     */
+    public TrajectoryWriter(Path file, int size, long seed, int blockRecords) throws IOException {
+        if (blockRecords < 1) {
+            throw new IllegalArgumentException("Block size must be positive: " + blockRecords);
+        }
+        this.fileName = file.toString();
+        this.size = size;
+        this.stateWords = Trajectory.stateWords(size);
+        this.blockRecords = blockRecords;
+        count = ByteBuffer.allocateDirect(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        states = ByteBuffer.allocateDirect(blockRecords * stateWords * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        rewards = ByteBuffer.allocateDirect(blockRecords * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        moves = ByteBuffer.allocateDirect((blockRecords + 3) / 4);
+        terminals = ByteBuffer.allocateDirect((blockRecords + 7) / 8);
+        block = new ByteBuffer[] {count, states, rewards, moves, terminals};
+        packed = new long[stateWords];
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+
+        ByteBuffer header = ByteBuffer.allocate(Trajectory.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(Trajectory.MAGIC);
+        header.putShort(Trajectory.VERSION);
+        header.putShort((short) size);
+        header.putInt(stateWords);
+        header.putInt(blockRecords);
+        header.putLong(seed);
+        header.putLong(System.currentTimeMillis());
+        header.flip();
+        try {
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        startBlock();
+    }
+
+    /**
+     * Appends a transition, packing the position from a board. Call it with the board as it was
+     * before the move, or pack the position first and use {@link #append(long[], Direction, int, boolean)}.
+     *
+     * @param before   The position before the move.
+     * @param move     The direction played.
+     * @param reward   The score the move gained.
+     * @param terminal Whether this was the last move of the game.
+     * @throws IOException If the file cannot be written.
+     */
+    public void append(CompactBoard before, Direction move, int reward, boolean terminal) throws IOException {
+        Trajectory.pack(before, packed);
+        append(packed, move, reward, terminal);
+    }
+
+    /**
+     * Appends a transition.
+     *
+     * @param state    The packed position before the move, in the layout of {@link Trajectory}.
+     * @param move     The direction played.
+     * @param reward   The score the move gained.
+     * @param terminal Whether this was the last move of the game.
+     * @throws IOException If the file cannot be written.
+     */
+    public void append(long[] state, Direction move, int reward, boolean terminal) throws IOException {
+        for (int word = 0; word < stateWords; word++) {
+            states.putLong(state[word]);
+        }
+        rewards.putInt(reward);
+        int moveShift = 2 * (blockCount & 3);
+        moves.put(blockCount >>> 2, (byte) (moves.get(blockCount >>> 2) | move.ordinal() << moveShift));
+        if (terminal) {
+            terminals.put(blockCount >>> 3, (byte) (terminals.get(blockCount >>> 3) | 1 << (blockCount & 7)));
+        }
+        blockCount++;
+        records++;
+        if (blockCount == blockRecords) {
+            flush();
+        }
+    }
+
+    /**
+     * Gets the number of transitions appended so far.
+     *
+     * @return The number of transitions.
+     */
+    public long getRecordCount() {
+        return records;
+    }
+
+    /**
+     * Gets the board size of the games.
+     *
+     * @return The board size.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Writes the current block to the file, even if it is not full, and starts a new one.
+     *
+     * @throws IOException If the file cannot be written.
+     */
+    public void flush() throws IOException {
+        if (blockCount == 0) {
+            return;
+        }
+        long start = Instrumentation.start();
+        PersistEvent event = new PersistEvent();
+        event.begin();
+        count.putInt(0, blockCount);
+        states.flip();
+        rewards.flip();
+        moves.position(0).limit((blockCount + 3) / 4);
+        terminals.position(0).limit((blockCount + 7) / 8);
+        long bytes = Trajectory.blockBytes(blockCount, stateWords);
+        long written = 0;
+        while (written < bytes) {
+            written += channel.write(block);
+        }
+        int flushed = blockCount;
+        startBlock();
+        event.end();
+        if (event.shouldCommit()) {
+            event.file = fileName;
+            event.records = flushed;
+            event.bytes = bytes;
+            event.commit();
+        }
+        Instrumentation.record(Operation.PERSIST, start);
+    }
+
+    /**
+     * Writes the last block and closes the file.
+     *
+     * @throws IOException If the file cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Empties the column buffers for the next block.
+     */
+    private void startBlock() {
+        blockCount = 0;
+        count.clear();
+        states.clear();
+        rewards.clear();
+        moves.clear();
+        terminals.clear();
+        for (int i = 0; i < moves.capacity(); i++) {
+            moves.put(i, (byte) 0);
+        }
+        for (int i = 0; i < terminals.capacity(); i++) {
+            terminals.put(i, (byte) 0);
+        }
+    }
+}